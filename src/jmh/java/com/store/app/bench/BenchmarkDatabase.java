@@ -0,0 +1,90 @@
+package com.store.app.bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.store.app.connection.ConnectionPool;
+import com.store.app.connection.PoolConfig;
+
+/**
+ * In-memory H2 database (MySQL mode) with the store schema, seeded with a
+ * synthetic catalog, one user and an order history for that user.
+ */
+final class BenchmarkDatabase {
+	static final String USER_EMAIL = "bench@store.test";
+	static final String USER_PASSWORD = "bench";
+	static final int USER_ID = 1;
+	static final String[] CATEGORIES = { "Phones", "Laptops", "Audio", "Cameras", "Gaming", "Accessories" };
+
+	private static final AtomicInteger DATABASES = new AtomicInteger();
+
+	private BenchmarkDatabase() {
+	}
+
+	/** Creates a fresh database and returns a pool over it; closing the pool drops the database. */
+	static ConnectionPool create(int catalogSize, int orderCount) throws SQLException {
+		String url = "jdbc:h2:mem:store" + DATABASES.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+		try (Connection con = DriverManager.getConnection(url)) {
+			seed(con, catalogSize, orderCount);
+		}
+		PoolConfig config = new PoolConfig();
+		config.setUrl(url);
+		config.setMinSize(1);
+		config.setLeakDetectionThresholdMillis(0);
+		return new ConnectionPool(config, () -> DriverManager.getConnection(url));
+	}
+
+	private static void seed(Connection con, int catalogSize, int orderCount) throws SQLException {
+		try (Statement st = con.createStatement()) {
+			st.execute("CREATE TABLE products (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(100), "
+					+ "category VARCHAR(50), price DOUBLE, image VARCHAR(255), stock INT NULL)");
+			st.execute("CREATE INDEX products_category ON products(category, id)");
+			st.execute("CREATE TABLE users (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(100), "
+					+ "email VARCHAR(100) UNIQUE, password VARCHAR(255))");
+			st.execute("CREATE TABLE orders (id INT AUTO_INCREMENT PRIMARY KEY, user_id INT, product_id INT, "
+					+ "quantity INT, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, journal_id BIGINT NULL, "
+					+ "journal_seq BIGINT NULL)");
+			st.execute("CREATE INDEX orders_user_created ON orders(user_id, created_at, id)");
+			st.execute("CREATE UNIQUE INDEX orders_journal ON orders(journal_id, journal_seq)");
+		}
+		con.setAutoCommit(false);
+		try (PreparedStatement ps = con
+				.prepareStatement("INSERT INTO products(name, category, price, image) VALUES(?,?,?,?)")) {
+			for (int i = 1; i <= catalogSize; i++) {
+				ps.setString(1, "Product " + i);
+				ps.setString(2, CATEGORIES[i % CATEGORIES.length]);
+				ps.setDouble(3, 5 + (i % 500));
+				ps.setString(4, "product-" + i + ".jpg");
+				ps.addBatch();
+				if (i % 1000 == 0) {
+					ps.executeBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+		try (PreparedStatement ps = con.prepareStatement("INSERT INTO users(name, email, password) VALUES(?,?,?)")) {
+			ps.setString(1, "Bench");
+			ps.setString(2, USER_EMAIL);
+			ps.setString(3, USER_PASSWORD);
+			ps.executeUpdate();
+		}
+		try (PreparedStatement ps = con
+				.prepareStatement("INSERT INTO orders(user_id, product_id, quantity, created_at) VALUES(?,?,?,?)")) {
+			long now = System.currentTimeMillis();
+			for (int i = 0; i < orderCount; i++) {
+				ps.setInt(1, USER_ID);
+				ps.setInt(2, 1 + (i * 7919) % catalogSize);
+				ps.setInt(3, 1 + i % 3);
+				ps.setTimestamp(4, new Timestamp(now - i * 60_000L));
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+		con.commit();
+	}
+}
@@ -0,0 +1,108 @@
+package com.store.app.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.store.app.connection.ConnectionPool;
+import com.store.app.dao.OrderDao;
+import com.store.app.dao.ProductDao;
+import com.store.app.dao.UserDao;
+import com.store.app.model.Cart;
+import com.store.app.model.OrderPage;
+import com.store.app.model.PricedCart;
+import com.store.app.model.User;
+
+/**
+ * DAO hot paths against an in-memory database: cart pricing, order history
+ * and login. Each call goes through the connection pool and its statement
+ * cache, as in the web application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int catalogSize;
+
+	@Param({ "5", "50" })
+	public int cartLines;
+
+	@Param({ "200" })
+	public int orderCount;
+
+	private ConnectionPool pool;
+	private ProductDao productDao;
+	private OrderDao orderDao;
+	private UserDao userDao;
+	private List<Cart> cart;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		pool = BenchmarkDatabase.create(catalogSize, orderCount);
+		productDao = new ProductDao(pool);
+		orderDao = new OrderDao(pool);
+		userDao = new UserDao(pool);
+		cart = new ArrayList<>(cartLines);
+		for (int i = 0; i < cartLines; i++) {
+			Cart line = new Cart();
+			line.setId(1 + (i * 104729) % catalogSize);
+			line.setQuantity(1 + i % 4);
+			cart.add(line);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.close();
+	}
+
+	@Benchmark
+	public List<Cart> getCartProduct() {
+		return productDao.getCartProduct(cart);
+	}
+
+	@Benchmark
+	public double totalPrice() {
+		return productDao.totalPrice(cart);
+	}
+
+	/** What cart.jsp does: lines and total from one pass. */
+	@Benchmark
+	public PricedCart priceCart() {
+		return productDao.priceCart(cart);
+	}
+
+	@Benchmark
+	public Object userOrdersFullHistory() {
+		return orderDao.userOrders(BenchmarkDatabase.USER_ID);
+	}
+
+	@Benchmark
+	public OrderPage userOrdersFirstPage() {
+		return orderDao.userOrders(BenchmarkDatabase.USER_ID, null, 50);
+	}
+
+	@Benchmark
+	public User userLogin() {
+		return userDao.userLogin(BenchmarkDatabase.USER_EMAIL, BenchmarkDatabase.USER_PASSWORD);
+	}
+}
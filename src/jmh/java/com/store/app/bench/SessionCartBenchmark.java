@@ -0,0 +1,103 @@
+package com.store.app.bench;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.store.app.model.Cart;
+import com.store.app.model.SessionCart;
+
+/**
+ * The cart mutations behind CartServlet (add) and OpsServlet (inc, dec,
+ * remove), without the servlet container around them. The grouped benchmark
+ * has two "tabs" mutating the same cart while a third renders it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionCartBenchmark {
+
+	@Param({ "5", "50" })
+	public int cartLines;
+
+	private SessionCart cart;
+	private int next;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		cart = new SessionCart();
+		for (int id = 1; id <= cartLines; id++) {
+			cart.add(id, 1);
+		}
+	}
+
+	/** Add a product, bump it twice, bring it back down and remove it. */
+	@Benchmark
+	public int addIncDecRemove() {
+		int id = cartLines + 1 + (next++ & 1023);
+		cart.add(id, 1);
+		cart.increment(id);
+		cart.increment(id);
+		int q = cart.decrement(id);
+		cart.remove(id);
+		return q;
+	}
+
+	@Benchmark
+	public int incrementExisting() {
+		return cart.increment(1 + (next++ % cartLines));
+	}
+
+	@Benchmark
+	public List<Cart> snapshot() {
+		return cart.toCartList();
+	}
+
+	@Benchmark
+	@Group("tabs")
+	@GroupThreads(2)
+	public int tabsMutate(SharedCart shared) {
+		return shared.cart.increment(1 + ThreadLocalRandom.current().nextInt(shared.lines));
+	}
+
+	@Benchmark
+	@Group("tabs")
+	@GroupThreads(1)
+	public List<Cart> tabsRender(SharedCart shared) {
+		return shared.cart.toCartList();
+	}
+
+	/** One cart shared by the threads of a group, like one session open in several tabs. */
+	@State(Scope.Group)
+	public static class SharedCart {
+		SessionCart cart;
+		int lines;
+
+		@Setup(Level.Iteration)
+		public void setup(SessionCartBenchmark params) {
+			lines = params.cartLines;
+			cart = new SessionCart();
+			for (int id = 1; id <= lines; id++) {
+				cart.add(id, 1);
+			}
+		}
+	}
+}
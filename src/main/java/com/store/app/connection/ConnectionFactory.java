@@ -0,0 +1,10 @@
+package com.store.app.connection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/** Opens new physical connections for a {@link ConnectionPool}. */
+@FunctionalInterface
+public interface ConnectionFactory {
+	Connection create() throws SQLException;
+}
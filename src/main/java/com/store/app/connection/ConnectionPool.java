@@ -0,0 +1,371 @@
+package com.store.app.connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.store.app.metrics.LatencyHistogram;
+
+/**
+ * Bounded JDBC connection pool.
+ * <p>
+ * A fair semaphore caps the number of borrowed connections at
+ * {@link PoolConfig#getMaxSize()}; idle connections are kept in a LIFO deque so
+ * the hottest sockets are reused first and the cold tail can be evicted. A
+ * background housekeeper tops the pool up to its minimum size, closes
+ * connections idle for longer than the idle timeout and reports connections
+ * held past the leak detection threshold.
+ * <p>
+ * Borrowed connections are proxies: {@code close()} returns the physical
+ * connection to the pool after closing any statement the caller forgot and
+ * rolling back an unfinished transaction. Prepared statements are cached per
+ * physical connection (see {@link StatementCache}), so DAOs can prepare on
+ * every call without paying the parse cost each time.
+ */
+public class ConnectionPool implements ConnectionProvider, AutoCloseable {
+	/** Connections used this recently are handed out without a validation round trip. */
+	private static final long ALIVE_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+	private static final long RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private final PoolConfig config;
+	private final ConnectionFactory factory;
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+	private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger total = new AtomicInteger();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong destroyed = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong leaks = new AtomicLong();
+	private final LatencyHistogram waitTime = new LatencyHistogram();
+	private final ScheduledExecutorService housekeeper;
+	private volatile boolean closed;
+
+	public ConnectionPool(PoolConfig config) {
+		this(config, driverManagerFactory(config));
+	}
+
+	public ConnectionPool(PoolConfig config, ConnectionFactory factory) {
+		if (config.getMaxSize() < 1 || config.getMinSize() < 0 || config.getMinSize() > config.getMaxSize()) {
+			throw new IllegalArgumentException(
+					"Invalid pool size: min=" + config.getMinSize() + ", max=" + config.getMaxSize());
+		}
+		this.config = config;
+		this.factory = factory;
+		this.permits = new Semaphore(config.getMaxSize(), true);
+		this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "store-db-pool-housekeeper");
+			t.setDaemon(true);
+			return t;
+		});
+		this.housekeeper.scheduleWithFixedDelay(this::housekeep, 0, config.getHousekeepingPeriodMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	private static ConnectionFactory driverManagerFactory(PoolConfig config) {
+		try {
+			Class.forName(config.getDriverClassName());
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("JDBC driver not found: " + config.getDriverClassName(), e);
+		}
+		return () -> DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool is closed");
+		}
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.getBorrowTimeoutMillis());
+		PooledConnection pc;
+		try {
+			if (!permits.tryAcquire(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+				throw timeout();
+			}
+			try {
+				pc = take(deadline);
+			} catch (SQLException | RuntimeException | InterruptedException e) {
+				permits.release();
+				throw e;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		}
+		if (pc == null) {
+			permits.release();
+			throw timeout();
+		}
+		long now = System.nanoTime();
+		pc.borrowedAtNanos = now;
+		pc.leakReported = false;
+		pc.borrowSite = config.getLeakDetectionThresholdMillis() > 0 ? new Throwable("Connection borrowed here") : null;
+		borrowed.add(pc);
+		waitTime.record(now - start);
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new Handle(pc));
+	}
+
+	private PooledConnection take(long deadline) throws SQLException, InterruptedException {
+		for (;;) {
+			PooledConnection pc = idle.pollFirst();
+			if (pc == null) {
+				if (reserveSlot()) {
+					return open();
+				}
+				// Pool is at max size: a connection is on its way back or being replaced.
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return null;
+				}
+				pc = idle.pollFirst(Math.min(remaining, RETRY_NANOS), TimeUnit.NANOSECONDS);
+				if (pc == null) {
+					continue;
+				}
+			}
+			if (isAlive(pc)) {
+				return pc;
+			}
+			destroy(pc);
+		}
+	}
+
+	private boolean reserveSlot() {
+		for (;;) {
+			int n = total.get();
+			if (n >= config.getMaxSize()) {
+				return false;
+			}
+			if (total.compareAndSet(n, n + 1)) {
+				return true;
+			}
+		}
+	}
+
+	private PooledConnection open() throws SQLException {
+		try {
+			PooledConnection pc = new PooledConnection(factory.create(), config.getStatementCacheSize());
+			created.incrementAndGet();
+			return pc;
+		} catch (SQLException | RuntimeException e) {
+			total.decrementAndGet();
+			throw e;
+		}
+	}
+
+	private boolean isAlive(PooledConnection pc) {
+		if (System.nanoTime() - pc.lastUsedNanos < ALIVE_BYPASS_NANOS) {
+			return true;
+		}
+		try {
+			return pc.raw.isValid(config.getValidationTimeoutSeconds());
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void release(PooledConnection pc) {
+		if (!borrowed.remove(pc)) {
+			return;
+		}
+		try {
+			if (!closed && reset(pc)) {
+				pc.lastUsedNanos = System.nanoTime();
+				idle.offerFirst(pc);
+			} else {
+				destroy(pc);
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	private boolean reset(PooledConnection pc) {
+		if (pc.statements != null) {
+			pc.statements.checkinAll();
+		}
+		for (Statement s : pc.openStatements) {
+			try {
+				s.close();
+			} catch (SQLException e) {
+				// statement already unusable, nothing to recover
+			}
+		}
+		pc.openStatements.clear();
+		try {
+			if (pc.raw.isClosed()) {
+				return false;
+			}
+			if (!pc.raw.getAutoCommit()) {
+				pc.raw.rollback();
+				pc.raw.setAutoCommit(true);
+			}
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void destroy(PooledConnection pc) {
+		total.decrementAndGet();
+		destroyed.incrementAndGet();
+		try {
+			pc.raw.close();
+		} catch (SQLException e) {
+			// already broken
+		}
+	}
+
+	private SQLException timeout() {
+		timeouts.incrementAndGet();
+		return new SQLTransientConnectionException("Timed out after " + config.getBorrowTimeoutMillis()
+				+ "ms waiting for a database connection, " + getStats());
+	}
+
+	/** Evicts idle connections, refills to the minimum size and reports leaks. */
+	void housekeep() {
+		if (closed) {
+			return;
+		}
+		try {
+			long now = System.nanoTime();
+			long idleTimeout = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+			for (Iterator<PooledConnection> it = idle.descendingIterator(); it.hasNext();) {
+				PooledConnection pc = it.next();
+				if (total.get() > config.getMinSize() && now - pc.lastUsedNanos > idleTimeout && idle.remove(pc)) {
+					destroy(pc);
+				}
+			}
+			while (total.get() < config.getMinSize() && reserveSlot()) {
+				try {
+					PooledConnection pc = open();
+					idle.offerLast(pc);
+				} catch (SQLException e) {
+					System.err.println("Connection pool could not open a connection - " + e.getMessage());
+					break;
+				}
+			}
+			long threshold = TimeUnit.MILLISECONDS.toNanos(config.getLeakDetectionThresholdMillis());
+			if (threshold > 0) {
+				for (PooledConnection pc : borrowed) {
+					long held = now - pc.borrowedAtNanos;
+					if (!pc.leakReported && held > threshold) {
+						pc.leakReported = true;
+						leaks.incrementAndGet();
+						System.err.println("Possible connection leak: connection held for "
+								+ TimeUnit.NANOSECONDS.toMillis(held) + "ms");
+						if (pc.borrowSite != null) {
+							pc.borrowSite.printStackTrace();
+						}
+					}
+				}
+			}
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public PoolStats getStats() {
+		return new PoolStats(config.getMaxSize(), total.get(), borrowed.size(), idle.size(),
+				permits.getQueueLength(), created.get(), destroyed.get(), timeouts.get(), leaks.get(),
+				waitTime.snapshot());
+	}
+
+	/** Closes idle connections now; borrowed ones are closed as they are returned. */
+	@Override
+	public void close() {
+		closed = true;
+		housekeeper.shutdownNow();
+		PooledConnection pc;
+		while ((pc = idle.pollFirst()) != null) {
+			destroy(pc);
+		}
+	}
+
+	static final class PooledConnection {
+		final Connection raw;
+		/** Touched only by the borrowing thread. */
+		final List<Statement> openStatements = new ArrayList<>();
+		final StatementCache statements;
+		volatile long lastUsedNanos = System.nanoTime();
+		volatile long borrowedAtNanos;
+		volatile Throwable borrowSite;
+		volatile boolean leakReported;
+
+		PooledConnection(Connection raw, int statementCacheSize) {
+			this.raw = raw;
+			this.statements = statementCacheSize > 0 ? new StatementCache(statementCacheSize) : null;
+		}
+	}
+
+	/** Per-borrow view of a pooled connection. */
+	private final class Handle implements InvocationHandler {
+		private final PooledConnection pc;
+		private volatile boolean returned;
+
+		Handle(PooledConnection pc) {
+			this.pc = pc;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (!returned) {
+					returned = true;
+					release(pc);
+				}
+				return null;
+			case "isClosed":
+				return returned || pc.raw.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Pooled[" + pc.raw + "]";
+			default:
+				break;
+			}
+			if (returned) {
+				throw new SQLException("Connection has already been returned to the pool");
+			}
+			if (pc.statements != null && "prepareStatement".equals(method.getName())
+					&& StatementCache.isCacheable(args)) {
+				PreparedStatement cached = pc.statements.checkout(pc.raw, (Connection) proxy, args);
+				if (cached != null) {
+					return cached;
+				}
+			}
+			try {
+				Object result = method.invoke(pc.raw, args);
+				if (result instanceof Statement) {
+					pc.openStatements.add((Statement) result);
+				}
+				return result;
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
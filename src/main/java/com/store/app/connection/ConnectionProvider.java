@@ -0,0 +1,22 @@
+package com.store.app.connection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Source of JDBC connections for one unit of work. Callers must close the
+ * connection they get (try-with-resources), which hands it back to the
+ * provider instead of closing the physical socket.
+ */
+public interface ConnectionProvider {
+
+	Connection getConnection() throws SQLException;
+
+	/**
+	 * Wraps a connection owned by the caller. Closing the borrowed connection
+	 * is a no-op, so the caller stays in charge of its lifecycle.
+	 */
+	static ConnectionProvider of(Connection con) {
+		return new SingleConnectionProvider(con);
+	}
+}
@@ -0,0 +1,143 @@
+package com.store.app.connection;
+
+/**
+ * Settings for {@link ConnectionPool}. Defaults point at the {@code mysql}
+ * host of the container deployment; every value can be overridden with a
+ * {@code store.db.*} system property (see {@link #fromSystemProperties()}).
+ */
+public class PoolConfig {
+	private String driverClassName = "com.mysql.cj.jdbc.Driver";
+	private String url = "jdbc:mysql://mysql:3306/estore?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true&useServerPrepStmts=true";
+	private String user = "estore_user";
+	private String password = "estore_pass";
+	private int minSize = 2;
+	private int maxSize = 10;
+	private long borrowTimeoutMillis = 5_000;
+	private long idleTimeoutMillis = 10 * 60_000;
+	private int validationTimeoutSeconds = 2;
+	private long leakDetectionThresholdMillis = 30_000;
+	private long housekeepingPeriodMillis = 30_000;
+	private int statementCacheSize = 64;
+
+	public PoolConfig() {
+		super();
+	}
+
+	public static PoolConfig fromSystemProperties() {
+		PoolConfig c = new PoolConfig();
+		c.setDriverClassName(System.getProperty("store.db.driver", c.getDriverClassName()));
+		c.setUrl(System.getProperty("store.db.url", c.getUrl()));
+		c.setUser(System.getProperty("store.db.user", c.getUser()));
+		c.setPassword(System.getProperty("store.db.password", c.getPassword()));
+		c.setMinSize(Integer.getInteger("store.db.pool.minSize", c.getMinSize()));
+		c.setMaxSize(Integer.getInteger("store.db.pool.maxSize", c.getMaxSize()));
+		c.setBorrowTimeoutMillis(Long.getLong("store.db.pool.borrowTimeoutMillis", c.getBorrowTimeoutMillis()));
+		c.setIdleTimeoutMillis(Long.getLong("store.db.pool.idleTimeoutMillis", c.getIdleTimeoutMillis()));
+		c.setValidationTimeoutSeconds(
+				Integer.getInteger("store.db.pool.validationTimeoutSeconds", c.getValidationTimeoutSeconds()));
+		c.setLeakDetectionThresholdMillis(
+				Long.getLong("store.db.pool.leakDetectionThresholdMillis", c.getLeakDetectionThresholdMillis()));
+		c.setHousekeepingPeriodMillis(
+				Long.getLong("store.db.pool.housekeepingPeriodMillis", c.getHousekeepingPeriodMillis()));
+		c.setStatementCacheSize(Integer.getInteger("store.db.pool.statementCacheSize", c.getStatementCacheSize()));
+		return c;
+	}
+
+	public String getDriverClassName() {
+		return driverClassName;
+	}
+
+	public void setDriverClassName(String driverClassName) {
+		this.driverClassName = driverClassName;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
+	public String getUser() {
+		return user;
+	}
+
+	public void setUser(String user) {
+		this.user = user;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public void setPassword(String password) {
+		this.password = password;
+	}
+
+	public int getMinSize() {
+		return minSize;
+	}
+
+	public void setMinSize(int minSize) {
+		this.minSize = minSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public long getBorrowTimeoutMillis() {
+		return borrowTimeoutMillis;
+	}
+
+	public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+	}
+
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+	}
+
+	public int getValidationTimeoutSeconds() {
+		return validationTimeoutSeconds;
+	}
+
+	public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+	}
+
+	/** Borrow duration after which a connection is reported as leaked; 0 disables. */
+	public long getLeakDetectionThresholdMillis() {
+		return leakDetectionThresholdMillis;
+	}
+
+	public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+		this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+	}
+
+	public long getHousekeepingPeriodMillis() {
+		return housekeepingPeriodMillis;
+	}
+
+	public void setHousekeepingPeriodMillis(long housekeepingPeriodMillis) {
+		this.housekeepingPeriodMillis = housekeepingPeriodMillis;
+	}
+
+	/** Prepared statements cached per physical connection; 0 disables caching. */
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	public void setStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+}
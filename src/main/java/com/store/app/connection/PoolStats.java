@@ -0,0 +1,79 @@
+package com.store.app.connection;
+
+import com.store.app.metrics.LatencyHistogram;
+
+/** Point-in-time view of a {@link ConnectionPool}. */
+public class PoolStats {
+	private final int maxSize;
+	private final int total;
+	private final int active;
+	private final int idle;
+	private final int waiters;
+	private final long created;
+	private final long destroyed;
+	private final long timeouts;
+	private final long leaksDetected;
+	private final LatencyHistogram.Snapshot waitTime;
+
+	PoolStats(int maxSize, int total, int active, int idle, int waiters, long created, long destroyed,
+			long timeouts, long leaksDetected, LatencyHistogram.Snapshot waitTime) {
+		this.maxSize = maxSize;
+		this.total = total;
+		this.active = active;
+		this.idle = idle;
+		this.waiters = waiters;
+		this.created = created;
+		this.destroyed = destroyed;
+		this.timeouts = timeouts;
+		this.leaksDetected = leaksDetected;
+		this.waitTime = waitTime;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	public int getActive() {
+		return active;
+	}
+
+	public int getIdle() {
+		return idle;
+	}
+
+	public int getWaiters() {
+		return waiters;
+	}
+
+	public long getCreated() {
+		return created;
+	}
+
+	public long getDestroyed() {
+		return destroyed;
+	}
+
+	public long getTimeouts() {
+		return timeouts;
+	}
+
+	public long getLeaksDetected() {
+		return leaksDetected;
+	}
+
+	/** Time spent in {@code getConnection()}, successful borrows only. */
+	public LatencyHistogram.Snapshot getWaitTime() {
+		return waitTime;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolStats [max=" + maxSize + ", total=" + total + ", active=" + active + ", idle=" + idle
+				+ ", waiters=" + waiters + ", timeouts=" + timeouts + ", leaks=" + leaksDetected
+				+ ", waitP50=" + waitTime.percentileMillis(50) + "ms, waitP99=" + waitTime.percentileMillis(99) + "ms]";
+	}
+}
@@ -0,0 +1,32 @@
+package com.store.app.connection;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+/**
+ * Hands out the same caller-owned connection behind a proxy that ignores
+ * {@code close()}.
+ */
+class SingleConnectionProvider implements ConnectionProvider {
+	private final Connection proxy;
+
+	SingleConnectionProvider(Connection con) {
+		this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (p, method, args) -> {
+					if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+						return null;
+					}
+					try {
+						return method.invoke(con, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+
+	@Override
+	public Connection getConnection() {
+		return proxy;
+	}
+}
@@ -0,0 +1,144 @@
+package com.store.app.connection;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of prepared statements for one physical connection. It is only
+ * touched by the thread currently borrowing that connection, so it needs no
+ * locking.
+ * <p>
+ * Callers get a per-checkout proxy: closing it clears the parameters and
+ * hands the statement back to the cache instead of closing it. A statement
+ * that is still checked out is never handed out twice; the caller gets
+ * {@code null} and prepares an uncached one.
+ */
+final class StatementCache {
+	private final LinkedHashMap<String, CachedStatement> statements;
+
+	StatementCache(int maxSize) {
+		this.statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+				if (size() > maxSize && !eldest.getValue().inUse) {
+					eldest.getValue().closeQuietly();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/** Only {@code prepareStatement(sql)} and {@code prepareStatement(sql, autoGeneratedKeys)} are cached. */
+	static boolean isCacheable(Object[] args) {
+		return args != null && (args.length == 1 || (args.length == 2 && args[1] instanceof Integer));
+	}
+
+	PreparedStatement checkout(Connection raw, Connection owner, Object[] args) throws SQLException {
+		String sql = (String) args[0];
+		String key = args.length == 1 ? sql : sql + '\u0000' + args[1];
+		CachedStatement cs = statements.get(key);
+		if (cs != null && cs.broken) {
+			statements.remove(key);
+			cs = null;
+		}
+		if (cs == null) {
+			PreparedStatement ps = args.length == 1 ? raw.prepareStatement(sql)
+					: raw.prepareStatement(sql, (Integer) args[1]);
+			cs = new CachedStatement(ps);
+			statements.put(key, cs);
+		} else if (cs.inUse) {
+			return null;
+		}
+		cs.inUse = true;
+		return cs.proxy(owner);
+	}
+
+	/** Returns every leaked checkout to the cache; called when the connection goes back to the pool. */
+	void checkinAll() {
+		for (CachedStatement cs : statements.values()) {
+			if (cs.inUse) {
+				cs.checkin();
+			}
+		}
+		statements.values().removeIf(cs -> cs.broken);
+	}
+
+	int size() {
+		return statements.size();
+	}
+
+	private static final class CachedStatement {
+		final PreparedStatement raw;
+		boolean inUse;
+		boolean broken;
+		/** Bumped on every checkin so stale proxies stop working. */
+		int generation;
+
+		CachedStatement(PreparedStatement raw) {
+			this.raw = raw;
+		}
+
+		PreparedStatement proxy(Connection owner) {
+			final int gen = generation;
+			return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, (p, method, args) -> {
+						boolean live = inUse && gen == generation;
+						switch (method.getName()) {
+						case "close":
+							if (live) {
+								checkin();
+							}
+							return null;
+						case "isClosed":
+							return !live;
+						case "getConnection":
+							return owner;
+						case "equals":
+							return p == args[0];
+						case "hashCode":
+							return System.identityHashCode(p);
+						case "toString":
+							return "Cached[" + raw + "]";
+						default:
+							break;
+						}
+						if (!live) {
+							throw new SQLException("Statement is closed");
+						}
+						try {
+							return method.invoke(raw, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					});
+		}
+
+		void checkin() {
+			generation++;
+			inUse = false;
+			try {
+				raw.clearParameters();
+				raw.clearBatch();
+			} catch (SQLException e) {
+				broken = true;
+				closeQuietly();
+			}
+		}
+
+		void closeQuietly() {
+			try {
+				raw.close();
+			} catch (SQLException e) {
+				// connection is probably gone already
+			}
+		}
+	}
+}
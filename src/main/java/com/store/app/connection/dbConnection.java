@@ -1,22 +1,55 @@
 package com.store.app.connection;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
+/**
+ * Application-wide access to the shared {@link ConnectionPool}. The pool is
+ * created lazily from {@link PoolConfig#fromSystemProperties()}.
+ */
 public class dbConnection {
-	private static Connection con = null;
-
-	public static Connection getConnection() throws ClassNotFoundException, SQLException {
-		if (con == null) {
-			Class.forName("com.mysql.cj.jdbc.Driver");
-			con = DriverManager.getConnection(
-  "jdbc:mysql://mysql:3306/estore?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true",
-  "estore_user",
-  "estore_pass"
-);
-			//System.out.println("Connected");
+	private static volatile ConnectionPool pool = null;
+
+	public static ConnectionProvider getProvider() {
+		return pool();
+	}
+
+	/**
+	 * Borrows a pooled connection. It must be closed by the caller, which
+	 * returns it to the pool.
+	 */
+	public static Connection getConnection() throws SQLException {
+		return pool().getConnection();
+	}
+
+	public static PoolStats getPoolStats() {
+		return pool().getStats();
+	}
+
+	/** Pool statistics, or null if the pool was not created yet. */
+	public static PoolStats peekPoolStats() {
+		ConnectionPool p = pool;
+		return p == null ? null : p.getStats();
+	}
+
+	public static synchronized void shutdown() {
+		if (pool != null) {
+			pool.close();
+			pool = null;
+		}
+	}
+
+	private static ConnectionPool pool() {
+		ConnectionPool p = pool;
+		if (p == null) {
+			synchronized (dbConnection.class) {
+				p = pool;
+				if (p == null) {
+					p = new ConnectionPool(PoolConfig.fromSystemProperties());
+					pool = p;
+				}
+			}
 		}
-		return con;
+		return p;
 	}
 }
@@ -0,0 +1,297 @@
+package com.store.app.dao;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.store.app.model.PricedCart;
+import com.store.app.model.Product;
+import com.store.app.model.ProductPage;
+import com.store.app.model.SessionCart;
+
+/**
+ * Read-through cache in front of {@link ProductDao}: products by id, listing
+ * pages and the full listing, each entry living for a fixed TTL. The id map is bounded;
+ * once it is full the oldest entries are evicted first.
+ * <p>
+ * Cached {@link Product} instances are shared between requests and must be
+ * treated as read-only. The application does not write products yet, so the
+ * TTL is the freshness bound: a change made in MySQL shows up once the
+ * entries holding the old row expire. A write path (such as an admin price
+ * change) should call {@link #invalidate(int)} after its commit to make the
+ * change visible at once; the category index and search index still follow
+ * their own refresh periods. A failed query is never cached; the
+ * expired entry, if any, is served until a query succeeds.
+ */
+public class CatalogCache {
+	private static volatile CatalogCache instance;
+
+	private final ProductDao productDao;
+	private final long ttlNanos;
+	private final int maxEntries;
+	private final LongSupplier clock;
+	private final ConcurrentHashMap<Integer, Entry<Product>> byId = new ConcurrentHashMap<>();
+	private final ConcurrentLinkedQueue<Integer> insertionOrder = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final Object listingLock = new Object();
+	private volatile Entry<List<Product>> listing;
+	private final ConcurrentHashMap<String, Entry<ProductPage>> pages = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder cartHits = new LongAdder();
+	private final LongAdder cartMisses = new LongAdder();
+
+	public CatalogCache(ProductDao productDao, long ttlMillis, int maxEntries) {
+		this(productDao, ttlMillis, maxEntries, System::nanoTime);
+	}
+
+	CatalogCache(ProductDao productDao, long ttlMillis, int maxEntries, LongSupplier clock) {
+		this.productDao = productDao;
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		this.maxEntries = maxEntries;
+		this.clock = clock;
+	}
+
+	/** Shared instance backed by the application pool, configured by {@code store.catalog.*} properties. */
+	public static CatalogCache getInstance() {
+		CatalogCache c = instance;
+		if (c == null) {
+			synchronized (CatalogCache.class) {
+				c = instance;
+				if (c == null) {
+					c = new CatalogCache(Daos.products(),
+							Long.getLong("store.catalog.ttlMillis", 60_000),
+							Integer.getInteger("store.catalog.maxEntries", 10_000));
+					instance = c;
+				}
+			}
+		}
+		return c;
+	}
+
+	/** The shared instance if something already created it, else null; never creates one. */
+	public static CatalogCache peek() {
+		return instance;
+	}
+
+	public Product getSingleProduct(int id) {
+		if (id <= 0) {
+			return null;
+		}
+		long now = clock.getAsLong();
+		Entry<Product> e = byId.get(id);
+		if (e != null && !e.isExpired(now)) {
+			hits.increment();
+			return e.value;
+		}
+		misses.increment();
+		Product p = productDao.getSingleProduct(id);
+		if (p != null) {
+			put(id, p, now);
+		} else if (e != null) {
+			byId.remove(id, e);
+		}
+		return p;
+	}
+
+	public List<Product> showProducts() {
+		long now = clock.getAsLong();
+		Entry<List<Product>> e = listing;
+		if (e != null && !e.isExpired(now)) {
+			hits.increment();
+			return e.value;
+		}
+		synchronized (listingLock) {
+			// another request may have reloaded the listing while we waited
+			e = listing;
+			if (e != null && !e.isExpired(now)) {
+				hits.increment();
+				return e.value;
+			}
+			misses.increment();
+			List<Product> products = productDao.showProducts();
+			if (products == null) {
+				// not cached: the next request tries again; meanwhile an expired listing beats a blank one
+				return e != null ? e.value : Collections.emptyList();
+			}
+			products = Collections.unmodifiableList(products);
+			listing = new Entry<>(products, now + ttlNanos);
+			return products;
+		}
+	}
+
+	/** Cached {@link ProductDao#listProducts(String, int, int)}. */
+	public ProductPage listProducts(String category, int afterId, int pageSize) {
+		pageSize = ProductDao.clampPageSize(pageSize);
+		String key = (category == null ? "" : category) + '|' + afterId + '|' + pageSize;
+		long now = clock.getAsLong();
+		Entry<ProductPage> e = pages.get(key);
+		if (e != null && !e.isExpired(now)) {
+			hits.increment();
+			return e.value;
+		}
+		misses.increment();
+		ProductPage page = productDao.listProducts(category, afterId, pageSize);
+		if (page == null) {
+			// not cached, like a failed listing
+			return e != null ? e.value : new ProductPage(Collections.emptyList(), 0);
+		}
+		page = new ProductPage(Collections.unmodifiableList(page.getProducts()), page.getNextAfterId());
+		if (pages.size() >= maxEntries) {
+			evictions.add(pages.size());
+			pages.clear();
+		}
+		pages.put(key, new Entry<>(page, now + ttlNanos));
+		return page;
+	}
+
+	/**
+	 * Drops everything cached about one product: its entry and every listing,
+	 * since any page may hold it. Sessions reprice cart lines once their
+	 * prices are older than the TTL.
+	 */
+	public void invalidate(int productId) {
+		byId.remove(productId);
+		invalidateListings();
+	}
+
+	/** Drops every cached product and listing. */
+	public void invalidateAll() {
+		byId.clear();
+		invalidateListings();
+	}
+
+	private void invalidateListings() {
+		synchronized (listingLock) {
+			listing = null;
+		}
+		pages.clear();
+	}
+
+	/**
+	 * Priced view of a session cart. The cart keeps its lines priced between
+	 * views, so this only queries when a line was never priced or the prices
+	 * are older than the TTL.
+	 */
+	public PricedCart priceCart(SessionCart cart) {
+		long now = clock.getAsLong();
+		PricedCart priced = cart.pricedSnapshot(now - ttlNanos);
+		if (priced != null) {
+			cartHits.increment();
+			return priced;
+		}
+		cartMisses.increment();
+		boolean all = cart.isStale(now - ttlNanos);
+		int[] ids = cart.idsToPrice(all);
+		Map<Integer, Product> products = productDao.getProductsByIds(ids);
+		if (products == null) {
+			// show what the cart already knows; the next view tries again
+			return cart.snapshot();
+		}
+		return cart.applyPrices(ids, products, all, now);
+	}
+
+	private void put(int id, Product p, long now) {
+		if (byId.put(id, new Entry<>(p, now + ttlNanos)) == null) {
+			insertionOrder.add(id);
+			if (queued.incrementAndGet() > 2 * maxEntries) {
+				compactQueue();
+			}
+		}
+		while (byId.size() > maxEntries) {
+			Integer oldest = insertionOrder.poll();
+			if (oldest == null) {
+				break;
+			}
+			queued.decrementAndGet();
+			if (byId.remove(oldest) != null) {
+				evictions.increment();
+			}
+		}
+	}
+
+	/** Drops queue slots left behind by ids removed from the map. */
+	private synchronized void compactQueue() {
+		insertionOrder.retainAll(byId.keySet());
+		queued.set(insertionOrder.size());
+	}
+
+	public ProductDao getProductDao() {
+		return productDao;
+	}
+
+	/** Cart views answered without a query. */
+	public long getCartHits() {
+		return cartHits.sum();
+	}
+
+	public long getCartMisses() {
+		return cartMisses.sum();
+	}
+
+	public CacheStats getStats() {
+		return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), byId.size());
+	}
+
+	private static final class Entry<T> {
+		final T value;
+		final long expiresAtNanos;
+
+		Entry(T value, long expiresAtNanos) {
+			this.value = value;
+			this.expiresAtNanos = expiresAtNanos;
+		}
+
+		boolean isExpired(long now) {
+			return now - expiresAtNanos > 0;
+		}
+	}
+
+	public static class CacheStats {
+		private final long hits;
+		private final long misses;
+		private final long evictions;
+		private final int size;
+
+		CacheStats(long hits, long misses, long evictions, int size) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.size = size;
+		}
+
+		public long getHits() {
+			return hits;
+		}
+
+		public long getMisses() {
+			return misses;
+		}
+
+		public long getEvictions() {
+			return evictions;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public double getHitRatio() {
+			long total = hits + misses;
+			return total == 0 ? 0 : hits / (double) total;
+		}
+
+		@Override
+		public String toString() {
+			return "CacheStats [hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size
+					+ "]";
+		}
+	}
+}
@@ -0,0 +1,382 @@
+package com.store.app.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.store.app.model.Product;
+import com.store.app.model.ProductPage;
+
+/**
+ * The catalog held in memory by id, by category and by price range, with
+ * category counts and price-range counts.
+ * <p>
+ * Listings are keyset pages like {@link ProductDao#listProducts(String, int, int)},
+ * but a category or price-range page walks only the products it can return,
+ * and facet counts never run a {@code GROUP BY}. Counts are not maintained
+ * incrementally as rows change: the application has no product write path
+ * to hook, so the whole index, counts included, is rebuilt from MySQL every
+ * {@code store.catalog.indexRefreshMillis}, and a change shows up within
+ * that period (or at once after {@link #reload()}).
+ * <p>
+ * Each load builds a new immutable {@link Snapshot} off to the side and
+ * publishes it with one volatile write, so readers never wait for a reload.
+ * Only the very first load runs on a request thread; later ones run on a
+ * background thread. The version moves only when a reload finds different
+ * rows.
+ */
+public class CategoryIndex {
+	/** Upper bounds of the price ranges; the last range is open-ended. */
+	public static final double[] PRICE_BOUNDS = { 25, 50, 100, 250, 500 };
+	public static final int ANY_PRICE = -1;
+	private static volatile CategoryIndex instance;
+
+	private final ProductDao productDao;
+	private final ScheduledExecutorService refresher;
+	private final Object loadLock = new Object();
+	private volatile Snapshot snapshot;
+	private final LongAdder reloads = new LongAdder();
+	private final LongAdder reloadFailures = new LongAdder();
+
+	/** Reloads in the background when {@code refreshMillis} is positive; otherwise only on first use. */
+	public CategoryIndex(ProductDao productDao, long refreshMillis) {
+		this(productDao, refreshMillis > 0 ? Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "store-category-index-refresh");
+			t.setDaemon(true);
+			return t;
+		}) : null, refreshMillis);
+	}
+
+	/** Schedules the background reloads on {@code refresher}, if not null. */
+	CategoryIndex(ProductDao productDao, ScheduledExecutorService refresher, long refreshMillis) {
+		this.productDao = productDao;
+		this.refresher = refresher;
+		if (refresher != null) {
+			refresher.scheduleWithFixedDelay(this::reloadQuietly, refreshMillis, refreshMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/** Shared instance reading through the shared {@link CatalogCache}'s DAO. */
+	public static CategoryIndex getInstance() {
+		CategoryIndex c = instance;
+		if (c == null) {
+			synchronized (CategoryIndex.class) {
+				c = instance;
+				if (c == null) {
+					c = new CategoryIndex(CatalogCache.getInstance().getProductDao(),
+							Long.getLong("store.catalog.indexRefreshMillis", 300_000));
+					instance = c;
+				}
+			}
+		}
+		return c;
+	}
+
+	/** The shared instance if something already created it, else null; never creates one. */
+	public static CategoryIndex peek() {
+		return instance;
+	}
+
+	public static synchronized void shutdown() {
+		if (instance != null && instance.refresher != null) {
+			instance.refresher.shutdownNow();
+		}
+		instance = null;
+	}
+
+	/** Index of the price range holding {@code price}. */
+	public static int priceBucket(double price) {
+		for (int i = 0; i < PRICE_BOUNDS.length; i++) {
+			if (price < PRICE_BOUNDS[i]) {
+				return i;
+			}
+		}
+		return PRICE_BOUNDS.length;
+	}
+
+	/**
+	 * Loads the catalog if it was never loaded; concurrent first callers wait
+	 * for one load. False if there is still nothing to serve.
+	 */
+	public boolean ensureLoaded() {
+		if (snapshot != null) {
+			return true;
+		}
+		synchronized (loadLock) {
+			if (snapshot == null) {
+				reload();
+			}
+		}
+		return snapshot != null;
+	}
+
+	/** Reads the whole catalog and publishes it; false if the read looked failed. */
+	public boolean reload() {
+		List<Product> all = productDao.showProducts();
+		if (all == null || all.isEmpty()) {
+			// more likely a failed query than an emptied shop: keep what we have and try again later
+			reloadFailures.increment();
+			return false;
+		}
+		replaceAll(all);
+		return true;
+	}
+
+	private void reloadQuietly() {
+		try {
+			reload();
+		} catch (RuntimeException e) {
+			// keep the schedule alive
+			e.printStackTrace();
+		}
+	}
+
+	/** Replaces the whole index; counts as a load. */
+	public void replaceAll(Collection<Product> all) {
+		synchronized (loadLock) {
+			Snapshot current = snapshot;
+			if (current != null && current.sameRows(all)) {
+				reloads.increment();
+				return;
+			}
+			snapshot = new Snapshot(all, current == null ? 1 : current.version + 1);
+			reloads.increment();
+		}
+	}
+
+	/**
+	 * One page of products with id above {@code afterId}, optionally limited
+	 * to a category and to one price range ({@link #ANY_PRICE} for all).
+	 */
+	public ProductPage listProducts(String category, int priceBucket, int afterId, int pageSize) {
+		pageSize = ProductDao.clampPageSize(pageSize);
+		if (!ensureLoaded()) {
+			return new ProductPage(Collections.emptyList(), 0);
+		}
+		return snapshot.listProducts(category, priceBucket, afterId, pageSize);
+	}
+
+	/**
+	 * The catalog as of the latest load, loading it on first use; null if
+	 * nothing could be loaded. Read a version and its rows from the same
+	 * snapshot so they always agree.
+	 */
+	public Snapshot snapshot() {
+		return ensureLoaded() ? snapshot : null;
+	}
+
+	/** Category counts and per-category price-range counts, as of the current snapshot. */
+	public Facets facets() {
+		if (!ensureLoaded()) {
+			return Facets.EMPTY;
+		}
+		return snapshot.facets();
+	}
+
+	/**
+	 * False only when the loaded catalog covers {@code productId} and does not
+	 * hold it. Ids above the newest loaded one may be products added since,
+	 * and anything goes before the first load. Never touches the database.
+	 */
+	public boolean mayExist(int productId) {
+		Snapshot s = snapshot;
+		return s == null || s.byId.isEmpty() || productId > s.byId.lastKey() || s.byId.containsKey(productId);
+	}
+
+	/** Moves whenever a load publishes different rows. */
+	public long version() {
+		Snapshot s = snapshot;
+		return s == null ? 0 : s.version;
+	}
+
+	public int size() {
+		Snapshot s = snapshot;
+		return s == null ? 0 : s.byId.size();
+	}
+
+	/** Categories in the current snapshot; 0 before the first load, which this never triggers. */
+	public int categoryCount() {
+		Snapshot s = snapshot;
+		return s == null ? 0 : s.byCategory.size() - (s.byCategory.containsKey("") ? 1 : 0);
+	}
+
+	public long getReloads() {
+		return reloads.sum();
+	}
+
+	public long getReloadFailures() {
+		return reloadFailures.sum();
+	}
+
+	/** The catalog as of one load. Never modified after construction. */
+	public static final class Snapshot {
+		final long version;
+		final TreeMap<Integer, Product> byId = new TreeMap<>();
+		final HashMap<String, TreeMap<Integer, Product>> byCategory = new HashMap<>();
+		/** The whole catalog split by price range. */
+		final List<TreeMap<Integer, Product>> byPrice = priceRanges();
+		/** Each category split by price range. */
+		final HashMap<String, List<TreeMap<Integer, Product>>> byCategoryPrice = new HashMap<>();
+		private volatile Facets facets;
+
+		Snapshot(Collection<Product> all, long version) {
+			this.version = version;
+			for (Product p : all) {
+				byId.put(p.getId(), p);
+			}
+			for (Product p : byId.values()) {
+				String category = category(p);
+				int bucket = priceBucket(p.getPrice());
+				byCategory.computeIfAbsent(category, k -> new TreeMap<>()).put(p.getId(), p);
+				byPrice.get(bucket).put(p.getId(), p);
+				byCategoryPrice.computeIfAbsent(category, k -> priceRanges()).get(bucket).put(p.getId(), p);
+			}
+		}
+
+		private static List<TreeMap<Integer, Product>> priceRanges() {
+			List<TreeMap<Integer, Product>> ranges = new ArrayList<>(PRICE_BOUNDS.length + 1);
+			for (int i = 0; i <= PRICE_BOUNDS.length; i++) {
+				ranges.add(new TreeMap<>());
+			}
+			return ranges;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		/** True when {@code all} holds exactly these products, field for field. */
+		boolean sameRows(Collection<Product> all) {
+			if (all.size() != byId.size()) {
+				return false;
+			}
+			TreeMap<Integer, Product> sorted = new TreeMap<>();
+			for (Product p : all) {
+				sorted.put(p.getId(), p);
+			}
+			if (sorted.size() != byId.size()) {
+				return false;
+			}
+			Iterator<Product> mine = byId.values().iterator();
+			for (Product p : sorted.values()) {
+				Product q = mine.next();
+				if (p.getId() != q.getId() || Double.compare(p.getPrice(), q.getPrice()) != 0
+						|| !Objects.equals(p.getName(), q.getName())
+						|| !Objects.equals(p.getCategory(), q.getCategory())
+						|| !Objects.equals(p.getImage(), q.getImage())) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/** Like {@link CategoryIndex#listProducts(String, int, int, int)}, without clamping {@code pageSize}. */
+		public ProductPage listProducts(String category, int priceBucket, int afterId, int pageSize) {
+			TreeMap<Integer, Product> source;
+			boolean all = category == null || category.isEmpty();
+			if (priceBucket == ANY_PRICE) {
+				source = all ? byId : byCategory.get(category);
+			} else if (priceBucket < 0 || priceBucket > PRICE_BOUNDS.length) {
+				source = null;
+			} else {
+				List<TreeMap<Integer, Product>> ranges = all ? byPrice : byCategoryPrice.get(category);
+				source = ranges == null ? null : ranges.get(priceBucket);
+			}
+			if (source == null) {
+				return new ProductPage(Collections.emptyList(), 0);
+			}
+			List<Product> products = new ArrayList<>(Math.min(pageSize, source.size()));
+			int nextAfterId = 0;
+			for (Product p : source.tailMap(Math.max(afterId, 0), false).values()) {
+				if (products.size() == pageSize) {
+					nextAfterId = products.get(pageSize - 1).getId();
+					break;
+				}
+				products.add(p);
+			}
+			return new ProductPage(Collections.unmodifiableList(products), nextAfterId);
+		}
+
+		Facets facets() {
+			Facets f = facets;
+			if (f == null) {
+				Map<String, Integer> counts = new TreeMap<>();
+				Map<String, int[]> prices = new HashMap<>();
+				for (Map.Entry<String, List<TreeMap<Integer, Product>>> e : byCategoryPrice.entrySet()) {
+					if (!e.getKey().isEmpty()) {
+						counts.put(e.getKey(), byCategory.get(e.getKey()).size());
+						prices.put(e.getKey(), sizes(e.getValue()));
+					}
+				}
+				f = new Facets(Collections.unmodifiableMap(counts), prices, sizes(byPrice), byId.size(), version);
+				facets = f;
+			}
+			return f;
+		}
+
+		private static int[] sizes(List<TreeMap<Integer, Product>> ranges) {
+			int[] out = new int[ranges.size()];
+			for (int i = 0; i < out.length; i++) {
+				out[i] = ranges.get(i).size();
+			}
+			return out;
+		}
+	}
+
+	private static String category(Product p) {
+		return p.getCategory() == null ? "" : p.getCategory();
+	}
+
+	/** Counts at one index version; shared, read-only. */
+	public static final class Facets {
+		private static final int[] NONE = new int[PRICE_BOUNDS.length + 1];
+		static final Facets EMPTY = new Facets(Collections.emptyMap(), Collections.emptyMap(), NONE, 0, 0);
+
+		private final Map<String, Integer> categories;
+		private final Map<String, int[]> prices;
+		private final int[] allPrices;
+		private final int total;
+		private final long version;
+
+		Facets(Map<String, Integer> categories, Map<String, int[]> prices, int[] allPrices, int total, long version) {
+			this.categories = categories;
+			this.prices = prices;
+			this.allPrices = allPrices;
+			this.total = total;
+			this.version = version;
+		}
+
+		/** Category name to number of products, sorted by name. */
+		public Map<String, Integer> getCategories() {
+			return categories;
+		}
+
+		/** Products per price range within the category, or in the whole catalog for null. */
+		public int[] getPriceCounts(String category) {
+			if (category == null || category.isEmpty()) {
+				return allPrices;
+			}
+			int[] counts = prices.get(category);
+			return counts == null ? NONE : counts;
+		}
+
+		public int getTotal() {
+			return total;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+	}
+}
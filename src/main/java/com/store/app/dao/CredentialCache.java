@@ -0,0 +1,122 @@
+package com.store.app.dao;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.store.app.model.User;
+
+/**
+ * Short-lived cache of login lookups keyed by email: the stored password hash
+ * of a known user, or the fact that no user has that email. A burst of logins
+ * against the same addresses, legitimate or credential stuffing, then costs
+ * one query per email per TTL instead of one per attempt.
+ * <p>
+ * A password changed outside this application keeps its old value here until
+ * the entry expires; keep the TTL short. When the map is full it is cleared.
+ * <p>
+ * Keys are trimmed and lower-cased, as the users table compares emails
+ * case-insensitively: {@code Ana@x.com} and {@code ana@x.com} share one entry.
+ */
+public class CredentialCache {
+	private final long ttlNanos;
+	private final int maxEntries;
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public CredentialCache(long ttlMillis, int maxEntries) {
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		this.maxEntries = maxEntries;
+	}
+
+	/** Cached lookup, or null on a miss. */
+	Credential get(String email) {
+		String key = key(email);
+		Entry e = entries.get(key);
+		if (e != null && !(System.nanoTime() - e.expiresAtNanos > 0)) {
+			hits.increment();
+			return e.credential;
+		}
+		if (e != null) {
+			entries.remove(key, e);
+		}
+		misses.increment();
+		return null;
+	}
+
+	void put(String email, Credential credential) {
+		if (ttlNanos <= 0) {
+			return;
+		}
+		if (entries.size() >= maxEntries) {
+			entries.clear();
+		}
+		entries.put(key(email), new Entry(credential, System.nanoTime() + ttlNanos));
+	}
+
+	void invalidate(String email) {
+		entries.remove(key(email));
+	}
+
+	private static String key(String email) {
+		return email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/** What the users table holds for an email; {@link #UNKNOWN} when there is no such user. */
+	static final class Credential {
+		static final Credential UNKNOWN = new Credential(0, null, null, null);
+
+		final int id;
+		final String name;
+		final String email;
+		final String passwordHash;
+
+		Credential(int id, String name, String email, String passwordHash) {
+			this.id = id;
+			this.name = name;
+			this.email = email;
+			this.passwordHash = passwordHash;
+		}
+
+		boolean isUnknown() {
+			return this == UNKNOWN;
+		}
+
+		Credential withPasswordHash(String hash) {
+			return new Credential(id, name, email, hash);
+		}
+
+		/** A fresh session user; the hash is not copied. */
+		User toUser() {
+			User user = new User();
+			user.setId(id);
+			user.setName(name);
+			user.setEmail(email);
+			return user;
+		}
+	}
+
+	private static final class Entry {
+		final Credential credential;
+		final long expiresAtNanos;
+
+		Entry(Credential credential, long expiresAtNanos) {
+			this.credential = credential;
+			this.expiresAtNanos = expiresAtNanos;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package com.store.app.dao;
+
+import java.io.IOException;
+
+import com.store.app.connection.dbConnection;
+
+/**
+ * Shared DAO instances backed by the application connection pool. The DAOs
+ * are thread-safe, so one instance of each serves every request thread.
+ */
+public class Daos {
+	private static volatile ProductDao products;
+	private static volatile OrderDao orders;
+	private static volatile UserDao users;
+	private static volatile Inventory inventory;
+	private static boolean inventoryChecked;
+
+	private Daos() {
+	}
+
+	public static ProductDao products() {
+		ProductDao d = products;
+		if (d == null) {
+			synchronized (Daos.class) {
+				if (products == null) {
+					products = new ProductDao(dbConnection.getProvider());
+				}
+				d = products;
+			}
+		}
+		return d;
+	}
+
+	public static OrderDao orders() {
+		OrderDao d = orders;
+		if (d == null) {
+			synchronized (Daos.class) {
+				if (orders == null) {
+					orders = new OrderDao(dbConnection.getProvider(), writeBehind());
+				}
+				d = orders;
+			}
+		}
+		return d;
+	}
+
+	private static OrderWriteBehind writeBehind() {
+		if (!WriteBehindConfig.isEnabled()) {
+			return null;
+		}
+		WriteBehindConfig config = WriteBehindConfig.fromSystemProperties();
+		try {
+			// looked up per order, outside our lock, in memory only: the ack must not wait for MySQL
+			return new OrderWriteBehind(dbConnection.getProvider(), config,
+					id -> CategoryIndex.getInstance().mayExist(id));
+		} catch (IOException e) {
+			// without a journal an acknowledged order could be lost, so fall back to direct inserts
+			System.err.println("Order journal unavailable at " + config.getJournalDir()
+					+ ", write-behind disabled - " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Stock reservations, or null unless {@code store.inventory.enabled} is
+	 * true; by default checkout does not look at stock.
+	 */
+	public static Inventory inventory() {
+		Inventory i = inventory;
+		if (i == null) {
+			synchronized (Daos.class) {
+				if (!inventoryChecked) {
+					if (Boolean.getBoolean("store.inventory.enabled")) {
+						inventory = new Inventory(products(), dbConnection.getProvider(),
+								Long.getLong("store.inventory.reconcileMillis", 1_000));
+					}
+					inventoryChecked = true;
+				}
+				i = inventory;
+			}
+		}
+		return i;
+	}
+
+	/** The order DAO if something already created it, else null. */
+	public static OrderDao peekOrders() {
+		return orders;
+	}
+
+	/** The user DAO if something already created it, else null. */
+	public static UserDao peekUsers() {
+		return users;
+	}
+
+	/** The inventory if something already created it, else null. */
+	public static Inventory peekInventory() {
+		return inventory;
+	}
+
+	/** Drains the write-behind queue and writes out sold stock, if any; call before the pool is closed. */
+	public static synchronized void shutdown() {
+		if (orders != null && orders.getWriteBehind() != null) {
+			orders.getWriteBehind().close();
+		}
+		orders = null;
+		if (inventory != null) {
+			inventory.close();
+		}
+		inventory = null;
+		inventoryChecked = false;
+	}
+
+	public static UserDao users() {
+		UserDao d = users;
+		if (d == null) {
+			synchronized (Daos.class) {
+				if (users == null) {
+					users = new UserDao(dbConnection.getProvider());
+				}
+				d = users;
+			}
+		}
+		return d;
+	}
+}
@@ -0,0 +1,302 @@
+package com.store.app.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.store.app.connection.ConnectionProvider;
+import com.store.app.model.Order;
+
+/**
+ * Stock reservations for checkout, held in memory and written to
+ * {@code products.stock} in the background.
+ * <p>
+ * Each product that has been ordered gets one counter, loaded from MySQL on
+ * first use. The counter packs the units still available and the units sold
+ * since the last write-out into one {@link AtomicLong}, so a reservation is a
+ * single compare-and-set that fails instead of going below zero. Buyers of
+ * the same product never wait on a lock or on a row lock. Every
+ * {@code store.inventory.reconcileMillis} the sold units are subtracted from
+ * MySQL in one batch. The counters are then reloaded from the table, which
+ * also picks up restocks made outside the application. A product whose
+ * {@code stock} is NULL is not counted and never runs out.
+ * <p>
+ * This assumes one application instance owns the stock; with several, each
+ * would hand out the same units until the next reconcile.
+ */
+public class Inventory {
+	private final ProductDao productDao;
+	private final ConnectionProvider provider;
+	private final ConcurrentHashMap<Integer, AtomicLong> counters = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService reconciler;
+	private final Object reconcileLock = new Object();
+	private final LongAdder reserved = new LongAdder();
+	private final LongAdder outOfStock = new LongAdder();
+	private final LongAdder reconciles = new LongAdder();
+	private final LongAdder reconcileFailures = new LongAdder();
+
+	/** Starts a reconciler thread when {@code reconcileMillis} is positive. */
+	public Inventory(ProductDao productDao, ConnectionProvider provider, long reconcileMillis) {
+		this.productDao = productDao;
+		this.provider = provider;
+		if (reconcileMillis > 0) {
+			reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "store-inventory-reconcile");
+				t.setDaemon(true);
+				return t;
+			});
+			reconciler.scheduleWithFixedDelay(this::reconcileQuietly, reconcileMillis, reconcileMillis,
+					TimeUnit.MILLISECONDS);
+		} else {
+			reconciler = null;
+		}
+	}
+
+	private static long pack(int available, int sold) {
+		return ((long) available << 32) | (sold & 0xFFFFFFFFL);
+	}
+
+	private static int available(long state) {
+		return (int) (state >> 32);
+	}
+
+	private static int sold(long state) {
+		return (int) state;
+	}
+
+	/** Takes {@code quantity} units; false, changing nothing, if fewer are available or the product is unknown. */
+	public boolean reserve(int productId, int quantity) {
+		AtomicLong counter = counter(productId);
+		if (counter == null || quantity <= 0) {
+			outOfStock.increment();
+			return false;
+		}
+		while (true) {
+			long s = counter.get();
+			int available = available(s);
+			if (available < quantity) {
+				outOfStock.increment();
+				return false;
+			}
+			if (counter.compareAndSet(s, pack(available - quantity, sold(s) + quantity))) {
+				reserved.add(quantity);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Reserves every order's quantity or none. Returns the orders that could
+	 * not be served, empty when all were reserved.
+	 */
+	public List<Order> reserveAll(List<Order> orders) {
+		List<Order> taken = new ArrayList<>(orders.size());
+		List<Order> missing = null;
+		for (Order o : orders) {
+			if (reserve(o.getId(), o.getQuantity())) {
+				taken.add(o);
+			} else {
+				if (missing == null) {
+					missing = new ArrayList<>();
+				}
+				missing.add(o);
+			}
+		}
+		if (missing == null) {
+			return Collections.emptyList();
+		}
+		releaseAll(taken);
+		return missing;
+	}
+
+	/** Gives back units of a reservation whose order was not placed. */
+	public void release(int productId, int quantity) {
+		AtomicLong counter = counters.get(productId);
+		if (counter == null || quantity <= 0) {
+			return;
+		}
+		while (true) {
+			long s = counter.get();
+			if (counter.compareAndSet(s, pack(available(s) + quantity, sold(s) - quantity))) {
+				reserved.add(-quantity);
+				return;
+			}
+		}
+	}
+
+	public void releaseAll(List<Order> orders) {
+		for (Order o : orders) {
+			release(o.getId(), o.getQuantity());
+		}
+	}
+
+	/** Units available for the product, or -1 if it has not been loaded. */
+	public int getAvailable(int productId) {
+		AtomicLong counter = counters.get(productId);
+		return counter == null ? -1 : available(counter.get());
+	}
+
+	private AtomicLong counter(int productId) {
+		AtomicLong counter = counters.get(productId);
+		if (counter != null) {
+			return counter;
+		}
+		Map<Integer, Integer> loaded = productDao.getStockByIds(new int[] { productId });
+		if (loaded == null || !loaded.containsKey(productId)) {
+			return null;
+		}
+		AtomicLong fresh = new AtomicLong(pack(Math.max(0, loaded.get(productId)), 0));
+		counter = counters.putIfAbsent(productId, fresh);
+		return counter == null ? fresh : counter;
+	}
+
+	/**
+	 * Writes the units sold since the last call to MySQL, then reloads the
+	 * stock of every tracked product. Returns false if the write failed; the
+	 * units are kept and written next time.
+	 */
+	public boolean reconcile() {
+		synchronized (reconcileLock) {
+			int[] ids = new int[counters.size()];
+			int[] deltas = new int[ids.length];
+			int n = 0;
+			for (Map.Entry<Integer, AtomicLong> e : counters.entrySet()) {
+				if (n == ids.length) {
+					break; // added after we sized the arrays; next round
+				}
+				AtomicLong counter = e.getValue();
+				long s;
+				do {
+					s = counter.get();
+				} while (!counter.compareAndSet(s, pack(available(s), 0)));
+				ids[n] = e.getKey();
+				deltas[n++] = sold(s);
+			}
+			if (!writeDeltas(ids, deltas, n)) {
+				for (int i = 0; i < n; i++) {
+					giveBackSold(counters.get(ids[i]), deltas[i]);
+				}
+				reconcileFailures.increment();
+				return false;
+			}
+			Map<Integer, Integer> fresh = productDao.getStockByIds(n == ids.length ? ids : Arrays.copyOf(ids, n));
+			if (fresh != null) {
+				for (int i = 0; i < n; i++) {
+					Integer stock = fresh.get(ids[i]);
+					if (stock != null) {
+						refresh(counters.get(ids[i]), stock);
+					}
+				}
+			}
+			reconciles.increment();
+			return true;
+		}
+	}
+
+	private boolean writeDeltas(int[] ids, int[] deltas, int n) {
+		boolean any = false;
+		for (int i = 0; i < n; i++) {
+			any |= deltas[i] != 0;
+		}
+		if (!any) {
+			return true;
+		}
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(SqlStatement.STOCK_DECREMENT.sql())) {
+			con.setAutoCommit(false);
+			int rows = 0;
+			try {
+				for (int i = 0; i < n; i++) {
+					if (deltas[i] != 0) {
+						pstmt.setInt(1, deltas[i]);
+						pstmt.setInt(2, ids[i]);
+						pstmt.addBatch();
+						rows++;
+					}
+				}
+				pstmt.executeBatch();
+				con.commit();
+			} catch (SQLException e) {
+				con.rollback();
+				throw e;
+			} finally {
+				con.setAutoCommit(true);
+			}
+			SqlStatement.STOCK_DECREMENT.record(start, rows);
+			return true;
+		} catch (SQLException e) {
+			SqlStatement.STOCK_DECREMENT.recordError(start);
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	private static void giveBackSold(AtomicLong counter, int delta) {
+		long s;
+		do {
+			s = counter.get();
+		} while (!counter.compareAndSet(s, pack(available(s), sold(s) + delta)));
+	}
+
+	/** The table now holds every unit written out; units sold since are still to be subtracted. */
+	private static void refresh(AtomicLong counter, int stock) {
+		long s;
+		do {
+			s = counter.get();
+		} while (!counter.compareAndSet(s, pack(Math.max(0, stock - sold(s)), sold(s))));
+	}
+
+	private void reconcileQuietly() {
+		try {
+			reconcile();
+		} catch (RuntimeException e) {
+			// keep the schedule alive
+			e.printStackTrace();
+		}
+	}
+
+	/** Stops the reconciler and writes out what was sold since its last run. */
+	public void close() {
+		if (reconciler != null) {
+			reconciler.shutdown();
+			try {
+				reconciler.awaitTermination(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		reconcile();
+	}
+
+	public long getReserved() {
+		return reserved.sum();
+	}
+
+	public long getOutOfStock() {
+		return outOfStock.sum();
+	}
+
+	public long getReconciles() {
+		return reconciles.sum();
+	}
+
+	public long getReconcileFailures() {
+		return reconcileFailures.sum();
+	}
+
+	public int getTracked() {
+		return counters.size();
+	}
+}
@@ -0,0 +1,50 @@
+package com.store.app.dao;
+
+import java.sql.Timestamp;
+
+/**
+ * Keyset position in a user's order history, ordered newest first by
+ * ({@code created_at}, {@code id}). Rendered as {@code <epochMillis>.<id>}
+ * so it can travel in a query string.
+ */
+public class OrderCursor {
+	private final Timestamp createdAt;
+	private final int id;
+
+	public OrderCursor(Timestamp createdAt, int id) {
+		super();
+		this.createdAt = createdAt;
+		this.id = id;
+	}
+
+	/** Returns null for a missing or malformed token, i.e. the first page. */
+	public static OrderCursor parse(String token) {
+		if (token == null) {
+			return null;
+		}
+		int dot = token.indexOf('.');
+		if (dot <= 0) {
+			return null;
+		}
+		try {
+			long millis = Long.parseLong(token.substring(0, dot));
+			int id = Integer.parseInt(token.substring(dot + 1));
+			return new OrderCursor(new Timestamp(millis), id);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	public Timestamp getCreatedAt() {
+		return createdAt;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public String toString() {
+		return createdAt.getTime() + "." + id;
+	}
+}
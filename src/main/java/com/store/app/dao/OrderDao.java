@@ -1,85 +1,275 @@
 package com.store.app.dao;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.store.app.connection.ConnectionProvider;
 import com.store.app.model.Order;
-import com.store.app.model.Product;
+import com.store.app.model.OrderPage;
 
+/**
+ * Order queries. Instances hold no per-call state and are safe to share
+ * between request threads; each call borrows its own connection.
+ * <p>
+ * When built with an {@link OrderWriteBehind}, submissions are acknowledged
+ * once journaled and inserted by its background writer.
+ */
 public class OrderDao {
 	
-	private static final String INSERT_ORDER ="INSERT INTO orders"+"(user_id,product_id,quantity) VALUES"+"(?,?,?);";
+	private final ConnectionProvider provider;
+	private final OrderWriteBehind writeBehind;
 	
-	private Connection con;
-	private String query;
-	private PreparedStatement smt;
-	private ResultSet rs;
 	
+	public OrderDao(ConnectionProvider provider) {
+		this(provider, null);
+	}
 	
-	public OrderDao(Connection con) {
+	public OrderDao(ConnectionProvider provider, OrderWriteBehind writeBehind) {
 		super();
-		this.con = con;
+		this.provider = provider;
+		this.writeBehind = writeBehind;
+	}
+	
+	public OrderDao(Connection con) {
+		this(ConnectionProvider.of(con));
+	}
+	
+	/** The write-behind queue, or null when orders are inserted synchronously. */
+	public OrderWriteBehind getWriteBehind() {
+		return writeBehind;
 	}
 	
 	public boolean submitOrder(Order order) {
+		if (writeBehind != null) {
+			return writeBehind.submit(order);
+		}
 		boolean result = false;
-		try {
-			smt = this.con.prepareStatement(INSERT_ORDER);
-			smt.setInt(1,order.getUser_id());
-			smt.setInt(2, order.getId());
-			smt.setInt(3, order.getQuantity());
-			smt.executeUpdate();
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(SqlStatement.ORDER_INSERT.sql())) {
+			pstmt.setInt(1,order.getUser_id());
+			pstmt.setInt(2, order.getId());
+			pstmt.setInt(3, order.getQuantity());
+			int rows = pstmt.executeUpdate();
+			SqlStatement.ORDER_INSERT.record(start, rows);
 			result = true;
 		}catch(SQLException e) {
+			SqlStatement.ORDER_INSERT.recordError(start);
 			e.printStackTrace();
 		}
 		return result;
 	}
 	
-	 public List<Order> userOrders(int id) {
-	        List<Order> list = new ArrayList<>();
-	        try {
-	            query = "select * from orders where user_id=? ";
-	            smt = this.con.prepareStatement(query);
-	            smt.setInt(1, id);
-	            rs = smt.executeQuery();
-	            while (rs.next()) {
-	                Order order = new Order();
-	                ProductDao productDao = new ProductDao(this.con);
-	                int pId = rs.getInt("product_id");
-	                Product product = productDao.getSingleProduct(pId);
-	                order.setOrder_id(rs.getInt("id"));
-	                order.setId(pId);
-	                order.setName(product.getName());
-	                order.setCategory(product.getCategory());
-	                order.setPrice(product.getPrice()*rs.getInt("quantity"));
-	                order.setQuantity(rs.getInt("quantity"));
-	                order.setDate(rs.getString("created_at"));
-	                list.add(order);
-	            }
-	        } catch (Exception e) {
-	            e.printStackTrace();
-	            System.out.println(e.getMessage());
-	        }
-	        return list;
-	    }
+	/**
+	 * Inserts all orders as one JDBC batch inside a single transaction: either
+	 * every order is stored or none is. On success each order's
+	 * {@code order_id} is set from the generated keys, except in write-behind
+	 * mode where the orders are only journaled at that point.
+	 */
+	public boolean submitOrders(List<Order> orders) {
+		if (orders.isEmpty()) {
+			return true;
+		}
+		if (writeBehind != null) {
+			return writeBehind.submit(orders);
+		}
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection()) {
+			boolean autoCommit = con.getAutoCommit();
+			con.setAutoCommit(false);
+			try (PreparedStatement pstmt = con.prepareStatement(SqlStatement.ORDER_INSERT.sql(),
+					Statement.RETURN_GENERATED_KEYS)) {
+				for (Order order : orders) {
+					pstmt.setInt(1, order.getUser_id());
+					pstmt.setInt(2, order.getId());
+					pstmt.setInt(3, order.getQuantity());
+					pstmt.addBatch();
+				}
+				pstmt.executeBatch();
+				try (ResultSet keys = pstmt.getGeneratedKeys()) {
+					for (int i = 0; i < orders.size() && keys.next(); i++) {
+						orders.get(i).setOrder_id(keys.getInt(1));
+					}
+				}
+				con.commit();
+				SqlStatement.ORDER_INSERT.record(start, orders.size());
+				return true;
+			} catch (SQLException e) {
+				con.rollback();
+				throw e;
+			} finally {
+				con.setAutoCommit(autoCommit);
+			}
+		} catch (SQLException e) {
+			SqlStatement.ORDER_INSERT.recordError(start);
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/** Loads the whole history with a single joined query; prefer the paged variant for pages. */
+	public List<Order> userOrders(int id) {
+		List<Order> list = new ArrayList<>();
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(SqlStatement.ORDER_HISTORY_ALL.sql())) {
+			pstmt.setInt(1, id);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					list.add(mapOrder(rs));
+				}
+			}
+			SqlStatement.ORDER_HISTORY_ALL.record(start, list.size());
+		} catch (SQLException e) {
+			SqlStatement.ORDER_HISTORY_ALL.recordError(start);
+			e.printStackTrace();
+			System.out.println(e.getMessage());
+		}
+		return list;
+	}
 
-	    public void cancelOrder(int id) {
-	        //boolean result = false;
-	        try {
-	            query = "delete from orders where id=?";
-	            smt = this.con.prepareStatement(query);
-	            smt.setInt(1, id);
-	            smt.execute();
-	            //result = true;
-	        } catch (SQLException e) {
-	            e.printStackTrace();
-	            System.out.print(e.getMessage());
-	        }
-	        //return result;
-	    }
+	/**
+	 * Loads one page of a user's orders, newest first, joined with their
+	 * products. Pass null as {@code before} for the first page and the
+	 * returned {@link OrderPage#getNextCursor()} for the following ones.
+	 */
+	public OrderPage userOrders(int userId, OrderCursor before, int limit) {
+		limit = Math.max(limit, 1);
+		List<Order> list = new ArrayList<>(limit);
+		OrderCursor next = null;
+		try {
+			next = streamUserOrders(userId, before, limit, list::add);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			System.out.println(e.getMessage());
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // adding to a list does not do I/O
+		}
+		return new OrderPage(list, next == null ? null : next.toString());
+	}
+
+	/**
+	 * Hands one page of a user's orders to {@code sink} as they are read,
+	 * without collecting them. Returns the cursor of the next, older page, or
+	 * null when this was the last one.
+	 *
+	 * @throws IOException from the sink; the query is abandoned
+	 */
+	public OrderCursor streamUserOrders(int userId, OrderCursor before, int limit, RowSink<? super Order> sink)
+			throws SQLException, IOException {
+		limit = Math.max(limit, 1);
+		OrderCursor next = null;
+		int rows = 0;
+		SqlStatement statement = before == null ? SqlStatement.ORDER_HISTORY_FIRST : SqlStatement.ORDER_HISTORY_BEFORE;
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(statement.sql())) {
+			int i = 1;
+			pstmt.setInt(i++, userId);
+			if (before != null) {
+				pstmt.setTimestamp(i++, before.getCreatedAt());
+				pstmt.setTimestamp(i++, before.getCreatedAt());
+				pstmt.setInt(i++, before.getId());
+			}
+			// one extra row tells us whether an older page exists
+			pstmt.setInt(i, limit + 1);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				Timestamp lastCreatedAt = null;
+				int lastId = 0;
+				while (rs.next()) {
+					if (rows == limit) {
+						next = new OrderCursor(lastCreatedAt, lastId);
+						break;
+					}
+					lastCreatedAt = rs.getTimestamp("created_at");
+					Order order = mapOrder(rs);
+					lastId = order.getOrder_id();
+					sink.accept(order);
+					rows++;
+				}
+			}
+			statement.record(start, rows);
+		} catch (SQLException | IOException e) {
+			statement.recordError(start);
+			throw e;
+		}
+		return next;
+	}
+
+	/**
+	 * A token that changes whenever the user's order history does: the
+	 * number of orders and the newest id. Null if the query failed.
+	 */
+	public String userOrdersVersion(int userId) {
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(SqlStatement.ORDER_USER_VERSION.sql())) {
+			pstmt.setInt(1, userId);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				rs.next();
+				String version = rs.getLong(1) + "-" + rs.getLong(2);
+				SqlStatement.ORDER_USER_VERSION.record(start, 1);
+				return version;
+			}
+		} catch (SQLException e) {
+			SqlStatement.ORDER_USER_VERSION.recordError(start);
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	private static Order mapOrder(ResultSet rs) throws SQLException {
+		Order order = new Order();
+		int quantity = rs.getInt("quantity");
+		order.setOrder_id(rs.getInt("id"));
+		order.setId(rs.getInt("product_id"));
+		order.setName(rs.getString("name"));
+		order.setCategory(rs.getString("category"));
+		order.setPrice(rs.getDouble("price") * quantity);
+		order.setQuantity(quantity);
+		order.setDate(rs.getString("created_at"));
+		return order;
+	}
+
+	/** Units ordered per product id, or null if the query failed. */
+	public Map<Integer, Long> productPopularity() {
+		Map<Integer, Long> units = new HashMap<>();
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(SqlStatement.ORDER_POPULARITY.sql());
+				ResultSet rs = pstmt.executeQuery()) {
+			while (rs.next()) {
+				units.put(rs.getInt("product_id"), rs.getLong("units"));
+			}
+			SqlStatement.ORDER_POPULARITY.record(start, units.size());
+		} catch (SQLException e) {
+			SqlStatement.ORDER_POPULARITY.recordError(start);
+			e.printStackTrace();
+			return null;
+		}
+		return units;
+	}
+
+	public void cancelOrder(int id) {
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(SqlStatement.ORDER_DELETE.sql())) {
+			pstmt.setInt(1, id);
+			pstmt.execute();
+			SqlStatement.ORDER_DELETE.record(start, pstmt.getUpdateCount());
+		} catch (SQLException e) {
+			SqlStatement.ORDER_DELETE.recordError(start);
+			e.printStackTrace();
+			System.out.print(e.getMessage());
+		}
+	}
 }
@@ -0,0 +1,476 @@
+package com.store.app.dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Local append-only log of accepted orders, made of memory-mapped segment
+ * files named after the sequence number of their first record.
+ * <p>
+ * Every record has a fixed size and carries a CRC32C, so recovery can tell a
+ * complete record from one torn by a crash. Appends copy into the mapping;
+ * durability comes from {@link #sync()}, which forces every segment written
+ * since the previous call. Concurrent callers share one force. The consumer
+ * reads records in order with {@link #poll(int, boolean)} and, once they are stored
+ * elsewhere, records that fact with {@link #checkpoint(long)}; fully
+ * checkpointed segments are deleted. On open, everything after the
+ * checkpoint is pending again, which is how orders survive a restart or a
+ * database outage.
+ * <p>
+ * An append whose orders could not be made durable is {@link #discard(long, long)
+ * discarded}: its records are overwritten with a void marker that the reader
+ * and recovery skip, so an order reported as failed is never stored later.
+ * <p>
+ * A journal directory gets a random {@link #getId() id} when it is created.
+ * Together with a record's sequence it names the order for good, so the
+ * consumer can store it idempotently and a replay of records stored just
+ * before a crash, or a checkpoint lost with the disk, adds nothing.
+ */
+final class OrderJournal implements Closeable {
+	static final int RECORD_SIZE = 36;
+	private static final int MARKER = 0x4F524452; // "ORDR"
+	private static final int VOID = 0x564F4944; // "VOID"
+	private static final String SUFFIX = ".seg";
+
+	private final Path dir;
+	private final int segmentBytes;
+	private final Path checkpointFile;
+	private final long id;
+	private final Object lock = new Object();
+	private final Object syncLock = new Object();
+	private final List<Segment> segments = new ArrayList<>();
+	private final List<Segment> dirty = new ArrayList<>();
+	private final CRC32C crc = new CRC32C();
+
+	/** Guarded by lock. */
+	private long lastSeq;
+	private long readSeq;
+	private Segment readSegment;
+	private int readPos;
+	private long corrupt;
+
+	private volatile long syncedSeq;
+	private volatile long checkpointSeq;
+	private volatile long syncs;
+
+	OrderJournal(Path dir, int segmentBytes) throws IOException {
+		this.dir = dir;
+		this.segmentBytes = segmentBytes - segmentBytes % RECORD_SIZE;
+		if (this.segmentBytes < RECORD_SIZE) {
+			throw new IllegalArgumentException("Segment too small: " + segmentBytes);
+		}
+		Files.createDirectories(dir);
+		this.checkpointFile = dir.resolve("checkpoint");
+		this.id = readOrCreateId(dir.resolve("id"));
+		checkpointSeq = readCheckpoint();
+		recover();
+		syncedSeq = lastSeq;
+		readSeq = checkpointSeq;
+		seekReader();
+	}
+
+	private static long readOrCreateId(Path file) throws IOException {
+		if (!Files.exists(file)) {
+			long id = new SecureRandom().nextLong();
+			ByteBuffer buf = ByteBuffer.allocate(16).putLong(id).putLong(~id);
+			Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+			Files.write(tmp, buf.array());
+			try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+				ch.force(false);
+			}
+			Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+			return id;
+		}
+		ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+		if (buf.remaining() == 16 && buf.getLong(8) == ~buf.getLong(0)) {
+			return buf.getLong(0);
+		}
+		// a new id would store retained orders a second time
+		throw new IOException("Order journal id is unreadable: " + file);
+	}
+
+	private long readCheckpoint() throws IOException {
+		if (!Files.exists(checkpointFile)) {
+			return 0;
+		}
+		ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(checkpointFile));
+		if (buf.remaining() == 16) {
+			long seq = buf.getLong(0);
+			if (buf.getLong(8) == ~seq) {
+				return seq;
+			}
+		}
+		// replayed orders that were already stored are skipped by the consumer
+		System.err.println("Order journal checkpoint is unreadable, replaying every retained segment");
+		return 0;
+	}
+
+	private void recover() throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+			for (Path p : ds) {
+				files.add(p);
+			}
+		}
+		files.sort(null); // zero-padded names sort by first sequence
+		for (Path file : files) {
+			Segment s = Segment.open(file, segmentBytes);
+			scan(s);
+			segments.add(s);
+		}
+		if (lastSeq < checkpointSeq) {
+			// segments were deleted past the checkpoint; continue numbering from it
+			lastSeq = checkpointSeq;
+		}
+	}
+
+	/** Finds the end of a segment, skipping records whose CRC does not match. */
+	private void scan(Segment s) {
+		int pos = 0;
+		long last = s.firstSeq - 1;
+		while (pos + RECORD_SIZE <= segmentBytes && s.map.getInt(pos) != 0) {
+			if (valid(s.map, pos) || s.map.getInt(pos) == VOID) {
+				last = s.map.getLong(pos + 4);
+			} else {
+				corrupt++;
+				System.err.println("Order journal: skipping corrupt record in " + s.path.getFileName() + " at " + pos);
+			}
+			pos += RECORD_SIZE;
+		}
+		s.writePos = pos;
+		s.lastSeq = last;
+		lastSeq = Math.max(lastSeq, last);
+	}
+
+	private boolean valid(ByteBuffer map, int pos) {
+		if (map.getInt(pos) != MARKER) {
+			return false;
+		}
+		crc.reset();
+		ByteBuffer body = map.duplicate();
+		body.position(pos + 4).limit(pos + 32);
+		crc.update(body);
+		return (int) crc.getValue() == map.getInt(pos + 32);
+	}
+
+	private void seekReader() {
+		readSegment = null;
+		for (Segment s : segments) {
+			if (s.lastSeq > readSeq) {
+				readSegment = s;
+				break;
+			}
+		}
+		readPos = 0;
+		if (readSegment != null) {
+			// skip records at or before the checkpoint
+			while (readPos < readSegment.writePos) {
+				if (valid(readSegment.map, readPos) && readSegment.map.getLong(readPos + 4) > readSeq) {
+					break;
+				}
+				readPos += RECORD_SIZE;
+			}
+		}
+	}
+
+	/**
+	 * Appends the orders; they are durable once {@link #sync()} returns.
+	 * Returns the last sequence. If it throws, none of the orders is visible.
+	 */
+	long append(List<PendingOrder> orders) throws IOException {
+		synchronized (lock) {
+			long first = lastSeq + 1;
+			try {
+				for (PendingOrder o : orders) {
+					Segment s = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+					if (s == null || s.writePos + RECORD_SIZE > segmentBytes) {
+						s = roll();
+					}
+					long seq = ++lastSeq;
+					int pos = s.writePos;
+					s.map.putLong(pos + 4, seq).putLong(pos + 12, o.createdAtMillis).putInt(pos + 20, o.userId)
+							.putInt(pos + 24, o.productId).putInt(pos + 28, o.quantity);
+					crc.reset();
+					ByteBuffer body = s.map.duplicate();
+					body.position(pos + 4).limit(pos + 32);
+					crc.update(body);
+					s.map.putInt(pos + 32, (int) crc.getValue());
+					// the marker goes last: a record without it is invisible to recovery
+					s.map.putInt(pos, MARKER);
+					s.writePos = pos + RECORD_SIZE;
+					s.lastSeq = seq;
+					if (!dirty.contains(s)) {
+						dirty.add(s);
+					}
+				}
+			} catch (IOException e) {
+				// the reader cannot have seen them yet: we still hold the lock
+				voidRecords(first, lastSeq);
+				throw e;
+			}
+			return lastSeq;
+		}
+	}
+
+	/**
+	 * Voids the records {@code first..last} of one {@link #append(List)} whose
+	 * {@link #sync(long)} failed, so they are never read. Returns false if they
+	 * can no longer be discarded because a later sync made them durable; they
+	 * will then be stored like any other record.
+	 */
+	boolean discard(long first, long last) {
+		synchronized (syncLock) {
+			if (syncedSeq >= last) {
+				return false;
+			}
+			synchronized (lock) {
+				if (readSeq >= first) {
+					return false;
+				}
+				voidRecords(first, last);
+				return true;
+			}
+		}
+	}
+
+	/** Guarded by lock. Records keep their sequence; the next sync writes the void markers out. */
+	private void voidRecords(long first, long last) {
+		for (int i = segments.size() - 1; i >= 0; i--) {
+			Segment s = segments.get(i);
+			if (s.lastSeq < first) {
+				break;
+			}
+			for (int pos = 0; pos < s.writePos; pos += RECORD_SIZE) {
+				long seq = s.map.getLong(pos + 4);
+				if (seq >= first && seq <= last && s.map.getInt(pos) == MARKER) {
+					s.map.putInt(pos, VOID);
+					if (!dirty.contains(s)) {
+						dirty.add(s);
+					}
+				}
+			}
+		}
+	}
+
+	private Segment roll() throws IOException {
+		Path file = dir.resolve(String.format("%020d", lastSeq + 1) + SUFFIX);
+		Segment s = Segment.open(file, segmentBytes);
+		s.lastSeq = lastSeq;
+		segments.add(s);
+		return s;
+	}
+
+	/** Forces every record appended so far to disk. */
+	void sync() throws IOException {
+		long target;
+		synchronized (lock) {
+			target = lastSeq;
+		}
+		sync(target);
+	}
+
+	void sync(long upTo) throws IOException {
+		if (syncedSeq >= upTo) {
+			return;
+		}
+		synchronized (syncLock) {
+			// whoever held the lock before us may have forced our records too
+			if (syncedSeq >= upTo) {
+				return;
+			}
+			List<Segment> toForce;
+			long target;
+			synchronized (lock) {
+				target = lastSeq;
+				toForce = new ArrayList<>(dirty);
+				dirty.clear();
+			}
+			try {
+				for (Segment s : toForce) {
+					s.map.force();
+				}
+			} catch (RuntimeException e) {
+				synchronized (lock) {
+					// force them again next time
+					for (Segment s : toForce) {
+						if (!dirty.contains(s) && segments.contains(s)) {
+							dirty.add(s);
+						}
+					}
+				}
+				throw new IOException("Could not force order journal", e);
+			}
+			syncs++;
+			syncedSeq = target;
+		}
+	}
+
+	/** Next records after the read cursor, up to {@code max}; only records already synced when {@code syncedOnly}. */
+	List<PendingOrder> poll(int max, boolean syncedOnly) {
+		List<PendingOrder> out = new ArrayList<>(Math.min(max, 256));
+		long limit = syncedOnly ? syncedSeq : Long.MAX_VALUE;
+		synchronized (lock) {
+			while (out.size() < max) {
+				if (readSegment == null || readPos >= readSegment.writePos) {
+					if (!advanceReader()) {
+						break;
+					}
+					continue;
+				}
+				ByteBuffer m = readSegment.map;
+				if (!valid(m, readPos)) {
+					readPos += RECORD_SIZE;
+					continue;
+				}
+				long seq = m.getLong(readPos + 4);
+				if (seq <= readSeq) {
+					readPos += RECORD_SIZE;
+					continue;
+				}
+				if (seq > limit) {
+					break;
+				}
+				out.add(new PendingOrder(seq, m.getInt(readPos + 20), m.getInt(readPos + 24), m.getInt(readPos + 28),
+						m.getLong(readPos + 12)));
+				readSeq = seq;
+				readPos += RECORD_SIZE;
+			}
+		}
+		return out;
+	}
+
+	private boolean advanceReader() {
+		int i = readSegment == null ? 0 : segments.indexOf(readSegment) + 1;
+		if (i <= 0 && readSegment != null) {
+			// our segment was deleted under us; find the next one by sequence
+			seekReader();
+			return readSegment != null && readPos < readSegment.writePos;
+		}
+		if (i >= segments.size()) {
+			return false;
+		}
+		readSegment = segments.get(i);
+		readPos = 0;
+		return true;
+	}
+
+	/**
+	 * Records that every order up to {@code seq} is stored in MySQL, and
+	 * deletes segments holding nothing newer.
+	 */
+	void checkpoint(long seq) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(16).putLong(seq).putLong(~seq);
+		buf.flip();
+		try (FileChannel ch = FileChannel.open(checkpointFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			ch.write(buf, 0);
+			ch.force(false);
+		}
+		checkpointSeq = seq;
+		List<Segment> done = new ArrayList<>();
+		synchronized (lock) {
+			// the last segment stays: it is where the next append goes
+			while (segments.size() > 1 && segments.get(0).lastSeq <= seq) {
+				Segment s = segments.remove(0);
+				dirty.remove(s);
+				done.add(s);
+			}
+		}
+		for (Segment s : done) {
+			s.close();
+			Files.deleteIfExists(s.path);
+		}
+	}
+
+	/** Appended but not yet checkpointed, discarded records included. */
+	long pending() {
+		synchronized (lock) {
+			return lastSeq - checkpointSeq;
+		}
+	}
+
+	/** Random id of this journal directory, fixed once created. */
+	long getId() {
+		return id;
+	}
+
+	long getCheckpoint() {
+		return checkpointSeq;
+	}
+
+	long getSyncs() {
+		return syncs;
+	}
+
+	long getCorrupt() {
+		synchronized (lock) {
+			return corrupt;
+		}
+	}
+
+	int segmentCount() {
+		synchronized (lock) {
+			return segments.size();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		sync();
+		synchronized (lock) {
+			for (Segment s : segments) {
+				s.close();
+			}
+			segments.clear();
+			dirty.clear();
+		}
+	}
+
+	private static final class Segment {
+		final Path path;
+		final long firstSeq;
+		final FileChannel channel;
+		final MappedByteBuffer map;
+		int writePos;
+		long lastSeq;
+
+		private Segment(Path path, long firstSeq, FileChannel channel, MappedByteBuffer map) {
+			this.path = path;
+			this.firstSeq = firstSeq;
+			this.channel = channel;
+			this.map = map;
+		}
+
+		static Segment open(Path path, int size) throws IOException {
+			String name = path.getFileName().toString();
+			long first = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+			FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			try {
+				return new Segment(path, first, ch, ch.map(FileChannel.MapMode.READ_WRITE, 0, size));
+			} catch (IOException e) {
+				ch.close();
+				throw e;
+			}
+		}
+
+		void close() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// mapping stays valid until collected; nothing to recover
+			}
+		}
+	}
+}
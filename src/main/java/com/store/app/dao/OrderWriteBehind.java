@@ -0,0 +1,424 @@
+package com.store.app.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLNonTransientException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+import java.util.concurrent.locks.LockSupport;
+
+import com.store.app.connection.ConnectionProvider;
+import com.store.app.metrics.LatencyHistogram;
+import com.store.app.model.Order;
+
+/**
+ * Write-behind path for order inserts.
+ * <p>
+ * {@link #submit(List)} checks the orders, reserves room, appends them to the
+ * {@link OrderJournal} and acknowledges once they are durable: immediately
+ * after a shared fsync by default, or after the copy into the memory-mapped
+ * segment when {@link WriteBehindConfig#getSyncIntervalMillis()} selects
+ * periodic fsync. A single background writer tails the journal in batches of
+ * up to {@link WriteBehindConfig#getFlushSize()}, commits each in one
+ * transaction and then advances the journal checkpoint. Each row carries
+ * the journal id and sequence under a unique key, so a batch replayed after
+ * a crash between its commit and its checkpoint is not stored twice.
+ * <p>
+ * If MySQL stalls, the batch is retried with backoff while submissions keep
+ * landing in the journal, up to {@link WriteBehindConfig#getQueueDepth()}
+ * orders; when MySQL is back the writer catches up from the checkpoint. A
+ * restart resumes from the checkpoint the same way.
+ * <p>
+ * An acknowledged order is never silently dropped. Orders with a
+ * non-positive quantity or an unknown product are refused at submit, before
+ * the acknowledgement. If MySQL still refuses a batch for good (say, its
+ * product was deleted since), the writer stores the batch row by row and
+ * appends each row refused for good to {@code dead-letter.csv} in the
+ * journal directory, counted by {@link #getDeadLettered()}, then moves on,
+ * so one bad row cannot hold up every later checkout.
+ */
+public class OrderWriteBehind implements AutoCloseable {
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	static final String DEAD_LETTER_FILE = "dead-letter.csv";
+
+	private final ConnectionProvider provider;
+	private final WriteBehindConfig config;
+	private final IntPredicate productExists;
+	private final OrderJournal journal;
+	private final Path deadLetter;
+	private final boolean syncOnAck;
+	private final Semaphore room;
+	private final Thread writer;
+	private final ScheduledExecutorService syncer;
+	private volatile boolean closing;
+
+	private final LongAdder accepted = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder flushed = new LongAdder();
+	private final LongAdder invalid = new LongAdder();
+	private final LongAdder deadLettered = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder flushFailures = new LongAdder();
+	private final LatencyHistogram ackTime = new LatencyHistogram();
+	private final LatencyHistogram flushTime = new LatencyHistogram();
+
+	public OrderWriteBehind(ConnectionProvider provider, WriteBehindConfig config) throws IOException {
+		this(provider, config, id -> true);
+	}
+
+	/**
+	 * {@code productExists} is asked about every ordered product before an
+	 * order is acknowledged. It runs on the acknowledgement path, so it must
+	 * answer from memory; rows it lets through that MySQL refuses are caught
+	 * by the writer.
+	 */
+	public OrderWriteBehind(ConnectionProvider provider, WriteBehindConfig config, IntPredicate productExists)
+			throws IOException {
+		this.provider = provider;
+		this.config = config;
+		this.productExists = productExists;
+		this.journal = new OrderJournal(Paths.get(config.getJournalDir()), config.getSegmentBytes());
+		this.deadLetter = Paths.get(config.getJournalDir()).resolve(DEAD_LETTER_FILE);
+		this.syncOnAck = config.getSyncIntervalMillis() <= 0;
+		long recovered = journal.pending();
+		if (recovered > 0) {
+			System.err.println("Replaying " + recovered + " journaled orders from " + config.getJournalDir());
+		}
+		// replayed orders already occupy part of the room; permits may start below zero
+		this.room = new Semaphore((int) (config.getQueueDepth() - recovered));
+		if (syncOnAck) {
+			this.syncer = null;
+		} else {
+			this.syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "store-order-journal-sync");
+				t.setDaemon(true);
+				return t;
+			});
+			this.syncer.scheduleWithFixedDelay(this::syncQuietly, config.getSyncIntervalMillis(),
+					config.getSyncIntervalMillis(), TimeUnit.MILLISECONDS);
+		}
+		this.writer = new Thread(this::runWriter, "store-order-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	public boolean submit(Order order) {
+		List<Order> one = new ArrayList<>(1);
+		one.add(order);
+		return submit(one);
+	}
+
+	/**
+	 * Accepts all orders or none. Returns true once they are journaled; they
+	 * reach MySQL shortly after, so {@code order_id} is not set. Returns
+	 * false if any order has a non-positive quantity or an unknown product.
+	 */
+	public boolean submit(List<Order> orders) {
+		if (orders.isEmpty()) {
+			return true;
+		}
+		long start = System.nanoTime();
+		for (Order order : orders) {
+			// the journal is acknowledged as stored, so only accept rows MySQL will take
+			if (order.getQuantity() <= 0 || order.getId() <= 0 || !productExists.test(order.getId())) {
+				invalid.add(orders.size());
+				return false;
+			}
+		}
+		try {
+			if (closing || !room.tryAcquire(orders.size(), config.getEnqueueTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+				rejected.add(orders.size());
+				return false;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			rejected.add(orders.size());
+			return false;
+		}
+		long now = System.currentTimeMillis();
+		List<PendingOrder> pending = new ArrayList<>(orders.size());
+		for (Order order : orders) {
+			pending.add(PendingOrder.of(order, now));
+		}
+		long seq;
+		try {
+			seq = journal.append(pending);
+		} catch (IOException e) {
+			// append leaves nothing behind on failure
+			return failed(orders.size(), e);
+		}
+		if (syncOnAck) {
+			try {
+				journal.sync(seq);
+			} catch (IOException e) {
+				if (journal.discard(seq - pending.size() + 1, seq)) {
+					return failed(orders.size(), e);
+				}
+				// another submitter's fsync covered them after all: they are durable and will be stored
+			}
+		}
+		accepted.add(orders.size());
+		ackTime.record(System.nanoTime() - start);
+		LockSupport.unpark(writer);
+		return true;
+	}
+
+	/** The orders were never visible to the writer, so their room is ours to give back. */
+	private boolean failed(int count, IOException e) {
+		room.release(count);
+		rejected.add(count);
+		e.printStackTrace();
+		return false;
+	}
+
+	private void syncQuietly() {
+		try {
+			journal.sync();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void runWriter() {
+		try {
+			for (;;) {
+				List<PendingOrder> batch = journal.poll(config.getFlushSize(), syncOnAck);
+				if (batch.isEmpty()) {
+					if (closing) {
+						return;
+					}
+					LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+					if (Thread.interrupted()) {
+						return;
+					}
+					continue;
+				}
+				if (batch.size() < config.getFlushSize() && !closing) {
+					// linger briefly so a burst is committed as one transaction
+					Thread.sleep(config.getFlushIntervalMillis());
+					batch.addAll(journal.poll(config.getFlushSize() - batch.size(), syncOnAck));
+				}
+				flush(batch);
+			}
+		} catch (InterruptedException e) {
+			// shutting down; whatever is left stays in the journal
+		}
+	}
+
+	/** Stores the batch, retrying until MySQL takes it or the writer is interrupted. */
+	private void flush(List<PendingOrder> batch) throws InterruptedException {
+		long backoff = 100;
+		for (;;) {
+			long start = System.nanoTime();
+			try {
+				insert(batch);
+				done(batch, batch.size(), start);
+				return;
+			} catch (SQLNonTransientConnectionException e) {
+				// database unreachable, retry below
+			} catch (SQLNonTransientException e) {
+				// a row MySQL refuses for good (e.g. its product was deleted): set it aside, keep the rest
+				try {
+					int stored = insertEach(batch);
+					done(batch, stored, start);
+					return;
+				} catch (SQLException | IOException retry) {
+					// transient, or the dead letter could not be written: retry the whole batch
+				}
+			} catch (SQLException e) {
+				// transient, retry below
+			}
+			flushFailures.increment();
+			Thread.sleep(backoff);
+			backoff = Math.min(backoff * 2, config.getMaxRetryBackoffMillis());
+		}
+	}
+
+	/**
+	 * Stores each order in its own transaction and dead-letters the ones
+	 * refused for good. Returns how many were stored. Rows stored before a
+	 * failure are skipped by the unique key when the batch is retried.
+	 */
+	private int insertEach(List<PendingOrder> batch) throws SQLException, IOException {
+		StringBuilder refused = new StringBuilder();
+		int count = 0;
+		for (PendingOrder o : batch) {
+			try {
+				insert(Collections.singletonList(o));
+			} catch (SQLNonTransientConnectionException e) {
+				throw e;
+			} catch (SQLNonTransientException e) {
+				refused.append(journal.getId()).append(',').append(o.seq).append(',').append(o.userId).append(',')
+						.append(o.productId).append(',').append(o.quantity).append(',').append(o.createdAtMillis)
+						.append(',').append(String.valueOf(e.getMessage()).replace('\n', ' ').replace(',', ';'))
+						.append('\n');
+				count++;
+			}
+		}
+		if (count > 0) {
+			// durable before the checkpoint moves past these orders
+			try (FileChannel ch = FileChannel.open(deadLetter, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND)) {
+				ch.write(ByteBuffer.wrap(refused.toString().getBytes(StandardCharsets.UTF_8)));
+				ch.force(false);
+			}
+			deadLettered.add(count);
+			System.err.println("Order writer set " + count + " order(s) MySQL refuses aside in " + deadLetter);
+		}
+		return batch.size() - count;
+	}
+
+	private void done(List<PendingOrder> batch, int stored, long start) {
+		flushTime.record(System.nanoTime() - start);
+		batches.increment();
+		flushed.add(stored);
+		try {
+			journal.checkpoint(batch.get(batch.size() - 1).seq);
+		} catch (IOException e) {
+			// the batch is stored; a stale checkpoint only replays rows the unique key ignores
+			e.printStackTrace();
+		}
+		room.release(batch.size());
+	}
+
+	private void insert(List<PendingOrder> batch) throws SQLException {
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection()) {
+			boolean autoCommit = con.getAutoCommit();
+			con.setAutoCommit(false);
+			try (PreparedStatement pstmt = con.prepareStatement(SqlStatement.ORDER_INSERT_AT.sql())) {
+				for (PendingOrder o : batch) {
+					pstmt.setInt(1, o.userId);
+					pstmt.setInt(2, o.productId);
+					pstmt.setInt(3, o.quantity);
+					pstmt.setTimestamp(4, new Timestamp(o.createdAtMillis));
+					pstmt.setLong(5, journal.getId());
+					pstmt.setLong(6, o.seq);
+					pstmt.addBatch();
+				}
+				pstmt.executeBatch();
+				con.commit();
+				SqlStatement.ORDER_INSERT_AT.record(start, batch.size());
+			} catch (SQLException e) {
+				con.rollback();
+				throw e;
+			} finally {
+				con.setAutoCommit(autoCommit);
+			}
+		} catch (SQLException e) {
+			SqlStatement.ORDER_INSERT_AT.recordError(start);
+			throw e;
+		}
+	}
+
+	/** Orders journaled but not yet committed to MySQL. */
+	public long getQueued() {
+		return journal.pending();
+	}
+
+	public int getQueueDepth() {
+		return config.getQueueDepth();
+	}
+
+	public long getAccepted() {
+		return accepted.sum();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public long getFlushed() {
+		return flushed.sum();
+	}
+
+	/** Orders refused at submit for a non-positive quantity or an unknown product. */
+	public long getInvalid() {
+		return invalid.sum();
+	}
+
+	/** Journaled orders MySQL refused for good, written to {@value #DEAD_LETTER_FILE} instead. */
+	public long getDeadLettered() {
+		return deadLettered.sum();
+	}
+
+	public long getBatches() {
+		return batches.sum();
+	}
+
+	public long getFlushFailures() {
+		return flushFailures.sum();
+	}
+
+	public long getJournalSyncs() {
+		return journal.getSyncs();
+	}
+
+	public int getJournalSegments() {
+		return journal.segmentCount();
+	}
+
+	/** Records skipped at startup because their CRC did not match. */
+	public long getJournalCorrupt() {
+		return journal.getCorrupt();
+	}
+
+	/** Submit to acknowledgement: room reservation, journal append and, when syncing on ack, fsync. */
+	public LatencyHistogram.Snapshot getAckTime() {
+		return ackTime.snapshot();
+	}
+
+	public LatencyHistogram.Snapshot getFlushTime() {
+		return flushTime.snapshot();
+	}
+
+	/**
+	 * Stops accepting orders and gives the writer up to {@code waitMillis} to
+	 * catch up. Anything not yet stored stays in the journal.
+	 */
+	public void close(long waitMillis) {
+		closing = true;
+		LockSupport.unpark(writer);
+		try {
+			if (waitMillis > 0) {
+				writer.join(waitMillis);
+			}
+			if (writer.isAlive()) {
+				writer.interrupt();
+				writer.join(1_000);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (syncer != null) {
+			syncer.shutdownNow();
+		}
+		try {
+			journal.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public void close() {
+		close(10_000);
+	}
+}
@@ -0,0 +1,29 @@
+package com.store.app.dao;
+
+import com.store.app.model.Order;
+
+/** An order accepted by {@link OrderWriteBehind} and waiting to be inserted. */
+final class PendingOrder {
+	/** Journal sequence number, 0 until appended. */
+	final long seq;
+	final int userId;
+	final int productId;
+	final int quantity;
+	final long createdAtMillis;
+
+	PendingOrder(int userId, int productId, int quantity, long createdAtMillis) {
+		this(0, userId, productId, quantity, createdAtMillis);
+	}
+
+	PendingOrder(long seq, int userId, int productId, int quantity, long createdAtMillis) {
+		this.seq = seq;
+		this.userId = userId;
+		this.productId = productId;
+		this.quantity = quantity;
+		this.createdAtMillis = createdAtMillis;
+	}
+
+	static PendingOrder of(Order order, long createdAtMillis) {
+		return new PendingOrder(order.getUser_id(), order.getId(), order.getQuantity(), createdAtMillis);
+	}
+}
@@ -1,32 +1,53 @@
 package com.store.app.dao;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.store.app.connection.ConnectionProvider;
 import com.store.app.model.Cart;
+import com.store.app.model.PricedCart;
 import com.store.app.model.Product;
+import com.store.app.model.ProductPage;
 
+/**
+ * Product queries. Instances hold no per-call state and are safe to share
+ * between request threads; each call borrows its own connection.
+ */
 public class ProductDao {
-	private Connection con;
-	private String query;
-	private PreparedStatement smt;
-	private ResultSet rs;
+	static final int IN_CHUNK_SIZE = 512;
+	public static final int DEFAULT_PAGE_SIZE = 24;
+	public static final int MAX_PAGE_SIZE = 100;
+	/** Larger pages are streamed from the server row by row. */
+	public static final int STREAM_THRESHOLD = 500;
+	/** Stock of a product whose {@code stock} column is NULL, i.e. not counted. */
+	public static final int UNLIMITED_STOCK = Integer.MAX_VALUE;
 	
-	public ProductDao(Connection con) {
+	private final ConnectionProvider provider;
+	
+	public ProductDao(ConnectionProvider provider) {
 		super();
-		this.con = con;
+		this.provider = provider;
+	}
+	
+	public ProductDao(Connection con) {
+		this(ConnectionProvider.of(con));
 	}
 	
+	/** Every product, or null if the query failed: an empty list means an empty catalog. */
 	public List<Product> showProducts(){
 		List<Product> products = new ArrayList<Product>();
-		try {
-			query = "select * from products";
-			smt = this.con.prepareStatement(query);
-			rs = smt.executeQuery();
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(SqlStatement.PRODUCT_ALL.sql());
+				ResultSet rs = pstmt.executeQuery()) {
 			while(rs.next()) {
 				Product product_row = new Product();
 				product_row.setId(rs.getInt("id"));
@@ -36,25 +57,107 @@ public class ProductDao {
 				product_row.setImage(rs.getString("image"));
 				products.add(product_row);
 			}
-				
-			}catch(Exception e) {
-				e.printStackTrace();
+			SqlStatement.PRODUCT_ALL.record(start, products.size());
+		} catch (SQLException e) {
+			SqlStatement.PRODUCT_ALL.recordError(start);
+			logError("Error listing products", e);
+			return null;
 		}
 		return products;
 	}
 	
+	/**
+	 * Returns the page of products with id greater than {@code afterId},
+	 * optionally restricted to one category. Cost is bounded by the page size,
+	 * not by the catalog size (keyset on the primary key). Null if the query
+	 * failed.
+	 */
+	public ProductPage listProducts(String category, int afterId, int pageSize) {
+		pageSize = clampPageSize(pageSize);
+		List<Product> products = new ArrayList<Product>(pageSize);
+		int nextAfterId = 0;
+		try {
+			nextAfterId = streamProducts(category, afterId, pageSize, products::add);
+		} catch (SQLException e) {
+			logError("Error listing products after id " + afterId, e);
+			return null;
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // adding to a list does not do I/O
+		}
+		return new ProductPage(products, nextAfterId);
+	}
+
+	/**
+	 * Hands the products of one keyset page to {@code sink} as they are read,
+	 * without collecting them. Pages larger than {@link #STREAM_THRESHOLD} are
+	 * fetched row by row from the server instead of being buffered by the
+	 * driver. Returns the id to pass as {@code afterId} for the next page, or 0
+	 * when this was the last one.
+	 *
+	 * @throws IOException from the sink; the query is abandoned
+	 */
+	public int streamProducts(String category, int afterId, int limit, RowSink<? super Product> sink)
+			throws SQLException, IOException {
+		boolean filtered = category != null && !category.isEmpty();
+		SqlStatement statement = filtered ? SqlStatement.PRODUCT_PAGE_BY_CATEGORY : SqlStatement.PRODUCT_PAGE;
+		int rows = 0;
+		int lastId = 0;
+		int nextAfterId = 0;
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(statement.sql())) {
+			int i = 1;
+			pstmt.setInt(i++, Math.max(afterId, 0));
+			if (filtered) {
+				pstmt.setString(i++, category);
+			}
+			// one extra row tells us whether a next page exists
+			pstmt.setInt(i, limit + 1);
+			// the statement is cached per connection, so always set the fetch mode explicitly
+			pstmt.setFetchSize(limit > STREAM_THRESHOLD ? Integer.MIN_VALUE : 0);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					if (rows == limit) {
+						nextAfterId = lastId;
+						break;
+					}
+					Product p = new Product();
+					p.setId(rs.getInt("id"));
+					p.setName(rs.getString("name"));
+					p.setCategory(rs.getString("category"));
+					p.setPrice(rs.getDouble("price"));
+					p.setImage(rs.getString("image"));
+					sink.accept(p);
+					lastId = p.getId();
+					rows++;
+				}
+			}
+			statement.record(start, rows);
+		} catch (SQLException | IOException e) {
+			statement.recordError(start);
+			throw e;
+		}
+		return nextAfterId;
+	}
+	
+	public static int clampPageSize(int pageSize) {
+		if (pageSize <= 0) {
+			return DEFAULT_PAGE_SIZE;
+		}
+		return Math.min(pageSize, MAX_PAGE_SIZE);
+	}
+	
 	public Product getSingleProduct(int id) {
 		// Validate input parameter
 		if (id <= 0) {
 			return null;
 		}
 		
-		// Use explicit column names for better performance and clarity
-		final String SQL = "SELECT id, name, category, price FROM products WHERE id = ?";
-		
 		Product product = null;
+		long start = System.nanoTime();
 		
-		try (PreparedStatement pstmt = this.con.prepareStatement(SQL)) {
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(SqlStatement.PRODUCT_BY_ID.sql())) {
 			pstmt.setInt(1, id);
 			
 			try (ResultSet rs = pstmt.executeQuery()) {
@@ -65,10 +168,13 @@ public class ProductDao {
 					product.setName(rs.getString("name"));
 					product.setCategory(rs.getString("category"));
 					product.setPrice(rs.getDouble("price"));
+					product.setImage(rs.getString("image"));
 				}
 			}
+			SqlStatement.PRODUCT_BY_ID.record(start, product == null ? 0 : 1);
 			
 		} catch (SQLException e) {
+			SqlStatement.PRODUCT_BY_ID.recordError(start);
 			// Proper exception handling with specific SQL exception
 			logError("Error fetching product with id: " + id, e);
 		}
@@ -88,55 +194,123 @@ public class ProductDao {
 		System.err.println(message + " - " + e.getMessage());
 	}
 	
-	public List<Cart> getCartProduct(ArrayList<Cart> cartList){
-		List<Cart> productList = new ArrayList<Cart>();
-		try {
-			if(cartList.size() > 0) {
-				for(Cart item:cartList) {
-					query = "select * from products where id=?";
-					smt = this.con.prepareStatement(query);
-					smt.setInt(1, item.getId());
-					rs = smt.executeQuery();
-					while(rs.next()) {
-						Cart row = new Cart();
-							row.setId(rs.getInt("id"));
-							row.setName(rs.getString("name"));
-							row.setCategory(rs.getString("category"));
-							row.setPrice(rs.getDouble("price")*item.getQuantity());
-							row.setQuantity(item.getQuantity());
-							productList.add(row);
-						}
-					}
-				}
-			}catch(Exception e) {
-				e.printStackTrace();
+	public List<Cart> getCartProduct(List<Cart> cartList){
+		return priceCart(cartList).getLines();
+	}
+	
+	public double totalPrice(List<Cart> cartList) {
+		return priceCart(cartList).getTotal();
+	}
+	
+	/**
+	 * Prices every cart line in one pass, with {@link #getProductsByIds(int[])}.
+	 * Lines whose product no longer exists are dropped.
+	 */
+	public PricedCart priceCart(List<Cart> cartList) {
+		List<Cart> lines = new ArrayList<Cart>(cartList.size());
+		if(cartList.isEmpty()) {
+			return new PricedCart(lines, 0);
+		}
+		Map<Integer, Product> products = getProductsByIds(cartList.stream().mapToInt(Cart::getId).toArray());
+		if(products == null) {
+			products = new HashMap<Integer, Product>();
+		}
+		double total = 0;
+		for(Cart item:cartList) {
+			Product p = products.get(item.getId());
+			if(p == null) {
+				continue;
 			}
-		  return productList ;
+			Cart row = new Cart();
+			row.setId(p.getId());
+			row.setName(p.getName());
+			row.setCategory(p.getCategory());
+			row.setImage(p.getImage());
+			row.setPrice(p.getPrice()*item.getQuantity());
+			row.setQuantity(item.getQuantity());
+			lines.add(row);
+			total += row.getPrice();
 		}
-	
-	public double totalPrice(ArrayList<Cart> cartList) {
-		double total=0;
-		try {
-			if(cartList.size() > 0) {
-				for(Cart item:cartList) {
-					query = "select price from products where id=?";
-					smt = this.con.prepareStatement(query);
-					smt.setInt(1, item.getId());
-					rs = smt.executeQuery();
-					while(rs.next()) {
-						total+=rs.getDouble("price")*item.getQuantity();
+		return new PricedCart(lines, total);
+	}
+
+	/**
+	 * Products by id. Rows are fetched with {@code WHERE id IN (...)}, in
+	 * chunks of at most {@value #IN_CHUNK_SIZE} ids, so this costs one round
+	 * trip unless there are very many ids. Ids with no product are absent from
+	 * the map; returns null if the query failed.
+	 */
+	public Map<Integer, Product> getProductsByIds(int[] productIds) {
+		return byIds(SqlStatement.PRODUCTS_BY_IDS, productIds, (id, rs) -> {
+			Product p = new Product();
+			p.setId(id);
+			p.setName(rs.getString("name"));
+			p.setCategory(rs.getString("category"));
+			p.setPrice(rs.getDouble("price"));
+			p.setImage(rs.getString("image"));
+			return p;
+		});
+	}
+
+	/**
+	 * Units in stock by product id, fetched like {@link #getProductsByIds(int[])}.
+	 * A NULL {@code stock} column maps to {@link #UNLIMITED_STOCK}. Ids with no
+	 * product are absent; returns null if the query failed.
+	 */
+	public Map<Integer, Integer> getStockByIds(int[] productIds) {
+		return byIds(SqlStatement.STOCK_BY_IDS, productIds, (id, rs) -> {
+			int stock = rs.getInt("stock");
+			return rs.wasNull() ? UNLIMITED_STOCK : stock;
+		});
+	}
+
+	private interface RowReader<T> {
+		T read(int id, ResultSet rs) throws SQLException;
+	}
+
+	private <T> Map<Integer, T> byIds(SqlStatement statement, int[] productIds, RowReader<T> reader) {
+		int[] ids = Arrays.stream(productIds).distinct().toArray();
+		Map<Integer, T> rowsById = new HashMap<Integer, T>(ids.length * 2);
+		if(ids.length == 0) {
+			return rowsById;
+		}
+		try (Connection con = provider.getConnection()) {
+			for(int from = 0; from < ids.length; from += IN_CHUNK_SIZE) {
+				int to = Math.min(from + IN_CHUNK_SIZE, ids.length);
+				int slots = inListSize(to - from);
+				long start = System.nanoTime();
+				int rows = 0;
+				try (PreparedStatement pstmt = con.prepareStatement(statement.inList(slots))) {
+					for(int i = 0; i < slots; i++) {
+						// pad short chunks with the last id so only a few distinct SQL shapes exist
+						pstmt.setInt(i + 1, ids[Math.min(from + i, to - 1)]);
+					}
+					try (ResultSet rs = pstmt.executeQuery()) {
+						while(rs.next()) {
+							int id = rs.getInt("id");
+							rowsById.put(id, reader.read(id, rs));
+							rows++;
+						}
 					}
-					
+					statement.record(start, rows);
+				} catch (SQLException e) {
+					statement.recordError(start);
+					throw e;
 				}
 			}
+		} catch (SQLException e) {
+			logError("Error loading " + ids.length + " rows by product id", e);
+			return null;
 		}
-		catch(Exception e){
-			e.printStackTrace();
-		}
-		return total;
-		
+		return rowsById;
 	}
-		
-		
+	
+	/** Rounds an IN-list length up to a power of two, capped at the chunk size. */
+	static int inListSize(int n) {
+		int size = Integer.highestOneBit(Math.max(n, 1));
+		if(size < n) {
+			size <<= 1;
+		}
+		return Math.min(size, IN_CHUNK_SIZE);
 	}
-
+}
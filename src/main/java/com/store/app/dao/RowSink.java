@@ -0,0 +1,13 @@
+package com.store.app.dao;
+
+import java.io.IOException;
+
+/**
+ * Receives query rows one at a time, as they are read from the result set,
+ * so a caller can write them out without collecting them first.
+ */
+@FunctionalInterface
+public interface RowSink<T> {
+
+	void accept(T row) throws IOException;
+}
@@ -0,0 +1,96 @@
+package com.store.app.dao;
+
+import com.store.app.metrics.DbTime;
+import com.store.app.metrics.StatementStats;
+
+/**
+ * Every SQL statement the DAOs run, declared once, together with its
+ * execution statistics. Timings cover execute plus reading the result set.
+ * <p>
+ * The pool caches prepared statements per connection and the driver is
+ * configured for server-side prepared statements, so each of these is parsed
+ * once per physical connection.
+ */
+public enum SqlStatement {
+	PRODUCT_ALL("select * from products"),
+	PRODUCT_BY_ID("SELECT id, name, category, price, image FROM products WHERE id = ?"),
+	PRODUCT_PAGE("SELECT id, name, category, price, image FROM products WHERE id > ? ORDER BY id LIMIT ?"),
+	PRODUCT_PAGE_BY_CATEGORY(
+			"SELECT id, name, category, price, image FROM products WHERE id > ? AND category = ? ORDER BY id LIMIT ?"),
+	/** Prefix only: the IN-list is appended per chunk size, see {@link #inList(int)}. */
+	PRODUCTS_BY_IDS("SELECT id, name, category, price, image FROM products WHERE id IN "),
+	/** Prefix only, like {@link #PRODUCTS_BY_IDS}; read by the inventory alone. */
+	STOCK_BY_IDS("SELECT id, stock FROM products WHERE id IN "),
+	STOCK_DECREMENT("UPDATE products SET stock = stock - ? WHERE id = ?"),
+	ORDER_INSERT("INSERT INTO orders(user_id,product_id,quantity) VALUES(?,?,?)"),
+	/**
+	 * Write-behind inserts keep the time the order was accepted, not the time
+	 * it was flushed. The journal id and sequence are a unique key, so a
+	 * replayed row is a no-op.
+	 */
+	ORDER_INSERT_AT("INSERT INTO orders(user_id,product_id,quantity,created_at,journal_id,journal_seq) "
+			+ "VALUES(?,?,?,?,?,?) ON DUPLICATE KEY UPDATE journal_seq = journal_seq"),
+	ORDER_DELETE("delete from orders where id=?"),
+	ORDER_USER_VERSION("SELECT COUNT(*), COALESCE(MAX(id), 0) FROM orders WHERE user_id = ?"),
+	ORDER_POPULARITY("SELECT product_id, SUM(quantity) AS units FROM orders GROUP BY product_id"),
+	ORDER_HISTORY_ALL(OrderHistory.SELECT + OrderHistory.ORDER),
+	ORDER_HISTORY_FIRST(OrderHistory.SELECT + OrderHistory.ORDER + " LIMIT ?"),
+	ORDER_HISTORY_BEFORE(OrderHistory.SELECT + "AND (o.created_at < ? OR (o.created_at = ? AND o.id < ?)) "
+			+ OrderHistory.ORDER + " LIMIT ?"),
+	USER_BY_EMAIL("SELECT id, name, email, password FROM users WHERE email = ?"),
+	USER_PASSWORD_UPGRADE("UPDATE users SET password = ? WHERE id = ? AND password = ?");
+
+	private final String sql;
+	private final StatementStats stats = new StatementStats();
+	private final String[] inLists = new String[Integer.numberOfTrailingZeros(ProductDao.IN_CHUNK_SIZE) + 1];
+
+	SqlStatement(String sql) {
+		this.sql = sql;
+	}
+
+	public String sql() {
+		return sql;
+	}
+
+	public StatementStats stats() {
+		return stats;
+	}
+
+	/** Records a successful execution started at {@code startNanos}. */
+	public void record(long startNanos, long rows) {
+		long nanos = System.nanoTime() - startNanos;
+		stats.record(nanos, rows);
+		DbTime.add(nanos);
+	}
+
+	public void recordError(long startNanos) {
+		long nanos = System.nanoTime() - startNanos;
+		stats.recordError(nanos);
+		DbTime.add(nanos);
+	}
+
+	/**
+	 * This statement's prefix ({@link #PRODUCTS_BY_IDS}, {@link #STOCK_BY_IDS})
+	 * with an IN-list of {@code slots} placeholders, where {@code slots} is a
+	 * power of two up to {@link ProductDao#IN_CHUNK_SIZE}.
+	 */
+	String inList(int slots) {
+		int i = Integer.numberOfTrailingZeros(slots);
+		String s = inLists[i];
+		if (s == null) {
+			StringBuilder sql = new StringBuilder(this.sql).append('(');
+			for (int k = 0; k < slots; k++) {
+				sql.append(k == 0 ? "?" : ",?");
+			}
+			s = sql.append(')').toString();
+			inLists[i] = s;
+		}
+		return s;
+	}
+
+	private static final class OrderHistory {
+		static final String SELECT = "SELECT o.id, o.product_id, o.quantity, o.created_at, "
+				+ "p.name, p.category, p.price FROM orders o JOIN products p ON p.id = o.product_id WHERE o.user_id = ? ";
+		static final String ORDER = "ORDER BY o.created_at DESC, o.id DESC";
+	}
+}
@@ -3,39 +3,129 @@ package com.store.app.dao;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
 
+import com.store.app.connection.ConnectionProvider;
 import com.store.app.model.User;
+import com.store.app.security.PasswordVerifier;
 
 
-
+/**
+ * User queries. Instances are safe to share between request threads; each
+ * call borrows its own connection.
+ * <p>
+ * Login looks the user up by email (through a {@link CredentialCache}) and
+ * checks the password on the {@link PasswordVerifier} pool; the password
+ * itself never reaches MySQL. Legacy plaintext passwords are replaced by a
+ * hash on the first successful login. An unknown email is still checked
+ * against a dummy hash, so the response time does not tell which emails
+ * are registered.
+ */
 public class UserDao {
-	private Connection con;
-	private String query;
-	private PreparedStatement smt;
-	private ResultSet rs;
+	private final ConnectionProvider provider;
+	private final PasswordVerifier verifier;
+	private final CredentialCache credentials;
+	/** Hash of a random secret, as costly to check as a stored one; made once so no request pays for it. */
+	private final String dummyHash;
 
-	public UserDao(Connection con) {
+	public UserDao(ConnectionProvider provider) {
+		this(provider, PasswordVerifier.getInstance(),
+				new CredentialCache(Long.getLong("store.auth.cacheTtlMillis", 10_000),
+						Integer.getInteger("store.auth.cacheMaxEntries", 10_000)));
+	}
+
+	public UserDao(ConnectionProvider provider, PasswordVerifier verifier, CredentialCache credentials) {
 		super();
-		this.con = con;
+		this.provider = provider;
+		this.verifier = verifier;
+		this.credentials = credentials;
+		this.dummyHash = verifier.getHasher().hash(UUID.randomUUID().toString());
 	}
 
+	public UserDao(Connection con) {
+		this(ConnectionProvider.of(con));
+	}
+
+	/**
+	 * Returns the user when the password matches, otherwise null.
+	 *
+	 * @throws java.util.concurrent.RejectedExecutionException if the password pool is saturated
+	 */
 	public User userLogin(String email, String password) {
-		User user = null;
-		try {
-			query = "select * from users where email=? and password=?";
-			smt = this.con.prepareStatement(query);
-			smt.setString(1, email);
-			smt.setString(2, password);
-			rs = smt.executeQuery();
-			if (rs.next()) {
-				user = new User();
-				user.setId(rs.getInt("id"));
-				user.setName(rs.getString("name"));
-				user.setEmail(rs.getString("email"));
+		if (email == null || password == null) {
+			return null;
+		}
+		CredentialCache.Credential c = credentials.get(email);
+		if (c == null) {
+			c = findCredential(email);
+			if (c == null) {
+				return null;
+			}
+			credentials.put(email, c);
+		}
+		// negative entries spare the query, not the hash: skipping it would time-leak who is registered
+		if (c.isUnknown()) {
+			verifier.verify(password, dummyHash);
+			return null;
+		}
+		PasswordVerifier.Result result = verifier.verify(password, c.passwordHash);
+		if (!result.isMatched()) {
+			return null;
+		}
+		if (result.getUpgradedHash() != null) {
+			if (upgradePassword(c.id, c.passwordHash, result.getUpgradedHash())) {
+				credentials.put(email, c.withPasswordHash(result.getUpgradedHash()));
+			} else {
+				credentials.invalidate(email);
 			}
-		} catch (Exception e) {
+		}
+		return c.toUser();
+	}
+
+	public CredentialCache getCredentialCache() {
+		return credentials;
+	}
+
+	/** The stored credential, {@link CredentialCache.Credential#UNKNOWN} if there is none, or null on error. */
+	private CredentialCache.Credential findCredential(String email) {
+		CredentialCache.Credential c = null;
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(SqlStatement.USER_BY_EMAIL.sql())) {
+			pstmt.setString(1, email);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				if (rs.next()) {
+					c = new CredentialCache.Credential(rs.getInt("id"), rs.getString("name"), rs.getString("email"),
+							rs.getString("password"));
+				} else {
+					c = CredentialCache.Credential.UNKNOWN;
+				}
+			}
+			SqlStatement.USER_BY_EMAIL.record(start, c.isUnknown() ? 0 : 1);
+		} catch (SQLException e) {
+			SqlStatement.USER_BY_EMAIL.recordError(start);
+			e.printStackTrace();
+		}
+		return c;
+	}
+
+	/** Replaces the stored password unless it changed since it was read. */
+	private boolean upgradePassword(int id, String oldValue, String newHash) {
+		long start = System.nanoTime();
+		try (Connection con = provider.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(SqlStatement.USER_PASSWORD_UPGRADE.sql())) {
+			pstmt.setString(1, newHash);
+			pstmt.setInt(2, id);
+			pstmt.setString(3, oldValue);
+			int rows = pstmt.executeUpdate();
+			SqlStatement.USER_PASSWORD_UPGRADE.record(start, rows);
+			return rows == 1;
+		} catch (SQLException e) {
+			// the login still succeeds; the upgrade is retried next time
+			SqlStatement.USER_PASSWORD_UPGRADE.recordError(start);
 			e.printStackTrace();
+			return false;
 		}
-		return user;
 	}
 }
@@ -0,0 +1,121 @@
+package com.store.app.dao;
+
+/**
+ * Settings for {@link OrderWriteBehind}. Every value can be overridden with a
+ * {@code store.orders.writeBehind.*} system property (see
+ * {@link #fromSystemProperties()}); write-behind itself is switched on with
+ * {@code store.orders.writeBehind=true}.
+ */
+public class WriteBehindConfig {
+	private String journalDir = System.getProperty("catalina.base", ".") + "/work/store-orders";
+	private int segmentBytes = 4 * 1024 * 1024;
+	private long syncIntervalMillis = 0;
+	private int queueDepth = 100_000;
+	private int flushSize = 200;
+	private long flushIntervalMillis = 20;
+	private long enqueueTimeoutMillis = 100;
+	private long maxRetryBackoffMillis = 30_000;
+
+	public WriteBehindConfig() {
+		super();
+	}
+
+	public static boolean isEnabled() {
+		return Boolean.getBoolean("store.orders.writeBehind");
+	}
+
+	public static WriteBehindConfig fromSystemProperties() {
+		WriteBehindConfig c = new WriteBehindConfig();
+		c.setJournalDir(System.getProperty("store.orders.writeBehind.journalDir", c.getJournalDir()));
+		c.setSegmentBytes(Integer.getInteger("store.orders.writeBehind.segmentBytes", c.getSegmentBytes()));
+		c.setSyncIntervalMillis(
+				Long.getLong("store.orders.writeBehind.syncIntervalMillis", c.getSyncIntervalMillis()));
+		c.setQueueDepth(Integer.getInteger("store.orders.writeBehind.queueDepth", c.getQueueDepth()));
+		c.setFlushSize(Integer.getInteger("store.orders.writeBehind.flushSize", c.getFlushSize()));
+		c.setFlushIntervalMillis(
+				Long.getLong("store.orders.writeBehind.flushIntervalMillis", c.getFlushIntervalMillis()));
+		c.setEnqueueTimeoutMillis(
+				Long.getLong("store.orders.writeBehind.enqueueTimeoutMillis", c.getEnqueueTimeoutMillis()));
+		c.setMaxRetryBackoffMillis(
+				Long.getLong("store.orders.writeBehind.maxRetryBackoffMillis", c.getMaxRetryBackoffMillis()));
+		return c;
+	}
+
+	/** Directory holding the journal segments and checkpoint. */
+	public String getJournalDir() {
+		return journalDir;
+	}
+
+	public void setJournalDir(String journalDir) {
+		this.journalDir = journalDir;
+	}
+
+	/** Size of each memory-mapped journal segment file. */
+	public int getSegmentBytes() {
+		return segmentBytes;
+	}
+
+	public void setSegmentBytes(int segmentBytes) {
+		this.segmentBytes = segmentBytes;
+	}
+
+	/**
+	 * 0 (default) fsyncs the journal before each acknowledgement, shared by
+	 * concurrent submitters. A positive value acknowledges once the orders are
+	 * in the mapped segment and fsyncs on that period instead: a process
+	 * crash loses nothing, a power loss may lose the last interval.
+	 */
+	public long getSyncIntervalMillis() {
+		return syncIntervalMillis;
+	}
+
+	public void setSyncIntervalMillis(long syncIntervalMillis) {
+		this.syncIntervalMillis = syncIntervalMillis;
+	}
+
+	/**
+	 * Orders journaled but not yet in MySQL, which bounds how long a database
+	 * stall can be absorbed; submissions beyond this wait, then fail.
+	 */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	public void setQueueDepth(int queueDepth) {
+		this.queueDepth = queueDepth;
+	}
+
+	/** Largest batch committed in one transaction. */
+	public int getFlushSize() {
+		return flushSize;
+	}
+
+	public void setFlushSize(int flushSize) {
+		this.flushSize = flushSize;
+	}
+
+	/** How long the writer lingers to fill a batch once the first order arrived. */
+	public long getFlushIntervalMillis() {
+		return flushIntervalMillis;
+	}
+
+	public void setFlushIntervalMillis(long flushIntervalMillis) {
+		this.flushIntervalMillis = flushIntervalMillis;
+	}
+
+	public long getEnqueueTimeoutMillis() {
+		return enqueueTimeoutMillis;
+	}
+
+	public void setEnqueueTimeoutMillis(long enqueueTimeoutMillis) {
+		this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+	}
+
+	public long getMaxRetryBackoffMillis() {
+		return maxRetryBackoffMillis;
+	}
+
+	public void setMaxRetryBackoffMillis(long maxRetryBackoffMillis) {
+		this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+	}
+}
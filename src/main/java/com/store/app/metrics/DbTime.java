@@ -0,0 +1,28 @@
+package com.store.app.metrics;
+
+/**
+ * Database time spent by the current thread since the last {@link #reset()}.
+ * {@link com.store.app.dao.SqlStatement} adds every statement execution, and
+ * the request filter resets and reads it around each request. Work moved to
+ * another thread reports its own total in the {@link #REQUEST_ATTRIBUTE}
+ * request attribute.
+ */
+public final class DbTime {
+	public static final String REQUEST_ATTRIBUTE = "com.store.app.metrics.dbNanos";
+	private static final ThreadLocal<long[]> NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+	private DbTime() {
+	}
+
+	public static void reset() {
+		NANOS.get()[0] = 0;
+	}
+
+	public static void add(long nanos) {
+		NANOS.get()[0] += nanos;
+	}
+
+	public static long get() {
+		return NANOS.get()[0];
+	}
+}
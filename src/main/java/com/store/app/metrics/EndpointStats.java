@@ -0,0 +1,47 @@
+package com.store.app.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Request count, failures, in-flight gauge, latency and DB time for one endpoint. */
+public class EndpointStats {
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder inFlight = new LongAdder();
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LatencyHistogram dbTime = new LatencyHistogram();
+
+	public void begin() {
+		inFlight.increment();
+	}
+
+	/** Records a finished request; {@code failed} means an exception or a 5xx status. */
+	public void end(long nanos, long dbNanos, boolean failed) {
+		inFlight.decrement();
+		requests.increment();
+		if (failed) {
+			errors.increment();
+		}
+		latency.record(nanos);
+		dbTime.record(dbNanos);
+	}
+
+	public long getRequests() {
+		return requests.sum();
+	}
+
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	public long getInFlight() {
+		return inFlight.sum();
+	}
+
+	public LatencyHistogram.Snapshot getLatency() {
+		return latency.snapshot();
+	}
+
+	public LatencyHistogram.Snapshot getDbTime() {
+		return dbTime.snapshot();
+	}
+}
@@ -0,0 +1,106 @@
+package com.store.app.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram. Recording is allocation free and lock free,
+ * so it can sit on request and JDBC hot paths.
+ */
+public class LatencyHistogram {
+
+	/** Bucket upper bounds in microseconds; the last bucket is +Inf. */
+	private static final long[] BOUNDS_MICROS = {
+			50, 100, 250, 500,
+			1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+			100_000, 250_000, 500_000,
+			1_000_000, 2_500_000, 5_000_000, 10_000_000 };
+
+	private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MICROS.length + 1);
+	private final LongAdder sumNanos = new LongAdder();
+
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+		int i = 0;
+		while (i < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[i]) {
+			i++;
+		}
+		counts.incrementAndGet(i);
+		sumNanos.add(nanos);
+	}
+
+	public Snapshot snapshot() {
+		long[] c = new long[counts.length()];
+		long total = 0;
+		for (int i = 0; i < c.length; i++) {
+			c[i] = counts.get(i);
+			total += c[i];
+		}
+		return new Snapshot(c, total, sumNanos.sum());
+	}
+
+	/** Upper bounds of the finite buckets, in seconds (Prometheus {@code le} labels). */
+	public static double[] bucketBoundsSeconds() {
+		double[] out = new double[BOUNDS_MICROS.length];
+		for (int i = 0; i < out.length; i++) {
+			out[i] = BOUNDS_MICROS[i] / 1_000_000.0;
+		}
+		return out;
+	}
+
+	public static class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long sumNanos;
+
+		Snapshot(long[] counts, long count, long sumNanos) {
+			this.counts = counts;
+			this.count = count;
+			this.sumNanos = sumNanos;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getSumNanos() {
+			return sumNanos;
+		}
+
+		/** Per-bucket (non cumulative) counts; the last entry is the +Inf bucket. */
+		public long[] getCounts() {
+			return counts.clone();
+		}
+
+		public double getMeanMillis() {
+			return count == 0 ? 0 : sumNanos / (double) count / 1_000_000.0;
+		}
+
+		/**
+		 * Returns the upper bound, in milliseconds, of the bucket holding the
+		 * given percentile (0-100). Values past the last bound report that bound.
+		 */
+		public double percentileMillis(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			long rank = (long) Math.ceil(count * (percentile / 100.0));
+			if (rank < 1) {
+				rank = 1;
+			}
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					int b = Math.min(i, BOUNDS_MICROS.length - 1);
+					return BOUNDS_MICROS[b] / 1_000.0;
+				}
+			}
+			return BOUNDS_MICROS[BOUNDS_MICROS.length - 1] / 1_000.0;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.store.app.metrics;
+
+/**
+ * Builds a scrape in the Prometheus text exposition format (version 0.0.4).
+ * Labels are passed as alternating name/value pairs.
+ */
+public class PrometheusWriter {
+	private static final double[] BOUNDS = LatencyHistogram.bucketBoundsSeconds();
+
+	private final StringBuilder out = new StringBuilder(8192);
+
+	public PrometheusWriter family(String name, String type, String help) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+		return this;
+	}
+
+	public PrometheusWriter sample(String name, double value, String... labels) {
+		out.append(name);
+		labels(labels, null);
+		out.append(' ');
+		number(value);
+		out.append('\n');
+		return this;
+	}
+
+	/** Writes the _bucket, _sum and _count series of a histogram family. */
+	public PrometheusWriter histogram(String name, LatencyHistogram.Snapshot snapshot, String... labels) {
+		long[] counts = snapshot.getCounts();
+		long cumulative = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulative += counts[i];
+			out.append(name).append("_bucket");
+			labels(labels, i < BOUNDS.length ? Double.toString(BOUNDS[i]) : "+Inf");
+			out.append(' ').append(cumulative).append('\n');
+		}
+		sample(name + "_sum", snapshot.getSumNanos() / 1e9, labels);
+		sample(name + "_count", snapshot.getCount(), labels);
+		return this;
+	}
+
+	private void labels(String[] labels, String le) {
+		if (labels.length == 0 && le == null) {
+			return;
+		}
+		out.append('{');
+		for (int i = 0; i + 1 < labels.length; i += 2) {
+			if (i > 0) {
+				out.append(',');
+			}
+			out.append(labels[i]).append("=\"");
+			escape(labels[i + 1]);
+			out.append('"');
+		}
+		if (le != null) {
+			if (labels.length > 0) {
+				out.append(',');
+			}
+			out.append("le=\"").append(le).append('"');
+		}
+		out.append('}');
+	}
+
+	private void escape(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			default:
+				out.append(c);
+			}
+		}
+	}
+
+	private void number(double value) {
+		if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+			out.append((long) value);
+		} else {
+			out.append(value);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return out.toString();
+	}
+}
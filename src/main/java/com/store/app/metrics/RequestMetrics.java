@@ -0,0 +1,42 @@
+package com.store.app.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Application-wide registry of {@link EndpointStats}, keyed by servlet path.
+ * <p>
+ * The root servlet is mapped to "/", so any URL a client invents shows up as
+ * its own path. Only the first {@link #MAX_ENDPOINTS} paths get their own
+ * entry; later ones are counted under {@link #OTHER} to keep the scrape small.
+ */
+public final class RequestMetrics {
+	static final int MAX_ENDPOINTS = 100;
+	public static final String OTHER = "other";
+
+	private static final ConcurrentHashMap<String, EndpointStats> ENDPOINTS = new ConcurrentHashMap<>();
+
+	private RequestMetrics() {
+	}
+
+	public static EndpointStats endpoint(String path) {
+		if (path == null || path.isEmpty()) {
+			path = "/";
+		}
+		EndpointStats stats = ENDPOINTS.get(path);
+		if (stats != null) {
+			return stats;
+		}
+		if (ENDPOINTS.size() >= MAX_ENDPOINTS) {
+			path = OTHER;
+		}
+		return ENDPOINTS.computeIfAbsent(path, p -> new EndpointStats());
+	}
+
+	/** Snapshot of the registry, sorted by path. */
+	public static Map<String, EndpointStats> endpoints() {
+		return Collections.unmodifiableMap(new TreeMap<>(ENDPOINTS));
+	}
+}
@@ -0,0 +1,39 @@
+package com.store.app.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Call count, latency distribution, rows and failures for one SQL statement. */
+public class StatementStats {
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	public void record(long nanos, long rowCount) {
+		calls.increment();
+		rows.add(rowCount);
+		latency.record(nanos);
+	}
+
+	public void recordError(long nanos) {
+		calls.increment();
+		errors.increment();
+		latency.record(nanos);
+	}
+
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	public long getRows() {
+		return rows.sum();
+	}
+
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	public LatencyHistogram.Snapshot getLatency() {
+		return latency.snapshot();
+	}
+}
@@ -0,0 +1,28 @@
+package com.store.app.model;
+
+import java.util.List;
+
+/** One page of a user's order history. */
+public class OrderPage {
+	private final List<Order> orders;
+	private final String nextCursor;
+
+	public OrderPage(List<Order> orders, String nextCursor) {
+		super();
+		this.orders = orders;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<Order> getOrders() {
+		return orders;
+	}
+
+	/** Token for the next (older) page, or null when this is the last page. */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public boolean hasMore() {
+		return nextCursor != null;
+	}
+}
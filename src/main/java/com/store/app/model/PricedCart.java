@@ -0,0 +1,26 @@
+package com.store.app.model;
+
+import java.util.List;
+
+/**
+ * Cart lines with their current catalog data, each line priced at
+ * unit price * quantity, together with the cart total.
+ */
+public class PricedCart {
+	private final List<Cart> lines;
+	private final double total;
+
+	public PricedCart(List<Cart> lines, double total) {
+		super();
+		this.lines = lines;
+		this.total = total;
+	}
+
+	public List<Cart> getLines() {
+		return lines;
+	}
+
+	public double getTotal() {
+		return total;
+	}
+}
@@ -0,0 +1,28 @@
+package com.store.app.model;
+
+import java.util.List;
+
+/** One keyset page of the product listing, ordered by id. */
+public class ProductPage {
+	private final List<Product> products;
+	private final int nextAfterId;
+
+	public ProductPage(List<Product> products, int nextAfterId) {
+		super();
+		this.products = products;
+		this.nextAfterId = nextAfterId;
+	}
+
+	public List<Product> getProducts() {
+		return products;
+	}
+
+	/** Id to pass as {@code after} for the next page, or 0 when this is the last page. */
+	public int getNextAfterId() {
+		return nextAfterId;
+	}
+
+	public boolean hasMore() {
+		return nextAfterId > 0;
+	}
+}
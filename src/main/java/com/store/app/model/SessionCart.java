@@ -0,0 +1,348 @@
+package com.store.app.model;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shopping cart stored in the HTTP session, keyed by product id.
+ * <p>
+ * Quantities live in a primitive open-addressing table (linear probing,
+ * backward-shift deletion), so add, increment, decrement and remove are O(1)
+ * and no boxing happens per line. Every method synchronizes on the cart: the
+ * only contention is between concurrent requests of one session (several
+ * browser tabs), and holding the monitor for a few array writes keeps those
+ * requests from corrupting each other.
+ * <p>
+ * The cart also keeps the catalog data of each line and a running total,
+ * adjusted on every change, so it can be shown without querying prices again.
+ * That data is filled in by {@link #applyPrices} and reported stale by
+ * {@link #isStale(long)}; it is not serialized, so a cart restored from
+ * a persisted session is priced again on first view.
+ */
+public class SessionCart implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final int MIN_CAPACITY = 8;
+	/** Catalog data of a line whose product no longer exists. */
+	private static final Product GONE = new Product();
+
+	/** Product id per slot; 0 marks an empty slot (product ids start at 1). */
+	private int[] ids;
+	private int[] quantities;
+	/** Insertion sequence per slot, used to list lines in the order they were added. */
+	private long[] addedAt;
+	private int size;
+	private long sequence;
+
+	/** Catalog data per slot; null until priced. */
+	private transient Product[] products;
+	/** Lines whose product is still null. */
+	private transient int unpriced;
+	/** Sum of unit price * quantity over priced lines. */
+	private transient double total;
+	private transient long pricedAtNanos;
+	private transient boolean priced;
+
+	public SessionCart() {
+		allocate(MIN_CAPACITY);
+	}
+
+	/** Adds a line; returns false, leaving the cart unchanged, if the product is already in it. */
+	public synchronized boolean add(int productId, int quantity) {
+		checkId(productId);
+		int slot = slotOf(productId);
+		if (slot >= 0) {
+			return false;
+		}
+		if ((size + 1) * 2 > ids.length) {
+			rehash(ids.length * 2);
+			slot = slotOf(productId);
+		}
+		slot = -slot - 1;
+		ids[slot] = productId;
+		quantities[slot] = Math.max(quantity, 1);
+		addedAt[slot] = ++sequence;
+		size++;
+		unpriced++;
+		return true;
+	}
+
+	/** Returns the new quantity, or 0 if the product is not in the cart. */
+	public synchronized int increment(int productId) {
+		int slot = slotOf(productId);
+		if (slot < 0) {
+			return 0;
+		}
+		total += unitPrice(slot);
+		return ++quantities[slot];
+	}
+
+	/** Lowers the quantity, never below 1. Returns the new quantity, or 0 if absent. */
+	public synchronized int decrement(int productId) {
+		int slot = slotOf(productId);
+		if (slot < 0) {
+			return 0;
+		}
+		if (quantities[slot] > 1) {
+			quantities[slot]--;
+			total -= unitPrice(slot);
+		}
+		return quantities[slot];
+	}
+
+	public synchronized boolean remove(int productId) {
+		int slot = slotOf(productId);
+		if (slot < 0) {
+			return false;
+		}
+		removeAt(slot);
+		return true;
+	}
+
+	public synchronized int getQuantity(int productId) {
+		int slot = slotOf(productId);
+		return slot < 0 ? 0 : quantities[slot];
+	}
+
+	public synchronized boolean contains(int productId) {
+		return slotOf(productId) >= 0;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	public synchronized boolean isEmpty() {
+		return size == 0;
+	}
+
+	public synchronized void clear() {
+		allocate(MIN_CAPACITY);
+		size = 0;
+		unpriced = 0;
+		total = 0;
+	}
+
+	/** Snapshot of the lines (id and quantity only) in the order they were added. */
+	public synchronized List<Cart> toCartList() {
+		List<Cart> lines = new ArrayList<Cart>(size);
+		for (int slot : orderedSlots()) {
+			Cart line = new Cart();
+			line.setId(ids[slot]);
+			line.setQuantity(quantities[slot]);
+			lines.add(line);
+		}
+		return lines;
+	}
+
+	/** Occupied slots in insertion order. */
+	private int[] orderedSlots() {
+		int[] slots = new int[size];
+		int n = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] != 0) {
+				slots[n++] = i;
+			}
+		}
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++) {
+			// sequence in the high bits, slot in the low bits: sorting the keys sorts by insertion
+			keys[i] = (addedAt[slots[i]] << 32) | slots[i];
+		}
+		Arrays.sort(keys);
+		for (int i = 0; i < n; i++) {
+			slots[i] = (int) keys[i];
+		}
+		return slots;
+	}
+
+	/**
+	 * True when the stored prices must be fetched again: they were never
+	 * fetched, or they were fetched before {@code notBeforeNanos}.
+	 */
+	public synchronized boolean isStale(long notBeforeNanos) {
+		return !priced || pricedAtNanos - notBeforeNanos < 0;
+	}
+
+	/**
+	 * Priced lines and total if nothing needs fetching, otherwise null. Reads
+	 * only the cart, never the database.
+	 */
+	public synchronized PricedCart pricedSnapshot(long notBeforeNanos) {
+		if (unpriced > 0 || isStale(notBeforeNanos)) {
+			return null;
+		}
+		return snapshot();
+	}
+
+	/** Ids whose catalog data should be fetched: every line, or only lines never priced. */
+	public synchronized int[] idsToPrice(boolean all) {
+		int[] out = new int[all ? size : unpriced];
+		int n = 0;
+		for (int i = 0; i < ids.length && n < out.length; i++) {
+			if (ids[i] != 0 && (all || products[i] == null)) {
+				out[n++] = ids[i];
+			}
+		}
+		return n == out.length ? out : Arrays.copyOf(out, n);
+	}
+
+	/**
+	 * Stores the catalog data fetched for {@code fetchedIds}; a fetched id
+	 * missing from {@code catalog} is a product that no longer exists, and its
+	 * line is left out of the snapshot. When {@code all} lines were fetched the
+	 * prices count as current from {@code nowNanos}.
+	 */
+	public synchronized PricedCart applyPrices(int[] fetchedIds, Map<Integer, Product> catalog, boolean all,
+			long nowNanos) {
+		for (int id : fetchedIds) {
+			int slot = slotOf(id);
+			if (slot < 0) {
+				continue; // removed while the prices were being fetched
+			}
+			boolean wasUnpriced = products[slot] == null;
+			if (!all && !wasUnpriced) {
+				continue; // priced concurrently
+			}
+			Product p = catalog.get(id);
+			products[slot] = p == null ? GONE : p;
+			if (wasUnpriced) {
+				unpriced--;
+			}
+			if (!all) {
+				total += unitPrice(slot) * quantities[slot];
+			}
+		}
+		if (all) {
+			priced = true;
+			pricedAtNanos = nowNanos;
+			// recompute rather than adjust, so rounding errors do not accumulate
+			total = 0;
+			for (int i = 0; i < ids.length; i++) {
+				if (ids[i] != 0) {
+					total += unitPrice(i) * quantities[i];
+				}
+			}
+		}
+		return snapshot();
+	}
+
+	/** Lines priced so far, each at unit price * quantity, in the order they were added. */
+	public synchronized PricedCart snapshot() {
+		List<Cart> lines = new ArrayList<Cart>(size);
+		for (int slot : orderedSlots()) {
+			Product p = products[slot];
+			if (p == null || p == GONE) {
+				continue;
+			}
+			Cart row = new Cart();
+			row.setId(p.getId());
+			row.setName(p.getName());
+			row.setCategory(p.getCategory());
+			row.setImage(p.getImage());
+			row.setPrice(p.getPrice() * quantities[slot]);
+			row.setQuantity(quantities[slot]);
+			lines.add(row);
+		}
+		return new PricedCart(lines, total);
+	}
+
+	/** Running total of the priced lines. */
+	public synchronized double getTotal() {
+		return total;
+	}
+
+	private double unitPrice(int slot) {
+		Product p = products[slot];
+		return p == null || p == GONE ? 0 : p.getPrice();
+	}
+
+	private static void checkId(int productId) {
+		if (productId <= 0) {
+			throw new IllegalArgumentException("Invalid product id: " + productId);
+		}
+	}
+
+	private static int mix(int id) {
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/** Slot holding the id, or {@code -(insertionSlot + 1)} if absent. */
+	private int slotOf(int productId) {
+		if (productId <= 0) {
+			return -1;
+		}
+		int mask = ids.length - 1;
+		int i = mix(productId) & mask;
+		while (ids[i] != 0) {
+			if (ids[i] == productId) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return -i - 1;
+	}
+
+	private void removeAt(int slot) {
+		if (products[slot] == null) {
+			unpriced--;
+		} else {
+			total -= unitPrice(slot) * quantities[slot];
+		}
+		int mask = ids.length - 1;
+		int hole = slot;
+		int i = (slot + 1) & mask;
+		while (ids[i] != 0) {
+			int home = mix(ids[i]) & mask;
+			// move the entry back if the hole sits between its home slot and its current slot
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				ids[hole] = ids[i];
+				quantities[hole] = quantities[i];
+				addedAt[hole] = addedAt[i];
+				products[hole] = products[i];
+				hole = i;
+			}
+			i = (i + 1) & mask;
+		}
+		ids[hole] = 0;
+		quantities[hole] = 0;
+		addedAt[hole] = 0;
+		products[hole] = null;
+		size--;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldIds = ids;
+		int[] oldQuantities = quantities;
+		long[] oldAddedAt = addedAt;
+		Product[] oldProducts = products;
+		allocate(capacity);
+		for (int i = 0; i < oldIds.length; i++) {
+			if (oldIds[i] != 0) {
+				int slot = -slotOf(oldIds[i]) - 1;
+				ids[slot] = oldIds[i];
+				quantities[slot] = oldQuantities[i];
+				addedAt[slot] = oldAddedAt[i];
+				products[slot] = oldProducts[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		ids = new int[capacity];
+		quantities = new int[capacity];
+		addedAt = new long[capacity];
+		products = new Product[capacity];
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		products = new Product[ids.length];
+		unpriced = size;
+	}
+}
@@ -0,0 +1,223 @@
+package com.store.app.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import com.store.app.model.Product;
+
+/**
+ * Inverted index over product names and categories.
+ * <p>
+ * Text is lower-cased, stripped of accents and split on anything that is not
+ * a letter or digit. Terms are kept sorted, so every query token also matches
+ * the terms it is a prefix of, which is what type-ahead needs. A product must
+ * match every token. Name matches outrank category matches and whole-word
+ * matches outrank prefix matches; ties go to the shorter name.
+ * <p>
+ * Updates replace one product's postings under a write lock; searches share
+ * a read lock and never wait for each other.
+ */
+public class ProductIndex {
+	static final int NAME = 1;
+	static final int CATEGORY = 2;
+	/** Bounds the work of a very short prefix such as "a". */
+	static final int MAX_EXPANSIONS = 512;
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final HashMap<Integer, Product> products = new HashMap<>();
+	/** Term to product id to the fields holding the term. */
+	private final TreeMap<String, HashMap<Integer, Integer>> terms = new TreeMap<>();
+
+	/** Replaces the whole index. */
+	public void replaceAll(Collection<Product> all) {
+		lock.writeLock().lock();
+		try {
+			products.clear();
+			terms.clear();
+			for (Product p : all) {
+				add(p);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Adds the product, or reindexes it if its id is known. */
+	public void put(Product p) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(p.getId());
+			add(p);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(int id) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return products.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void add(Product p) {
+		products.put(p.getId(), p);
+		for (String t : tokenize(p.getName())) {
+			terms.computeIfAbsent(t, k -> new HashMap<>(4)).merge(p.getId(), NAME, (a, b) -> a | b);
+		}
+		for (String t : tokenize(p.getCategory())) {
+			terms.computeIfAbsent(t, k -> new HashMap<>(4)).merge(p.getId(), CATEGORY, (a, b) -> a | b);
+		}
+	}
+
+	private void removeLocked(int id) {
+		Product old = products.remove(id);
+		if (old == null) {
+			return;
+		}
+		List<String> words = tokenize(old.getName());
+		words.addAll(tokenize(old.getCategory()));
+		for (String t : words) {
+			HashMap<Integer, Integer> posting = terms.get(t);
+			if (posting != null && posting.remove(id) != null && posting.isEmpty()) {
+				terms.remove(t);
+			}
+		}
+	}
+
+	/** Products matching every token of {@code query}, best first, at most {@code limit} of them. */
+	public Result search(String query, int limit) {
+		List<String> tokens = tokenize(query);
+		if (tokens.isEmpty() || limit <= 0) {
+			return new Result(Collections.emptyList(), 0);
+		}
+		lock.readLock().lock();
+		try {
+			Map<Integer, Integer> scores = null;
+			for (String token : tokens) {
+				Map<Integer, Integer> matched = match(token, scores);
+				if (matched.isEmpty()) {
+					return new Result(Collections.emptyList(), 0);
+				}
+				if (scores != null) {
+					for (Map.Entry<Integer, Integer> e : matched.entrySet()) {
+						e.setValue(e.getValue() + scores.get(e.getKey()));
+					}
+				}
+				scores = matched;
+			}
+			List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(scores.entrySet());
+			ranked.sort((a, b) -> {
+				int c = Integer.compare(b.getValue(), a.getValue());
+				if (c != 0) {
+					return c;
+				}
+				Product pa = products.get(a.getKey());
+				Product pb = products.get(b.getKey());
+				c = Integer.compare(length(pa.getName()), length(pb.getName()));
+				return c != 0 ? c : Integer.compare(pa.getId(), pb.getId());
+			});
+			List<Product> top = new ArrayList<>(Math.min(limit, ranked.size()));
+			for (int i = 0; i < ranked.size() && i < limit; i++) {
+				top.add(products.get(ranked.get(i).getKey()));
+			}
+			return new Result(top, ranked.size());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Best score of each product for one token, restricted to {@code within} when not null. */
+	private Map<Integer, Integer> match(String token, Map<Integer, Integer> within) {
+		Map<Integer, Integer> best = new HashMap<>();
+		NavigableMap<String, HashMap<Integer, Integer>> range = terms.subMap(token, true, token + Character.MAX_VALUE,
+				false);
+		int expanded = 0;
+		for (Map.Entry<String, HashMap<Integer, Integer>> term : range.entrySet()) {
+			if (expanded++ == MAX_EXPANSIONS) {
+				break;
+			}
+			boolean exact = term.getKey().length() == token.length();
+			for (Map.Entry<Integer, Integer> posting : term.getValue().entrySet()) {
+				if (within != null && !within.containsKey(posting.getKey())) {
+					continue;
+				}
+				int score = score(posting.getValue(), exact);
+				best.merge(posting.getKey(), score, Math::max);
+			}
+		}
+		return best;
+	}
+
+	private static int score(int fields, boolean exact) {
+		int s = ((fields & NAME) != 0 ? 4 : 0) + ((fields & CATEGORY) != 0 ? 1 : 0);
+		return exact ? 2 * s : s;
+	}
+
+	private static int length(String s) {
+		return s == null ? 0 : s.length();
+	}
+
+	/** Lower-cased, accent-free words of {@code text}. */
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null || text.isEmpty()) {
+			return tokens;
+		}
+		String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+				.toLowerCase(Locale.ROOT);
+		int start = -1;
+		for (int i = 0; i <= folded.length(); i++) {
+			boolean word = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+			if (word && start < 0) {
+				start = i;
+			} else if (!word && start >= 0) {
+				tokens.add(folded.substring(start, i));
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	public static final class Result {
+		private final List<Product> products;
+		private final int total;
+
+		Result(List<Product> products, int total) {
+			this.products = products;
+			this.total = total;
+		}
+
+		/** The best matches, shared with the index: read-only. */
+		public List<Product> getProducts() {
+			return products;
+		}
+
+		/** Number of matching products, including those past the limit. */
+		public int getTotal() {
+			return total;
+		}
+	}
+}
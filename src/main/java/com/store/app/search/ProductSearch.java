@@ -0,0 +1,123 @@
+package com.store.app.search;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.store.app.dao.CatalogCache;
+import com.store.app.dao.ProductDao;
+import com.store.app.metrics.LatencyHistogram;
+import com.store.app.model.Product;
+
+/**
+ * Product search served from a {@link ProductIndex} kept in step with the
+ * catalog.
+ * <p>
+ * The index is loaded with one query when first needed, which
+ * {@link #warmUp()} arranges at startup. Afterwards it is reloaded in full
+ * every {@code store.search.refreshMillis} to pick up changes made in MySQL. Searches never touch the database except for the thread
+ * that happens to trigger such a reload.
+ */
+public class ProductSearch {
+	private static volatile ProductSearch instance;
+
+	private final ProductDao productDao;
+	private final long refreshNanos;
+	private final ProductIndex index = new ProductIndex();
+	private final AtomicBoolean loading = new AtomicBoolean();
+	private volatile long loadedAtNanos;
+	private volatile boolean loaded;
+	private final LongAdder queries = new LongAdder();
+	private final LongAdder reloads = new LongAdder();
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	public ProductSearch(ProductDao productDao, long refreshMillis) {
+		this.productDao = productDao;
+		this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMillis);
+	}
+
+	/** Shared instance reading through the shared {@link CatalogCache}'s DAO. */
+	public static ProductSearch getInstance() {
+		ProductSearch s = instance;
+		if (s == null) {
+			synchronized (ProductSearch.class) {
+				s = instance;
+				if (s == null) {
+					s = new ProductSearch(CatalogCache.getInstance().getProductDao(),
+							Long.getLong("store.search.refreshMillis", 300_000));
+					instance = s;
+				}
+			}
+		}
+		return s;
+	}
+
+	/** The shared instance if something already created it, else null; never creates one. */
+	public static ProductSearch peek() {
+		return instance;
+	}
+
+	/** Loads the shared index on a background thread so the first search does not pay for it. */
+	public static void warmUp() {
+		Thread t = new Thread(() -> {
+			try {
+				getInstance().reloadIfStale();
+			} catch (RuntimeException e) {
+				System.err.println("Search index warm-up failed - " + e.getMessage());
+			}
+		}, "store-search-warmup");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	public ProductIndex.Result search(String query, int limit) {
+		reloadIfStale();
+		long start = System.nanoTime();
+		ProductIndex.Result result = index.search(query, limit);
+		latency.record(System.nanoTime() - start);
+		queries.increment();
+		return result;
+	}
+
+	private void reloadIfStale() {
+		if (loaded && System.nanoTime() - loadedAtNanos < refreshNanos) {
+			return;
+		}
+		// one thread reloads; the others keep searching the current index
+		if (!loading.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			long start = System.nanoTime();
+			List<Product> all = productDao.showProducts();
+			if (all == null || all.isEmpty()) {
+				// more likely a failed query than an emptied shop: keep what we have and try again later
+				loadedAtNanos = start;
+				return;
+			}
+			index.replaceAll(all);
+			loadedAtNanos = start;
+			loaded = true;
+			reloads.increment();
+		} finally {
+			loading.set(false);
+		}
+	}
+
+	public int getIndexed() {
+		return index.size();
+	}
+
+	public long getQueries() {
+		return queries.sum();
+	}
+
+	public long getReloads() {
+		return reloads.sum();
+	}
+
+	public LatencyHistogram.Snapshot getLatency() {
+		return latency.snapshot();
+	}
+}
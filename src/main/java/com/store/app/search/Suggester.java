@@ -0,0 +1,172 @@
+package com.store.app.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.store.app.dao.CatalogCache;
+import com.store.app.dao.Daos;
+import com.store.app.dao.OrderDao;
+import com.store.app.dao.ProductDao;
+import com.store.app.metrics.LatencyHistogram;
+import com.store.app.model.Product;
+
+/**
+ * Type-ahead suggestions: product names and categories ranked by units
+ * ordered.
+ * <p>
+ * Requests only read the current {@link SuggestionTrie}; they never build it
+ * and never query. A background thread rebuilds the trie from the catalog
+ * and the order totals every {@code store.suggest.refreshMillis}, then swaps
+ * it in.
+ */
+public class Suggester {
+	private static volatile Suggester instance;
+
+	private final ProductDao productDao;
+	private final OrderDao orderDao;
+	private final int k;
+	private final ScheduledExecutorService rebuilder;
+	private volatile SuggestionTrie trie = SuggestionTrie.build(Collections.emptyList(), 1);
+	private final LongAdder queries = new LongAdder();
+	private final LongAdder rebuilds = new LongAdder();
+	private final LongAdder rebuildFailures = new LongAdder();
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	/** Rebuilds in the background when {@code refreshMillis} is positive; otherwise only through {@link #rebuild()}. */
+	public Suggester(ProductDao productDao, OrderDao orderDao, int k, long refreshMillis) {
+		this.productDao = productDao;
+		this.orderDao = orderDao;
+		this.k = k;
+		if (refreshMillis > 0) {
+			rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "store-suggest-rebuild");
+				t.setDaemon(true);
+				return t;
+			});
+			rebuilder.scheduleWithFixedDelay(this::rebuildQuietly, 0, refreshMillis, TimeUnit.MILLISECONDS);
+		} else {
+			rebuilder = null;
+		}
+	}
+
+	/** Shared instance configured by {@code store.suggest.*}; building it schedules the first load. */
+	public static Suggester getInstance() {
+		Suggester s = instance;
+		if (s == null) {
+			synchronized (Suggester.class) {
+				s = instance;
+				if (s == null) {
+					s = new Suggester(CatalogCache.getInstance().getProductDao(), Daos.orders(),
+							Integer.getInteger("store.suggest.maxResults", 10),
+							Long.getLong("store.suggest.refreshMillis", 600_000));
+					instance = s;
+				}
+			}
+		}
+		return s;
+	}
+
+	/** The shared instance if something already created it, else null; never creates one. */
+	public static Suggester peek() {
+		return instance;
+	}
+
+	/** Creates the shared instance off the startup thread; its first build follows right away. */
+	public static void warmUp() {
+		Thread t = new Thread(() -> {
+			try {
+				getInstance();
+			} catch (RuntimeException e) {
+				System.err.println("Suggestions warm-up failed - " + e.getMessage());
+			}
+		}, "store-suggest-warmup");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	public static synchronized void shutdown() {
+		if (instance != null && instance.rebuilder != null) {
+			instance.rebuilder.shutdownNow();
+		}
+		instance = null;
+	}
+
+	/** At most {@code limit} suggestions, best first; never more than the configured maximum. */
+	public List<SuggestionTrie.Suggestion> suggest(String typed, int limit) {
+		long start = System.nanoTime();
+		List<SuggestionTrie.Suggestion> result = trie.complete(typed, Math.min(limit, k));
+		latency.record(System.nanoTime() - start);
+		queries.increment();
+		return result;
+	}
+
+	/** Reloads products and order totals and swaps in a new trie; false if either query failed. */
+	public boolean rebuild() {
+		List<Product> products = productDao.showProducts();
+		Map<Integer, Long> units = orderDao.productPopularity();
+		if (units == null || products == null || (products.isEmpty() && trie.size() > 0)) {
+			// an empty listing after a non-empty one is more likely a failed query than an emptied shop
+			rebuildFailures.increment();
+			return false;
+		}
+		trie = SuggestionTrie.build(suggestions(products, units), k);
+		rebuilds.increment();
+		return true;
+	}
+
+	static List<SuggestionTrie.Suggestion> suggestions(List<Product> products, Map<Integer, Long> units) {
+		List<SuggestionTrie.Suggestion> out = new ArrayList<>(products.size() + 16);
+		Map<String, Long> categories = new HashMap<>();
+		for (Product p : products) {
+			long sold = units.getOrDefault(p.getId(), 0L);
+			if (p.getName() != null) {
+				out.add(new SuggestionTrie.Suggestion(p.getName(), SuggestionTrie.Suggestion.PRODUCT, p.getId(), sold));
+			}
+			if (p.getCategory() != null) {
+				categories.merge(p.getCategory(), sold, Long::sum);
+			}
+		}
+		categories.forEach((c, sold) -> out.add(new SuggestionTrie.Suggestion(c, SuggestionTrie.Suggestion.CATEGORY, 0, sold)));
+		return out;
+	}
+
+	private void rebuildQuietly() {
+		try {
+			rebuild();
+		} catch (RuntimeException e) {
+			// keep the schedule alive
+			e.printStackTrace();
+		}
+	}
+
+	public int getNodes() {
+		return trie.nodes();
+	}
+
+	public int getSuggestions() {
+		return trie.size();
+	}
+
+	public long getQueries() {
+		return queries.sum();
+	}
+
+	public long getRebuilds() {
+		return rebuilds.sum();
+	}
+
+	public long getRebuildFailures() {
+		return rebuildFailures.sum();
+	}
+
+	public LatencyHistogram.Snapshot getLatency() {
+		return latency.snapshot();
+	}
+}
@@ -0,0 +1,239 @@
+package com.store.app.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix trie answering "best k completions of this prefix" with
+ * no work beyond walking the prefix.
+ * <p>
+ * Every node stores the ids of the k best suggestions below it, computed
+ * once at build time. The nodes live in a handful of parallel arrays
+ * (first-child / next-sibling layout) rather than one object per node, so
+ * the structure is a few flat allocations that the collector never has to
+ * trace, and a lookup touches only a few cache lines per prefix character.
+ */
+public class SuggestionTrie {
+	private static final int[] NONE = new int[0];
+
+	private final Suggestion[] suggestions;
+	private final char[] label;
+	private final int[] firstChild;
+	private final int[] nextSibling;
+	/** Node i's best suggestions are {@code top[topStart[i] .. topStart[i + 1])}. */
+	private final int[] topStart;
+	private final int[] top;
+
+	private SuggestionTrie(Suggestion[] suggestions, char[] label, int[] firstChild, int[] nextSibling,
+			int[] topStart, int[] top) {
+		this.suggestions = suggestions;
+		this.label = label;
+		this.firstChild = firstChild;
+		this.nextSibling = nextSibling;
+		this.topStart = topStart;
+		this.top = top;
+	}
+
+	/**
+	 * Builds the trie. Each suggestion is reachable from the start of every
+	 * word of its text, so "mouse" also finds "Wireless Mouse".
+	 */
+	public static SuggestionTrie build(List<Suggestion> input, int k) {
+		Suggestion[] byRank = input.toArray(new Suggestion[0]);
+		// rank order doubles as the suggestion id: lower id, better suggestion
+		Arrays.sort(byRank, RANK);
+		Builder root = new Builder('\0');
+		for (int id = 0; id < byRank.length; id++) {
+			List<String> words = ProductIndex.tokenize(byRank[id].getText());
+			for (int w = 0; w < words.size(); w++) {
+				String key = String.join(" ", words.subList(w, words.size()));
+				Builder node = root;
+				for (int i = 0; i < key.length(); i++) {
+					node = node.child(key.charAt(i));
+				}
+				node.add(id, k);
+			}
+		}
+
+		List<Builder> nodes = new ArrayList<>();
+		root.collect(nodes, k);
+		int n = nodes.size();
+		char[] label = new char[n];
+		int[] firstChild = new int[n];
+		int[] nextSibling = new int[n];
+		int[] topStart = new int[n + 1];
+		int total = 0;
+		for (int i = 0; i < n; i++) {
+			total += nodes.get(i).best.length;
+		}
+		int[] top = new int[total];
+		Arrays.fill(firstChild, -1);
+		Arrays.fill(nextSibling, -1);
+		int pos = 0;
+		for (int i = 0; i < n; i++) {
+			Builder b = nodes.get(i);
+			label[i] = b.c;
+			int previous = -1;
+			for (Builder child : b.children.values()) {
+				if (previous < 0) {
+					firstChild[i] = child.index;
+				} else {
+					nextSibling[previous] = child.index;
+				}
+				previous = child.index;
+			}
+			topStart[i] = pos;
+			System.arraycopy(b.best, 0, top, pos, b.best.length);
+			pos += b.best.length;
+		}
+		topStart[n] = pos;
+		return new SuggestionTrie(byRank, label, firstChild, nextSibling, topStart, top);
+	}
+
+	/** The best suggestions for what has been typed so far, at most {@code limit}. */
+	public List<Suggestion> complete(String typed, int limit) {
+		List<String> words = ProductIndex.tokenize(typed);
+		if (words.isEmpty() || label.length == 0) {
+			return Collections.emptyList();
+		}
+		int node = 0;
+		for (int w = 0; w < words.size(); w++) {
+			if (w > 0) {
+				node = child(node, ' ');
+			}
+			String word = words.get(w);
+			for (int i = 0; i < word.length() && node >= 0; i++) {
+				node = child(node, word.charAt(i));
+			}
+			if (node < 0) {
+				return Collections.emptyList();
+			}
+		}
+		int from = topStart[node];
+		int count = Math.min(limit, topStart[node + 1] - from);
+		List<Suggestion> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(suggestions[top[from + i]]);
+		}
+		return result;
+	}
+
+	private int child(int node, char c) {
+		for (int ch = firstChild[node]; ch >= 0; ch = nextSibling[ch]) {
+			if (label[ch] == c) {
+				return ch;
+			}
+			if (label[ch] > c) {
+				break; // siblings are sorted
+			}
+		}
+		return -1;
+	}
+
+	public int nodes() {
+		return label.length;
+	}
+
+	public int size() {
+		return suggestions.length;
+	}
+
+	static final Comparator<Suggestion> RANK = Comparator.comparingLong(Suggestion::getWeight).reversed()
+			.thenComparingInt(s -> s.getText().length())
+			.thenComparing(Suggestion::getText);
+
+	/** Mutable node used only while building; children sorted by character. */
+	private static final class Builder {
+		final char c;
+		final TreeMap<Character, Builder> children = new TreeMap<>();
+		int[] best = NONE;
+		int index;
+
+		Builder(char c) {
+			this.c = c;
+		}
+
+		Builder child(char ch) {
+			return children.computeIfAbsent(ch, Builder::new);
+		}
+
+		/** Adds a suggestion id reachable at or below this node. */
+		void add(int id, int k) {
+			for (int existing : best) {
+				if (existing == id) {
+					return;
+				}
+			}
+			if (best.length < k) {
+				best = Arrays.copyOf(best, best.length + 1);
+			} else if (best[best.length - 1] < id) {
+				return;
+			}
+			int i = best.length - 1;
+			while (i > 0 && best[i - 1] > id) {
+				best[i] = best[i - 1];
+				i--;
+			}
+			best[i] = id;
+		}
+
+		/** Numbers nodes breadth-first and merges each node's best into its ancestors. */
+		void collect(List<Builder> out, int k) {
+			out.add(this);
+			for (int i = 0; i < out.size(); i++) {
+				Builder b = out.get(i);
+				b.index = i;
+				out.addAll(b.children.values());
+			}
+			// children come after their parent, so walking backwards sees every subtree complete
+			for (int i = out.size() - 1; i >= 0; i--) {
+				Builder b = out.get(i);
+				for (Builder child : b.children.values()) {
+					for (int id : child.best) {
+						b.add(id, k);
+					}
+				}
+			}
+		}
+	}
+
+	/** One completion: a product name or a category, with its popularity. */
+	public static final class Suggestion {
+		public static final String PRODUCT = "product";
+		public static final String CATEGORY = "category";
+
+		private final String text;
+		private final String type;
+		private final int productId;
+		private final long weight;
+
+		public Suggestion(String text, String type, int productId, long weight) {
+			this.text = text;
+			this.type = type;
+			this.productId = productId;
+			this.weight = weight;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		/** The product for a product suggestion, 0 for a category. */
+		public int getProductId() {
+			return productId;
+		}
+
+		/** Units ordered: of the product, or of every product in the category. */
+		public long getWeight() {
+			return weight;
+		}
+	}
+}
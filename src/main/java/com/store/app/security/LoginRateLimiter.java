@@ -0,0 +1,96 @@
+package com.store.app.security;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throttles login attempts per client address and per account before any
+ * lookup or hashing happens, so a credential-stuffing bot is turned away in
+ * memory instead of reaching MySQL. Configured by {@code store.auth.rate.*}
+ * system properties; {@code store.auth.rate.enabled=false} turns it off.
+ */
+public class LoginRateLimiter {
+	private static volatile LoginRateLimiter instance;
+
+	private final TokenBucketLimiter byAddress;
+	private final TokenBucketLimiter byEmail;
+	private final LongAdder allowed = new LongAdder();
+	private final LongAdder rejectedAddress = new LongAdder();
+	private final LongAdder rejectedEmail = new LongAdder();
+
+	public LoginRateLimiter(TokenBucketLimiter byAddress, TokenBucketLimiter byEmail) {
+		this.byAddress = byAddress;
+		this.byEmail = byEmail;
+	}
+
+	/** Shared instance, or null when rate limiting is disabled. */
+	public static LoginRateLimiter getInstance() {
+		if (!Boolean.parseBoolean(System.getProperty("store.auth.rate.enabled", "true"))) {
+			return null;
+		}
+		LoginRateLimiter l = instance;
+		if (l == null) {
+			synchronized (LoginRateLimiter.class) {
+				l = instance;
+				if (l == null) {
+					int maxKeys = Integer.getInteger("store.auth.rate.maxKeys", 100_000);
+					l = new LoginRateLimiter(
+							new TokenBucketLimiter(Integer.getInteger("store.auth.rate.ip.burst", 20),
+									Integer.getInteger("store.auth.rate.ip.perMinute", 60), maxKeys),
+							new TokenBucketLimiter(Integer.getInteger("store.auth.rate.email.burst", 5),
+									Integer.getInteger("store.auth.rate.email.perMinute", 10), maxKeys));
+					instance = l;
+				}
+			}
+		}
+		return l;
+	}
+
+	/** The shared instance if something already created it, else null; never creates one. */
+	public static LoginRateLimiter peek() {
+		return instance;
+	}
+
+	/**
+	 * Takes one attempt from the address bucket and, if that passes, from the
+	 * email bucket. Returns 0 when the attempt may proceed, otherwise the
+	 * seconds to wait before retrying.
+	 */
+	public long tryAcquire(String address, String email) {
+		long wait = address == null ? 0 : byAddress.tryAcquire(address);
+		if (wait > 0) {
+			rejectedAddress.increment();
+			return seconds(wait);
+		}
+		if (email != null) {
+			wait = byEmail.tryAcquire(email.trim().toLowerCase(Locale.ROOT));
+			if (wait > 0) {
+				rejectedEmail.increment();
+				return seconds(wait);
+			}
+		}
+		allowed.increment();
+		return 0;
+	}
+
+	private static long seconds(long nanos) {
+		return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+	}
+
+	public long getAllowed() {
+		return allowed.sum();
+	}
+
+	public long getRejectedAddress() {
+		return rejectedAddress.sum();
+	}
+
+	public long getRejectedEmail() {
+		return rejectedEmail.sum();
+	}
+
+	public int getTrackedKeys() {
+		return byAddress.size() + byEmail.size();
+	}
+}
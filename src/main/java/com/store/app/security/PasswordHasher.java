@@ -0,0 +1,105 @@
+package com.store.app.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Salted PBKDF2-HMAC-SHA256 password hashes, stored as
+ * {@code pbkdf2$<iterations>$<salt>$<hash>} (unpadded base64). The iteration
+ * count travels with the hash, so the cost can be raised later: older hashes
+ * report {@link #needsRehash(String)} and are replaced on the next login.
+ * <p>
+ * Values without that prefix are treated as legacy plaintext passwords and
+ * compared in constant time.
+ */
+public class PasswordHasher {
+	public static final int DEFAULT_ITERATIONS = 210_000;
+	private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+	private static final String PREFIX = "pbkdf2$";
+	private static final int SALT_BYTES = 16;
+	private static final int HASH_BITS = 256;
+
+	private final int iterations;
+	private final SecureRandom random = new SecureRandom();
+
+	public PasswordHasher(int iterations) {
+		if (iterations < 1) {
+			throw new IllegalArgumentException("Invalid iteration count: " + iterations);
+		}
+		this.iterations = iterations;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public String hash(String password) {
+		byte[] salt = new byte[SALT_BYTES];
+		random.nextBytes(salt);
+		Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+		return PREFIX + iterations + '$' + b64.encodeToString(salt) + '$'
+				+ b64.encodeToString(pbkdf2(password, salt, iterations, HASH_BITS));
+	}
+
+	/** Checks a password against a stored hash, or against a legacy plaintext value. */
+	public boolean verify(String password, String stored) {
+		if (password == null || stored == null) {
+			return false;
+		}
+		if (!stored.startsWith(PREFIX)) {
+			return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+					stored.getBytes(StandardCharsets.UTF_8));
+		}
+		String[] parts = stored.split("\\$");
+		if (parts.length != 4) {
+			return false;
+		}
+		try {
+			int n = Integer.parseInt(parts[1]);
+			byte[] salt = Base64.getDecoder().decode(parts[2]);
+			byte[] expected = Base64.getDecoder().decode(parts[3]);
+			if (n < 1 || expected.length == 0) {
+				return false;
+			}
+			return MessageDigest.isEqual(pbkdf2(password, salt, n, expected.length * 8), expected);
+		} catch (IllegalArgumentException e) {
+			// unparsable iteration count or base64: never matches
+			return false;
+		}
+	}
+
+	/** True for plaintext values and for hashes made with fewer iterations than this hasher uses. */
+	public boolean needsRehash(String stored) {
+		if (!isHashed(stored)) {
+			return true;
+		}
+		String[] parts = stored.split("\\$");
+		try {
+			return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+		} catch (NumberFormatException e) {
+			return true;
+		}
+	}
+
+	public static boolean isHashed(String stored) {
+		return stored != null && stored.startsWith(PREFIX);
+	}
+
+	private static byte[] pbkdf2(String password, byte[] salt, int iterations, int bits) {
+		PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, bits);
+		try {
+			return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+		} catch (GeneralSecurityException e) {
+			// PBKDF2WithHmacSHA256 is mandatory on every Java 8+ runtime
+			throw new IllegalStateException(ALGORITHM + " unavailable", e);
+		} finally {
+			spec.clearPassword();
+		}
+	}
+}
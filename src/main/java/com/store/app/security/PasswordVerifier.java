@@ -0,0 +1,180 @@
+package com.store.app.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.store.app.metrics.LatencyHistogram;
+
+/**
+ * Runs password hashing on a small dedicated pool with a bounded queue.
+ * <p>
+ * PBKDF2 is deliberately CPU-bound; doing it on the request threads would let
+ * a login burst take every core away from page rendering. The caller still
+ * waits for the result, but at most {@code store.auth.hashThreads} hashes run
+ * at once. When the queue is full, or the wait exceeds
+ * {@code store.auth.hashTimeoutMillis}, {@link #verify(String, String)} throws
+ * {@link RejectedExecutionException} so the caller can answer 503.
+ */
+public class PasswordVerifier {
+	private static volatile PasswordVerifier instance;
+
+	private final PasswordHasher hasher;
+	private final Executor executor;
+	private final long timeoutMillis;
+	private final LongAdder matches = new LongAdder();
+	private final LongAdder mismatches = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder upgrades = new LongAdder();
+	private final LatencyHistogram hashTime = new LatencyHistogram();
+
+	public PasswordVerifier(PasswordHasher hasher, Executor executor, long timeoutMillis) {
+		this.hasher = hasher;
+		this.executor = executor;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/** Shared instance configured by {@code store.auth.*} system properties. */
+	public static PasswordVerifier getInstance() {
+		PasswordVerifier v = instance;
+		if (v == null) {
+			synchronized (PasswordVerifier.class) {
+				v = instance;
+				if (v == null) {
+					int threads = Integer.getInteger("store.auth.hashThreads",
+							Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+					int queueLimit = Integer.getInteger("store.auth.hashQueueLimit", 100);
+					AtomicInteger n = new AtomicInteger();
+					ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+							new ArrayBlockingQueue<>(queueLimit), r -> {
+								Thread t = new Thread(r, "store-password-" + n.incrementAndGet());
+								t.setDaemon(true);
+								return t;
+							});
+					pool.allowCoreThreadTimeOut(true);
+					v = new PasswordVerifier(
+							new PasswordHasher(Integer.getInteger("store.auth.pbkdf2Iterations",
+									PasswordHasher.DEFAULT_ITERATIONS)),
+							pool, Long.getLong("store.auth.hashTimeoutMillis", 5_000));
+					instance = v;
+				}
+			}
+		}
+		return v;
+	}
+
+	/** The shared instance if something already created it, else null; never creates one. */
+	public static PasswordVerifier peek() {
+		return instance;
+	}
+
+	public static synchronized void shutdown() {
+		if (instance != null && instance.executor instanceof ThreadPoolExecutor) {
+			((ThreadPoolExecutor) instance.executor).shutdown();
+		}
+		instance = null;
+	}
+
+	/** Outcome of a check; {@link #getUpgradedHash()} is set when the stored value should be replaced. */
+	public static final class Result {
+		private static final Result MISMATCH = new Result(false, null);
+
+		private final boolean matched;
+		private final String upgradedHash;
+
+		Result(boolean matched, String upgradedHash) {
+			this.matched = matched;
+			this.upgradedHash = upgradedHash;
+		}
+
+		public boolean isMatched() {
+			return matched;
+		}
+
+		public String getUpgradedHash() {
+			return upgradedHash;
+		}
+	}
+
+	/**
+	 * Checks the password on the hashing pool. A match against a plaintext or
+	 * weaker stored value also computes its replacement hash.
+	 *
+	 * @throws RejectedExecutionException if the pool is saturated or the check timed out
+	 */
+	public Result verify(String password, String stored) {
+		FutureTask<Result> task = new FutureTask<>(() -> check(password, stored));
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw e;
+		}
+		try {
+			return task.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			task.cancel(false);
+			rejected.increment();
+			throw new RejectedExecutionException("Password check timed out after " + timeoutMillis + " ms");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			task.cancel(false);
+			throw new RejectedExecutionException("Interrupted while checking password");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Password check failed", e.getCause());
+		}
+	}
+
+	private Result check(String password, String stored) {
+		long start = System.nanoTime();
+		try {
+			if (!hasher.verify(password, stored)) {
+				mismatches.increment();
+				return Result.MISMATCH;
+			}
+			matches.increment();
+			if (hasher.needsRehash(stored)) {
+				upgrades.increment();
+				return new Result(true, hasher.hash(password));
+			}
+			return new Result(true, null);
+		} finally {
+			hashTime.record(System.nanoTime() - start);
+		}
+	}
+
+	public PasswordHasher getHasher() {
+		return hasher;
+	}
+
+	public long getMatches() {
+		return matches.sum();
+	}
+
+	public long getMismatches() {
+		return mismatches.sum();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public long getUpgrades() {
+		return upgrades.sum();
+	}
+
+	public LatencyHistogram.Snapshot getHashTime() {
+		return hashTime.snapshot();
+	}
+
+	public int getQueued() {
+		return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+	}
+}
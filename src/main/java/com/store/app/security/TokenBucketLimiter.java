@@ -0,0 +1,126 @@
+package com.store.app.security;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by string, held in lock stripes.
+ * <p>
+ * Each key gets {@code burst} tokens that refill at {@code perMinute}; an
+ * attempt takes one. Keys hash to one of a fixed number of stripes, each a
+ * plain map behind its own monitor, so unrelated keys rarely contend and an
+ * acquire is a hash lookup plus a little arithmetic. A bucket that has refilled
+ * completely is the same as no bucket, so when a stripe grows past its share
+ * of {@code maxKeys} those buckets are dropped first, then the fullest bucket
+ * that still has a token. A bucket that is out of tokens is never dropped,
+ * since that would hand its key a fresh burst; while a stripe holds only
+ * such buckets, new keys in it are refused as if they were limited too.
+ */
+public class TokenBucketLimiter {
+	private static final int STRIPES = 64;
+
+	private final int burst;
+	private final double tokensPerNano;
+	private final int maxKeysPerStripe;
+	private final LongSupplier clock;
+	private final Stripe[] stripes = new Stripe[STRIPES];
+
+	public TokenBucketLimiter(int burst, int perMinute, int maxKeys) {
+		this(burst, perMinute, maxKeys, System::nanoTime);
+	}
+
+	TokenBucketLimiter(int burst, int perMinute, int maxKeys, LongSupplier clock) {
+		if (burst < 1 || perMinute < 1) {
+			throw new IllegalArgumentException("Invalid rate: burst=" + burst + ", perMinute=" + perMinute);
+		}
+		this.burst = burst;
+		this.tokensPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+		this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+		this.clock = clock;
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe();
+		}
+	}
+
+	/** Takes a token for the key. Returns 0 if one was available, otherwise the nanos until the next one. */
+	public long tryAcquire(String key) {
+		int h = key.hashCode();
+		Stripe stripe = stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+		long now = clock.getAsLong();
+		synchronized (stripe) {
+			Bucket b = stripe.buckets.get(key);
+			if (b == null) {
+				if (stripe.buckets.size() >= maxKeysPerStripe && !stripe.makeRoom(now)) {
+					return (long) Math.ceil(1 / tokensPerNano);
+				}
+				b = new Bucket(burst, now);
+				stripe.buckets.put(key, b);
+			} else {
+				b.refill(now);
+			}
+			if (b.tokens >= 1) {
+				b.tokens -= 1;
+				return 0;
+			}
+			return (long) Math.ceil((1 - b.tokens) / tokensPerNano);
+		}
+	}
+
+	/** Tracked keys; for metrics, takes every stripe lock in turn. */
+	public int size() {
+		int n = 0;
+		for (Stripe s : stripes) {
+			synchronized (s) {
+				n += s.buckets.size();
+			}
+		}
+		return n;
+	}
+
+	private final class Stripe {
+		final Map<String, Bucket> buckets = new HashMap<>();
+
+		/** Drops refilled buckets, or else the fullest one not yet limited; false if every key is limited. */
+		boolean makeRoom(long now) {
+			Bucket fullest = null;
+			for (Iterator<Bucket> it = buckets.values().iterator(); it.hasNext();) {
+				Bucket b = it.next();
+				b.refill(now);
+				if (b.tokens >= burst) {
+					it.remove();
+				} else if (b.tokens >= 1 && (fullest == null || b.tokens > fullest.tokens)) {
+					fullest = b;
+				}
+			}
+			if (buckets.size() < maxKeysPerStripe) {
+				return true;
+			}
+			if (fullest == null) {
+				return false;
+			}
+			buckets.values().remove(fullest);
+			return true;
+		}
+	}
+
+	private final class Bucket {
+		double tokens;
+		long lastNanos;
+
+		Bucket(double tokens, long now) {
+			this.tokens = tokens;
+			this.lastNanos = now;
+		}
+
+		void refill(long now) {
+			long elapsed = now - lastNanos;
+			if (elapsed > 0) {
+				tokens = Math.min(burst, tokens + elapsed * tokensPerNano);
+				lastNanos = now;
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/** Headers, conditional GET and compression shared by the {@code /api/*} servlets. */
+final class ApiResponse {
+	static final String JSON = "application/json;charset=UTF-8";
+	private static final int BUFFER = 8192;
+
+	private ApiResponse() {
+	}
+
+	/**
+	 * Sends {@code W/<tag>} as a weak ETag with the given Cache-Control, and
+	 * answers 304 when the client already holds it. {@code tag} must be
+	 * quoted. Returns true when the response is complete.
+	 */
+	static boolean notModified(HttpServletRequest request, HttpServletResponse response, String tag,
+			String cacheControl) {
+		response.setHeader("ETag", "W/" + tag);
+		response.setHeader("Cache-Control", cacheControl);
+		response.setHeader("Vary", "Accept-Encoding");
+		if (StaticResourceServlet.matches(request.getHeader("If-None-Match"), tag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Starts a JSON body, gzipped when the client accepts it. Closing the
+	 * writer finishes the response; after a failure, leave it open and call
+	 * {@link #failed(HttpServletResponse, String, Exception)} instead.
+	 */
+	static Writer open(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setContentType(JSON);
+		if (StaticResourceServlet.accepts(request.getHeader("Accept-Encoding"), "gzip")) {
+			response.setHeader("Content-Encoding", "gzip");
+			return new BufferedWriter(new OutputStreamWriter(
+					new GZIPOutputStream(response.getOutputStream(), BUFFER), StandardCharsets.UTF_8), BUFFER);
+		}
+		return response.getWriter();
+	}
+
+	/**
+	 * Reports a failure that happened while streaming: a 500 if nothing was
+	 * sent yet, otherwise the body stays truncated, which clients detect as
+	 * invalid JSON.
+	 */
+	static void failed(HttpServletResponse response, String what, Exception e) throws IOException {
+		System.err.println(what + " - " + e.getMessage());
+		if (!response.isCommitted()) {
+			response.reset();
+			error(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, what);
+		}
+	}
+
+	static void error(HttpServletResponse response, int status, String message) throws IOException {
+		response.setStatus(status);
+		response.setContentType(JSON);
+		response.setHeader("Cache-Control", "no-store");
+		try (PrintWriter out = response.getWriter()) {
+			new JsonWriter(out).beginObject().name("error").value(message).endObject();
+		}
+	}
+
+	static int intParameter(HttpServletRequest request, String name, int fallback) {
+		String value = request.getParameter(name);
+		if (value == null) {
+			return fallback;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return fallback;
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.ServletContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-hashed names for the webapp's static files, computed once at
+ * startup.
+ * <p>
+ * Every file under {@link #ROOTS} gets a fingerprinted path such as
+ * {@code product-images/image.3f2a9c0b1d.jpg}; pages link to it through
+ * {@link #url(String)} and {@link StaticResourceServlet} serves it with a
+ * one-year immutable lifetime, since a changed file gets a new name. Text
+ * types are gzipped ahead of time, and {@code .gz} / {@code .br} files
+ * placed next to an asset are used as its precompressed variants.
+ * <p>
+ * Until {@link #init(ServletContext)} has run, or when the WAR is not
+ * unpacked, the manifest is empty and {@link #url(String)} returns the plain
+ * path, which the container's default servlet still serves.
+ */
+public class AssetManifest {
+	static final String[] ROOTS = { "product-images" };
+	static final String PREFIX = "assets/";
+	private static final int HASH_CHARS = 10;
+	private static final AssetManifest EMPTY = new AssetManifest(Collections.emptyMap());
+
+	private static volatile AssetManifest instance = EMPTY;
+
+	/** Both the plain and the fingerprinted path of every asset. */
+	private final Map<String, Asset> byPath;
+
+	AssetManifest(Map<String, Asset> byPath) {
+		this.byPath = byPath;
+	}
+
+	public static AssetManifest getInstance() {
+		return instance;
+	}
+
+	/** Fingerprints the assets of the unpacked webapp. */
+	public static void init(ServletContext context) {
+		String root = context.getRealPath("/");
+		if (root == null) {
+			System.err.println("Webapp is not unpacked, static assets are served without fingerprints");
+			return;
+		}
+		try {
+			install(build(Paths.get(root), ROOTS, context::getMimeType));
+		} catch (IOException e) {
+			System.err.println("Could not fingerprint static assets - " + e.getMessage());
+		}
+	}
+
+	static void install(AssetManifest manifest) {
+		instance = manifest == null ? EMPTY : manifest;
+	}
+
+	static AssetManifest build(Path webRoot, String[] roots, Function<String, String> mimeTypes) throws IOException {
+		Map<String, Asset> byPath = new HashMap<>();
+		for (String root : roots) {
+			Path dir = webRoot.resolve(root);
+			if (!Files.isDirectory(dir)) {
+				continue;
+			}
+			List<Path> files;
+			try (Stream<Path> walk = Files.walk(dir)) {
+				files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+			}
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				if (name.endsWith(".gz") || name.endsWith(".br")) {
+					continue;
+				}
+				String path = webRoot.relativize(file).toString().replace(File.separatorChar, '/');
+				Asset a = asset(file, path, mimeTypes.apply(path));
+				byPath.put(path, a);
+				byPath.put(a.hashedPath, a);
+			}
+		}
+		return new AssetManifest(byPath);
+	}
+
+	private static Asset asset(Path file, String path, String contentType) throws IOException {
+		byte[] content = Files.readAllBytes(file);
+		String hash = sha256Hex(content).substring(0, HASH_CHARS);
+		int dot = path.lastIndexOf('.');
+		int slash = path.lastIndexOf('/');
+		String hashedPath = dot > slash ? path.substring(0, dot) + '.' + hash + path.substring(dot)
+				: path + '.' + hash;
+		if (contentType == null) {
+			contentType = "application/octet-stream";
+		}
+		Path gz = sibling(file, ".gz");
+		byte[] gzBytes = null;
+		if (gz == null && isCompressible(contentType)) {
+			byte[] compressed = gzip(content);
+			// small or already dense files can grow
+			if (compressed.length < content.length) {
+				gzBytes = compressed;
+			}
+		}
+		return new Asset(path, hashedPath, hash, contentType, file, content.length, sibling(file, ".br"), gz,
+				gzBytes);
+	}
+
+	private static Path sibling(Path file, String suffix) {
+		Path p = file.resolveSibling(file.getFileName() + suffix);
+		return Files.isRegularFile(p) ? p : null;
+	}
+
+	static boolean isCompressible(String contentType) {
+		return contentType.startsWith("text/") || contentType.contains("javascript") || contentType.contains("json")
+				|| contentType.contains("xml") || contentType.equals("image/svg+xml");
+	}
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 64);
+		try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+			gz.write(content);
+		}
+		return out.toByteArray();
+	}
+
+	private static String sha256Hex(byte[] content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 unavailable", e);
+		}
+	}
+
+	/** Page-relative URL of an asset: fingerprinted when known, otherwise the path itself. */
+	public String url(String path) {
+		Asset a = byPath.get(path);
+		return a == null ? path : PREFIX + a.hashedPath;
+	}
+
+	/** Asset for a plain or fingerprinted path, or null. */
+	Asset lookup(String path) {
+		return byPath.get(path);
+	}
+
+	int size() {
+		return byPath.size() / 2;
+	}
+
+	static final class Asset {
+		final String path;
+		final String hashedPath;
+		final String hash;
+		final String contentType;
+		final Path file;
+		final long length;
+		final Path brFile;
+		final Path gzFile;
+		final byte[] gzBytes;
+
+		Asset(String path, String hashedPath, String hash, String contentType, Path file, long length, Path brFile,
+				Path gzFile, byte[] gzBytes) {
+			this.path = path;
+			this.hashedPath = hashedPath;
+			this.hash = hash;
+			this.contentType = contentType;
+			this.file = file;
+			this.length = length;
+			this.brFile = brFile;
+			this.gzFile = gzFile;
+			this.gzBytes = gzBytes;
+		}
+
+		boolean hasVariants() {
+			return brFile != null || gzFile != null || gzBytes != null;
+		}
+	}
+}
@@ -7,11 +7,11 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.sql.SQLException;
+import java.util.concurrent.RejectedExecutionException;
 
-import com.store.app.connection.dbConnection;
-import com.store.app.dao.UserDao;
+import com.store.app.dao.Daos;
 import com.store.app.model.User;
+import com.store.app.security.LoginRateLimiter;
 
 
 @WebServlet("/Auth")
@@ -45,25 +45,33 @@ public class Auth extends HttpServlet {
 		//login
 		String email = request.getParameter("login-email");
 		String password = request.getParameter("login-password");
-	    
+
+		LoginRateLimiter limiter = LoginRateLimiter.getInstance();
+		long retryAfter = limiter == null ? 0 : limiter.tryAcquire(request.getRemoteAddr(), email);
+		if (retryAfter > 0) {
+			response.setStatus(429);
+			response.setHeader("Retry-After", Long.toString(retryAfter));
+			response.getWriter().print("Too many login attempts, please try again later");
+			return;
+		}
+
+		User user;
 		try {
-			UserDao userdao = new UserDao(dbConnection.getConnection());
-			User user = userdao.userLogin(email, password);
-			if(user != null) {
-				request.getSession().setAttribute("auth", user);
-				response.sendRedirect("home.jsp");
-			}else {
-				PrintWriter out = response.getWriter();
-				out.print("USER NO fo");
-				
-			}
+			user = Daos.users().userLogin(email, password);
+		} catch (RejectedExecutionException e) {
+			// too many logins being hashed at once
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			response.setHeader("Retry-After", "1");
+			response.getWriter().print("Login is busy, please try again in a moment");
+			return;
+		}
+		if(user != null) {
+			request.getSession().setAttribute("auth", user);
+			response.sendRedirect("home.jsp");
+		}else {
+			PrintWriter out = response.getWriter();
+			out.print("USER NO fo");
 			
-		} catch (ClassNotFoundException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (SQLException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
 		}
 	
 	}
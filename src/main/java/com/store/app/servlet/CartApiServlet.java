@@ -0,0 +1,63 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import com.store.app.dao.CatalogCache;
+import com.store.app.model.Cart;
+import com.store.app.model.PricedCart;
+import com.store.app.model.SessionCart;
+
+/**
+ * The session cart as JSON, priced like cart.jsp. The body is small, so it
+ * is built first and its checksum serves as the ETag.
+ */
+@WebServlet("/api/cart")
+public class CartApiServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		HttpSession session = request.getSession(false);
+		SessionCart cart = session == null ? null : (SessionCart) session.getAttribute("cart-session");
+
+		StringWriter body = new StringWriter(256);
+		JsonWriter json = new JsonWriter(body);
+		json.beginObject().name("lines").beginArray();
+		double total = 0;
+		if (cart != null && !cart.isEmpty()) {
+			PricedCart priced = CatalogCache.getInstance().priceCart(cart);
+			for (Cart c : priced.getLines()) {
+				json.beginObject();
+				json.name("id").value(c.getId());
+				json.name("name").value(c.getName());
+				json.name("category").value(c.getCategory());
+				json.name("quantity").value(c.getQuantity());
+				json.name("price").value(c.getPrice());
+				json.endObject();
+			}
+			total = priced.getTotal();
+		}
+		json.endArray().name("total").value(total).endObject();
+
+		String text = body.toString();
+		CRC32 crc = new CRC32();
+		crc.update(text.getBytes(StandardCharsets.UTF_8));
+		String tag = "\"c" + Long.toHexString(crc.getValue()) + '"';
+		if (ApiResponse.notModified(request, response, tag, "private, no-cache")) {
+			return;
+		}
+		try (Writer out = ApiResponse.open(request, response)) {
+			out.write(text);
+		}
+	}
+}
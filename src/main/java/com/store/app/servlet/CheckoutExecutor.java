@@ -0,0 +1,211 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.store.app.metrics.DbTime;
+
+/**
+ * Runs order submissions off the connector threads.
+ * <p>
+ * The request is put in async mode and the work is handed to a fixed pool
+ * with a bounded queue, so a Tomcat worker is only held while the order is
+ * built, not during the database round trips. When the queue is full the
+ * client gets a 503 with {@code Retry-After} instead of piling up more work.
+ * If {@code store.checkout.timeoutMillis} passes first, the client is told so
+ * and a checkout still waiting in the queue is dropped; whichever of the
+ * worker and the timeout finishes the request first owns it, and the other
+ * leaves the response alone. Configured by {@code store.checkout.*} system
+ * properties; with
+ * {@code store.checkout.async=false} the work runs on the request thread as
+ * before.
+ */
+public class CheckoutExecutor {
+	private static volatile CheckoutExecutor instance;
+
+	private final Executor executor;
+	private final boolean enabled;
+	private final long timeoutMillis;
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+
+	CheckoutExecutor(Executor executor, boolean enabled, long timeoutMillis) {
+		this.executor = executor;
+		this.enabled = enabled;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public static CheckoutExecutor getInstance() {
+		CheckoutExecutor c = instance;
+		if (c == null) {
+			synchronized (CheckoutExecutor.class) {
+				c = instance;
+				if (c == null) {
+					int threads = Integer.getInteger("store.checkout.threads", 10);
+					int queueLimit = Integer.getInteger("store.checkout.queueLimit", 500);
+					AtomicInteger n = new AtomicInteger();
+					ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+							new ArrayBlockingQueue<>(queueLimit), r -> {
+								Thread t = new Thread(r, "store-checkout-" + n.incrementAndGet());
+								t.setDaemon(true);
+								return t;
+							});
+					pool.allowCoreThreadTimeOut(true);
+					c = new CheckoutExecutor(pool,
+							Boolean.parseBoolean(System.getProperty("store.checkout.async", "true")),
+							Long.getLong("store.checkout.timeoutMillis", 30_000));
+					instance = c;
+				}
+			}
+		}
+		return c;
+	}
+
+	/** The shared instance if something already created it, else null; never creates one. */
+	public static CheckoutExecutor peek() {
+		return instance;
+	}
+
+	public static synchronized void shutdown() {
+		if (instance != null && instance.executor instanceof ThreadPoolExecutor) {
+			((ThreadPoolExecutor) instance.executor).shutdown();
+		}
+		instance = null;
+	}
+
+	/** Work that writes the checkout outcome to the response. */
+	public interface CheckoutTask {
+		void run(HttpServletResponse response) throws IOException;
+	}
+
+	/**
+	 * Runs the task asynchronously when the request supports it, otherwise on
+	 * the calling thread. The response must not be written by the caller
+	 * afterwards.
+	 */
+	public void run(HttpServletRequest request, HttpServletResponse response, CheckoutTask task) throws IOException {
+		if (!enabled || !request.isAsyncSupported()) {
+			task.run(response);
+			return;
+		}
+		AsyncContext async = request.startAsync();
+		async.setTimeout(timeoutMillis);
+		// set by whoever ends the request: the worker, the timeout or a container error
+		AtomicBoolean finished = new AtomicBoolean();
+		AtomicBoolean started = new AtomicBoolean();
+		async.addListener(new AsyncListener() {
+			@Override
+			public void onTimeout(AsyncEvent event) throws IOException {
+				if (finished.compareAndSet(false, true)) {
+					timedOut.increment();
+					timedOut(async, started.get());
+				}
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+				// the container completes the request itself
+				finished.set(true);
+			}
+
+			@Override
+			public void onComplete(AsyncEvent event) {
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+			}
+		});
+		try {
+			executor.execute(() -> {
+				if (finished.get()) {
+					// timed out in the queue: the client was told nothing was placed
+					return;
+				}
+				started.set(true);
+				DbTime.reset();
+				try {
+					task.run((HttpServletResponse) async.getResponse());
+				} catch (IOException | RuntimeException e) {
+					e.printStackTrace();
+					if (!finished.get()) {
+						failed(async);
+					}
+				} finally {
+					if (finished.compareAndSet(false, true)) {
+						async.getRequest().setAttribute(DbTime.REQUEST_ATTRIBUTE, DbTime.get());
+						async.complete();
+					}
+				}
+			});
+			submitted.increment();
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			response.setHeader("Retry-After", "1");
+			response.setContentType("text/html;charset=UTF-8");
+			try (PrintWriter out = response.getWriter()) {
+				out.println("<h3 style='color:crimson; text-align: center'>The store is very busy, please try again in a moment. <a href='cart.jsp'>GO to Cart Page</a></h3>");
+			}
+			async.complete();
+		}
+	}
+
+	private static void timedOut(AsyncContext async, boolean started) throws IOException {
+		HttpServletResponse response = (HttpServletResponse) async.getResponse();
+		if (!response.isCommitted()) {
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			response.setContentType("text/html;charset=UTF-8");
+			try (PrintWriter out = response.getWriter()) {
+				out.println(started
+						? "<h3 style='color:crimson; text-align: center'>Your order is taking longer than usual. Please check <a href='orders.jsp'>your orders</a> before trying again.</h3>"
+						: "<h3 style='color:crimson; text-align: center'>The store is very busy, nothing was ordered. Please try again in a moment. <a href='cart.jsp'>GO to Cart Page</a></h3>");
+			}
+		}
+		async.complete();
+	}
+
+	private static void failed(AsyncContext async) {
+		HttpServletResponse response = (HttpServletResponse) async.getResponse();
+		if (!response.isCommitted()) {
+			response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	public long getSubmitted() {
+		return submitted.sum();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	/** Checkouts answered by the async timeout instead of the worker. */
+	public long getTimedOut() {
+		return timedOut.sum();
+	}
+
+	/** Checkouts waiting for a thread, or 0 when not backed by a pool. */
+	public int getQueued() {
+		return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+	}
+
+	public int getActive() {
+		return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getActiveCount() : 0;
+	}
+}
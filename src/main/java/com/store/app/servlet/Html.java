@@ -0,0 +1,38 @@
+package com.store.app.servlet;
+
+/** HTML escaping for markup built outside JSPs. */
+final class Html {
+
+	private Html() {
+	}
+
+	/** Escapes text for element content and quoted attribute values. */
+	static StringBuilder escape(StringBuilder sb, String text) {
+		if (text == null) {
+			return sb;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+			case '<':
+				sb.append("&lt;");
+				break;
+			case '>':
+				sb.append("&gt;");
+				break;
+			case '&':
+				sb.append("&amp;");
+				break;
+			case '"':
+				sb.append("&quot;");
+				break;
+			case '\'':
+				sb.append("&#39;");
+				break;
+			default:
+				sb.append(c);
+			}
+		}
+		return sb;
+	}
+}
@@ -0,0 +1,91 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Resized product images: {@code /images/w<width>/<asset path>}, where the
+ * asset path is a plain or fingerprinted {@link AssetManifest} path.
+ * <p>
+ * Variants come from the {@link ThumbnailCache}. When it cannot produce one
+ * in time, or the source is not an image it can read, the client is
+ * redirected to the original asset, which is still correct, only larger.
+ */
+@WebServlet("/images/*")
+public class ImageServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	static final String PREFIX = "images/";
+
+	/** Page-relative URL of the variant for {@code width}; the plain asset URL if the image is unknown. */
+	public static String url(String assetPath, int width) {
+		AssetManifest.Asset a = AssetManifest.getInstance().lookup(assetPath);
+		if (a == null) {
+			return assetPath;
+		}
+		return PREFIX + "w" + ThumbnailCache.bucket(width) + '/' + a.hashedPath;
+	}
+
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		String path = request.getPathInfo();
+		int slash = path == null ? -1 : path.indexOf('/', 1);
+		if (slash < 0 || !path.startsWith("/w")) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		int width;
+		try {
+			width = Integer.parseInt(path.substring(2, slash));
+		} catch (NumberFormatException e) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		String assetPath = path.substring(slash + 1);
+		AssetManifest.Asset asset = AssetManifest.getInstance().lookup(assetPath);
+		if (asset == null || width <= 0) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		int bucket = ThumbnailCache.bucket(width);
+		String etag = "\"" + asset.hash + "-w" + bucket + "\"";
+		String cacheControl = assetPath.equals(asset.hashedPath) ? StaticResourceServlet.IMMUTABLE : "no-cache";
+		// the ETag is known before rendering, so revalidation never costs a resize
+		if (StaticResourceServlet.matches(request.getHeader("If-None-Match"), etag)) {
+			response.setHeader("ETag", etag);
+			response.setHeader("Cache-Control", cacheControl);
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		ThumbnailCache cache = ThumbnailCache.getInstance();
+		Path thumb = null;
+		if (cache != null) {
+			try {
+				thumb = cache.get(asset.file, asset.hash, bucket);
+			} catch (RejectedExecutionException e) {
+				// busy: the original is better than an error
+			} catch (IOException e) {
+				System.err.println("Could not resize " + assetPath + " - " + e.getMessage());
+			}
+		}
+		if (thumb == null) {
+			response.setHeader("Cache-Control", "no-store");
+			response.sendRedirect(request.getContextPath() + "/" + AssetManifest.PREFIX + asset.hashedPath);
+			return;
+		}
+		long length = Files.size(thumb);
+		response.setHeader("ETag", etag);
+		response.setHeader("Cache-Control", cacheControl);
+		response.setContentType("image/jpeg");
+		response.setContentLengthLong(length);
+		StaticResourceServlet.sendFile(request, response, thumb, length);
+	}
+}
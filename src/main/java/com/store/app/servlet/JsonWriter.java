@@ -0,0 +1,163 @@
+package com.store.app.servlet;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streams JSON to a {@link Writer} without building a tree first. Commas are
+ * inserted automatically; the caller is responsible for balancing
+ * {@code begin}/{@code end} calls and for naming every member of an object.
+ */
+public class JsonWriter {
+	private static final int MAX_DEPTH = 32;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final Writer out;
+	/** Whether the container at each depth already holds a value. */
+	private final boolean[] nonEmpty = new boolean[MAX_DEPTH];
+	private int depth;
+	private boolean afterName;
+
+	public JsonWriter(Writer out) {
+		this.out = out;
+	}
+
+	public JsonWriter beginObject() throws IOException {
+		return open('{');
+	}
+
+	public JsonWriter endObject() throws IOException {
+		return close('}');
+	}
+
+	public JsonWriter beginArray() throws IOException {
+		return open('[');
+	}
+
+	public JsonWriter endArray() throws IOException {
+		return close(']');
+	}
+
+	public JsonWriter name(String name) throws IOException {
+		separator();
+		string(name);
+		out.write(':');
+		afterName = true;
+		return this;
+	}
+
+	public JsonWriter value(String value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		separator();
+		string(value);
+		return this;
+	}
+
+	public JsonWriter value(long value) throws IOException {
+		separator();
+		out.write(Long.toString(value));
+		return this;
+	}
+
+	/** NaN and infinities have no JSON form and are written as null. */
+	public JsonWriter value(double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return nullValue();
+		}
+		separator();
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			out.write(Long.toString((long) value));
+		} else {
+			out.write(Double.toString(value));
+		}
+		return this;
+	}
+
+	public JsonWriter value(boolean value) throws IOException {
+		separator();
+		out.write(value ? "true" : "false");
+		return this;
+	}
+
+	public JsonWriter nullValue() throws IOException {
+		separator();
+		out.write("null");
+		return this;
+	}
+
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	private JsonWriter open(char c) throws IOException {
+		separator();
+		if (depth == MAX_DEPTH) {
+			throw new IllegalStateException("JSON nested deeper than " + MAX_DEPTH);
+		}
+		out.write(c);
+		nonEmpty[depth++] = false;
+		return this;
+	}
+
+	private JsonWriter close(char c) throws IOException {
+		if (depth == 0) {
+			throw new IllegalStateException("Nothing to close");
+		}
+		depth--;
+		out.write(c);
+		return this;
+	}
+
+	private void separator() throws IOException {
+		if (afterName) {
+			afterName = false;
+			return;
+		}
+		if (depth > 0) {
+			if (nonEmpty[depth - 1]) {
+				out.write(',');
+			}
+			nonEmpty[depth - 1] = true;
+		}
+	}
+
+	private void string(String s) throws IOException {
+		out.write('"');
+		int start = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			String escaped;
+			switch (c) {
+			case '"':
+				escaped = "\\\"";
+				break;
+			case '\\':
+				escaped = "\\\\";
+				break;
+			case '\n':
+				escaped = "\\n";
+				break;
+			case '\r':
+				escaped = "\\r";
+				break;
+			case '\t':
+				escaped = "\\t";
+				break;
+			default:
+				// "</" would let a JSON string close a script element it is embedded in
+				if (c < 0x20 || c == '\u2028' || c == '\u2029' || (c == '/' && i > 0 && s.charAt(i - 1) == '<')) {
+					escaped = "\\u" + HEX[c >> 12] + HEX[(c >> 8) & 0xF] + HEX[(c >> 4) & 0xF] + HEX[c & 0xF];
+				} else {
+					continue;
+				}
+			}
+			out.write(s, start, i - start);
+			out.write(escaped);
+			start = i + 1;
+		}
+		out.write(s, start, s.length() - start);
+		out.write('"');
+	}
+}
@@ -0,0 +1,92 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+import com.store.app.metrics.DbTime;
+import com.store.app.metrics.EndpointStats;
+import com.store.app.metrics.RequestMetrics;
+
+/**
+ * Times every request per servlet path: count, failures, in-flight gauge,
+ * latency and database time. Synchronous requests are recorded without
+ * allocating; async ones are recorded when they complete, adding the database
+ * time their worker thread reported.
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class MetricsFilter implements Filter {
+
+	@Override
+	public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+			throws IOException, ServletException {
+		HttpServletRequest request = (HttpServletRequest) req;
+		HttpServletResponse response = (HttpServletResponse) res;
+		EndpointStats stats = RequestMetrics.endpoint(request.getServletPath());
+		long start = System.nanoTime();
+		stats.begin();
+		DbTime.reset();
+		boolean failed = true;
+		try {
+			chain.doFilter(req, res);
+			failed = false;
+		} finally {
+			long dbNanos = DbTime.get();
+			if (!failed && request.isAsyncStarted()) {
+				request.getAsyncContext().addListener(new AsyncCompletion(stats, start, dbNanos, request, response));
+			} else {
+				stats.end(System.nanoTime() - start, dbNanos, failed || response.getStatus() >= 500);
+			}
+		}
+	}
+
+	/** Records an async request once, whichever way it finishes. */
+	private static final class AsyncCompletion implements AsyncListener {
+		private final EndpointStats stats;
+		private final long start;
+		private final long dbNanos;
+		private final HttpServletRequest request;
+		private final HttpServletResponse response;
+		private boolean failed;
+
+		AsyncCompletion(EndpointStats stats, long start, long dbNanos, HttpServletRequest request,
+				HttpServletResponse response) {
+			this.stats = stats;
+			this.start = start;
+			this.dbNanos = dbNanos;
+			this.request = request;
+			this.response = response;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			Object asyncDb = request.getAttribute(DbTime.REQUEST_ATTRIBUTE);
+			long db = dbNanos + (asyncDb instanceof Long ? (Long) asyncDb : 0);
+			stats.end(System.nanoTime() - start, db, failed || response.getStatus() >= 500);
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			failed = true;
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			failed = true;
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			event.getAsyncContext().addListener(this);
+		}
+	}
+}
@@ -0,0 +1,322 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.store.app.connection.PoolStats;
+import com.store.app.connection.dbConnection;
+import com.store.app.dao.CatalogCache;
+import com.store.app.dao.CategoryIndex;
+import com.store.app.dao.CredentialCache;
+import com.store.app.dao.Daos;
+import com.store.app.dao.Inventory;
+import com.store.app.dao.OrderDao;
+import com.store.app.dao.OrderWriteBehind;
+import com.store.app.dao.SqlStatement;
+import com.store.app.dao.UserDao;
+import com.store.app.metrics.EndpointStats;
+import com.store.app.metrics.LatencyHistogram;
+import com.store.app.metrics.PrometheusWriter;
+import com.store.app.metrics.RequestMetrics;
+import com.store.app.metrics.StatementStats;
+import com.store.app.search.ProductSearch;
+import com.store.app.search.Suggester;
+import com.store.app.security.LoginRateLimiter;
+import com.store.app.security.PasswordVerifier;
+
+/**
+ * Prometheus scrape endpoint: per-endpoint request metrics, connection pool,
+ * per-statement SQL, catalog cache, search, checkout executor, login and
+ * order write-behind statistics.
+ * <p>
+ * A scrape only reads subsystems that are already running, through their
+ * {@code peek()} accessors, so it never starts a pool, a thread or a catalog
+ * load; a section is left out until its subsystem exists. Only loopback and
+ * the addresses listed in {@code store.metrics.allow} (comma-separated) may
+ * scrape; anyone else gets a 404.
+ */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	private static final double[] QUANTILES = { 50, 95, 99 };
+	private static final Set<String> LOOPBACK = new HashSet<>(Arrays.asList("127.0.0.1", "::1", "0:0:0:0:0:0:0:1"));
+
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		if (!allowed(request.getRemoteAddr(), System.getProperty("store.metrics.allow", ""))) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+		response.setHeader("Cache-Control", "no-store");
+		PrometheusWriter w = new PrometheusWriter();
+		writeRequests(w, RequestMetrics.endpoints());
+		writePool(w);
+		writeStatements(w);
+		writeCatalogCache(w);
+		writeSearch(w);
+		writeCheckout(w);
+		writeLogin(w);
+		writeOrderWriteBehind(w);
+		try (PrintWriter out = response.getWriter()) {
+			out.write(w.toString());
+		}
+	}
+
+	static boolean allowed(String address, String allowList) {
+		if (address == null) {
+			return false;
+		}
+		if (LOOPBACK.contains(address)) {
+			return true;
+		}
+		for (String allowed : allowList.split(",")) {
+			if (allowed.trim().equals(address)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void writeRequests(PrometheusWriter w, Map<String, EndpointStats> endpoints) {
+		w.family("store_http_requests_total", "counter", "Requests handled, per servlet path.");
+		endpoints.forEach((path, s) -> w.sample("store_http_requests_total", s.getRequests(), "endpoint", path));
+		w.family("store_http_request_errors_total", "counter", "Requests that threw or answered 5xx.");
+		endpoints.forEach((path, s) -> w.sample("store_http_request_errors_total", s.getErrors(), "endpoint", path));
+		w.family("store_http_requests_in_flight", "gauge", "Requests currently being handled.");
+		endpoints.forEach((path, s) -> w.sample("store_http_requests_in_flight", s.getInFlight(), "endpoint", path));
+
+		w.family("store_http_request_duration_seconds", "histogram", "Request latency.");
+		endpoints.forEach((path, s) -> w.histogram("store_http_request_duration_seconds", s.getLatency(),
+				"endpoint", path));
+		w.family("store_http_request_duration_quantile_seconds", "gauge",
+				"Request latency percentiles (bucket upper bound).");
+		endpoints.forEach((path, s) -> quantiles(w, "store_http_request_duration_quantile_seconds",
+				s.getLatency(), "endpoint", path));
+		w.family("store_http_request_db_seconds", "histogram", "Database time per request.");
+		endpoints.forEach((path, s) -> w.histogram("store_http_request_db_seconds", s.getDbTime(),
+				"endpoint", path));
+	}
+
+	private static void writePool(PrometheusWriter w) {
+		PoolStats pool = dbConnection.peekPoolStats();
+		if (pool == null) {
+			return;
+		}
+		w.family("store_db_pool_connections", "gauge", "Pooled connections by state.");
+		w.sample("store_db_pool_connections", pool.getActive(), "state", "active");
+		w.sample("store_db_pool_connections", pool.getIdle(), "state", "idle");
+		w.sample("store_db_pool_connections", pool.getMaxSize(), "state", "max");
+		w.family("store_db_pool_waiters", "gauge", "Threads waiting for a connection.");
+		w.sample("store_db_pool_waiters", pool.getWaiters());
+		w.family("store_db_pool_timeouts_total", "counter", "Borrows that timed out.");
+		w.sample("store_db_pool_timeouts_total", pool.getTimeouts());
+		w.family("store_db_pool_leaks_total", "counter", "Connections held past the leak threshold.");
+		w.sample("store_db_pool_leaks_total", pool.getLeaksDetected());
+		w.family("store_db_pool_wait_seconds", "histogram", "Time spent waiting to borrow a connection.");
+		w.histogram("store_db_pool_wait_seconds", pool.getWaitTime());
+	}
+
+	private static void writeStatements(PrometheusWriter w) {
+		w.family("store_sql_calls_total", "counter", "Executions per SQL statement.");
+		for (SqlStatement s : SqlStatement.values()) {
+			w.sample("store_sql_calls_total", s.stats().getCalls(), "statement", s.name());
+		}
+		w.family("store_sql_errors_total", "counter", "Failed executions per SQL statement.");
+		for (SqlStatement s : SqlStatement.values()) {
+			w.sample("store_sql_errors_total", s.stats().getErrors(), "statement", s.name());
+		}
+		w.family("store_sql_rows_total", "counter", "Rows read or written per SQL statement.");
+		for (SqlStatement s : SqlStatement.values()) {
+			w.sample("store_sql_rows_total", s.stats().getRows(), "statement", s.name());
+		}
+		w.family("store_sql_duration_seconds", "histogram", "SQL execution time.");
+		for (SqlStatement s : SqlStatement.values()) {
+			StatementStats stats = s.stats();
+			if (stats.getCalls() > 0) {
+				w.histogram("store_sql_duration_seconds", stats.getLatency(), "statement", s.name());
+			}
+		}
+	}
+
+	private static void writeCatalogCache(PrometheusWriter w) {
+		CatalogCache catalog = CatalogCache.peek();
+		if (catalog != null) {
+			CatalogCache.CacheStats cache = catalog.getStats();
+			w.family("store_catalog_cache_requests_total", "counter", "Catalog cache lookups by result.");
+			w.sample("store_catalog_cache_requests_total", cache.getHits(), "result", "hit");
+			w.sample("store_catalog_cache_requests_total", cache.getMisses(), "result", "miss");
+			w.family("store_catalog_cache_evictions_total", "counter", "Catalog cache evictions.");
+			w.sample("store_catalog_cache_evictions_total", cache.getEvictions());
+			w.family("store_catalog_cache_entries", "gauge", "Catalog cache entries.");
+			w.sample("store_catalog_cache_entries", cache.getSize());
+			w.family("store_cart_pricing_total", "counter", "Cart views by whether prices had to be queried.");
+			w.sample("store_cart_pricing_total", catalog.getCartHits(), "result", "cached");
+			w.sample("store_cart_pricing_total", catalog.getCartMisses(), "result", "queried");
+		}
+		CategoryIndex index = CategoryIndex.peek();
+		if (index != null) {
+			w.family("store_catalog_index_products", "gauge", "Products in the in-memory category index.");
+			w.sample("store_catalog_index_products", index.size());
+			w.family("store_catalog_index_categories", "gauge", "Categories in the in-memory category index.");
+			w.sample("store_catalog_index_categories", index.categoryCount());
+			w.family("store_catalog_index_reloads_total", "counter", "Full reloads of the category index by result.");
+			w.sample("store_catalog_index_reloads_total", index.getReloads(), "result", "ok");
+			w.sample("store_catalog_index_reloads_total", index.getReloadFailures(), "result", "failed");
+		}
+		ProductGridCache grid = ProductGridCache.peek();
+		if (grid != null) {
+			w.family("store_product_grid_fragments_total", "counter", "Home page grid requests by whether the markup was reused.");
+			w.sample("store_product_grid_fragments_total", grid.getHits(), "result", "hit");
+			w.sample("store_product_grid_fragments_total", grid.getRenders(), "result", "render");
+		}
+		ThumbnailCache thumbnails = ThumbnailCache.peek();
+		if (thumbnails != null) {
+			w.family("store_thumbnails_total", "counter", "Resized image requests by outcome.");
+			w.sample("store_thumbnails_total", thumbnails.getHits(), "outcome", "hit");
+			w.sample("store_thumbnails_total", thumbnails.getRenders(), "outcome", "render");
+			w.sample("store_thumbnails_total", thumbnails.getRejected(), "outcome", "rejected");
+			w.family("store_thumbnails_evictions_total", "counter", "Thumbnails deleted to stay under the size cap.");
+			w.sample("store_thumbnails_evictions_total", thumbnails.getEvictions());
+			w.family("store_thumbnails_bytes", "gauge", "Bytes of thumbnails on disk.");
+			w.sample("store_thumbnails_bytes", thumbnails.getBytes());
+		}
+	}
+
+	private static void writeSearch(PrometheusWriter w) {
+		ProductSearch search = ProductSearch.peek();
+		if (search != null) {
+			w.family("store_search_queries_total", "counter", "Product searches answered from the index.");
+			w.sample("store_search_queries_total", search.getQueries());
+			w.family("store_search_reloads_total", "counter", "Full reloads of the search index from the database.");
+			w.sample("store_search_reloads_total", search.getReloads());
+			w.family("store_search_indexed_products", "gauge", "Products in the search index.");
+			w.sample("store_search_indexed_products", search.getIndexed());
+			w.family("store_search_duration_seconds", "histogram", "Index lookup time, excluding reloads.");
+			w.histogram("store_search_duration_seconds", search.getLatency());
+		}
+		Suggester suggester = Suggester.peek();
+		if (suggester != null) {
+			w.family("store_suggest_queries_total", "counter", "Type-ahead lookups.");
+			w.sample("store_suggest_queries_total", suggester.getQueries());
+			w.family("store_suggest_rebuilds_total", "counter", "Suggestion trie rebuilds by result.");
+			w.sample("store_suggest_rebuilds_total", suggester.getRebuilds(), "result", "ok");
+			w.sample("store_suggest_rebuilds_total", suggester.getRebuildFailures(), "result", "failed");
+			w.family("store_suggest_trie_nodes", "gauge", "Nodes in the suggestion trie.");
+			w.sample("store_suggest_trie_nodes", suggester.getNodes());
+			w.family("store_suggest_duration_seconds", "histogram", "Type-ahead lookup time.");
+			w.histogram("store_suggest_duration_seconds", suggester.getLatency());
+		}
+	}
+
+	private static void writeCheckout(PrometheusWriter w) {
+		CheckoutExecutor checkout = CheckoutExecutor.peek();
+		if (checkout != null) {
+			w.family("store_checkout_submitted_total", "counter", "Checkouts handed to the async executor.");
+			w.sample("store_checkout_submitted_total", checkout.getSubmitted());
+			w.family("store_checkout_rejected_total", "counter", "Checkouts refused with 503 because the queue was full.");
+			w.sample("store_checkout_rejected_total", checkout.getRejected());
+			w.family("store_checkout_timed_out_total", "counter", "Checkouts answered by the async timeout instead of the worker.");
+			w.sample("store_checkout_timed_out_total", checkout.getTimedOut());
+			w.family("store_checkout_queued", "gauge", "Checkouts waiting for an executor thread.");
+			w.sample("store_checkout_queued", checkout.getQueued());
+			w.family("store_checkout_active", "gauge", "Checkouts being written to the database.");
+			w.sample("store_checkout_active", checkout.getActive());
+		}
+		Inventory inventory = Daos.peekInventory();
+		if (inventory != null) {
+			w.family("store_inventory_reserved_units_total", "counter", "Stock units reserved by checkouts, net of releases.");
+			w.sample("store_inventory_reserved_units_total", inventory.getReserved());
+			w.family("store_inventory_out_of_stock_total", "counter", "Reservations refused for lack of stock.");
+			w.sample("store_inventory_out_of_stock_total", inventory.getOutOfStock());
+			w.family("store_inventory_reconciles_total", "counter", "Stock write-outs to the database by result.");
+			w.sample("store_inventory_reconciles_total", inventory.getReconciles(), "result", "ok");
+			w.sample("store_inventory_reconciles_total", inventory.getReconcileFailures(), "result", "failed");
+			w.family("store_inventory_products", "gauge", "Products with stock held in memory.");
+			w.sample("store_inventory_products", inventory.getTracked());
+		}
+	}
+
+	private static void writeLogin(PrometheusWriter w) {
+		PasswordVerifier verifier = PasswordVerifier.peek();
+		if (verifier != null) {
+			w.family("store_login_password_checks_total", "counter", "Password checks by outcome.");
+			w.sample("store_login_password_checks_total", verifier.getMatches(), "outcome", "match");
+			w.sample("store_login_password_checks_total", verifier.getMismatches(), "outcome", "mismatch");
+			w.sample("store_login_password_checks_total", verifier.getRejected(), "outcome", "rejected");
+			w.family("store_login_password_upgrades_total", "counter", "Stored passwords rehashed on login.");
+			w.sample("store_login_password_upgrades_total", verifier.getUpgrades());
+			w.family("store_login_hash_queued", "gauge", "Password checks waiting for a hashing thread.");
+			w.sample("store_login_hash_queued", verifier.getQueued());
+			w.family("store_login_hash_seconds", "histogram", "Password hashing time.");
+			w.histogram("store_login_hash_seconds", verifier.getHashTime());
+		}
+		UserDao users = Daos.peekUsers();
+		if (users != null) {
+			CredentialCache credentials = users.getCredentialCache();
+			w.family("store_login_credential_cache_requests_total", "counter", "Credential cache lookups by result.");
+			w.sample("store_login_credential_cache_requests_total", credentials.getHits(), "result", "hit");
+			w.sample("store_login_credential_cache_requests_total", credentials.getMisses(), "result", "miss");
+			w.family("store_login_credential_cache_entries", "gauge", "Cached credential lookups.");
+			w.sample("store_login_credential_cache_entries", credentials.size());
+		}
+		LoginRateLimiter limiter = LoginRateLimiter.peek();
+		if (limiter != null) {
+			w.family("store_login_attempts_total", "counter", "Login attempts by rate limiter decision.");
+			w.sample("store_login_attempts_total", limiter.getAllowed(), "result", "allowed");
+			w.sample("store_login_attempts_total", limiter.getRejectedAddress(), "result", "rejected_ip");
+			w.sample("store_login_attempts_total", limiter.getRejectedEmail(), "result", "rejected_email");
+			w.family("store_login_rate_limiter_keys", "gauge", "Addresses and emails with a live token bucket.");
+			w.sample("store_login_rate_limiter_keys", limiter.getTrackedKeys());
+		}
+	}
+
+	private static void writeOrderWriteBehind(PrometheusWriter w) {
+		OrderDao orders = Daos.peekOrders();
+		OrderWriteBehind wb = orders == null ? null : orders.getWriteBehind();
+		if (wb == null) {
+			return;
+		}
+		w.family("store_orders_wb_queued", "gauge", "Orders journaled but not yet committed to MySQL (includes replay backlog).");
+		w.sample("store_orders_wb_queued", wb.getQueued());
+		w.family("store_orders_wb_queue_depth", "gauge", "Configured write-behind queue limit.");
+		w.sample("store_orders_wb_queue_depth", wb.getQueueDepth());
+		w.family("store_orders_wb_total", "counter", "Write-behind orders by outcome.");
+		w.sample("store_orders_wb_total", wb.getAccepted(), "outcome", "accepted");
+		w.sample("store_orders_wb_total", wb.getRejected(), "outcome", "rejected");
+		w.sample("store_orders_wb_total", wb.getFlushed(), "outcome", "flushed");
+		w.sample("store_orders_wb_total", wb.getInvalid(), "outcome", "invalid");
+		w.sample("store_orders_wb_total", wb.getDeadLettered(), "outcome", "dead_letter");
+		w.family("store_orders_wb_batches_total", "counter", "Batches committed by the writer.");
+		w.sample("store_orders_wb_batches_total", wb.getBatches());
+		w.family("store_orders_wb_flush_failures_total", "counter", "Failed flush attempts (retried).");
+		w.sample("store_orders_wb_flush_failures_total", wb.getFlushFailures());
+		w.family("store_orders_wb_journal_syncs_total", "counter", "Journal fsyncs.");
+		w.sample("store_orders_wb_journal_syncs_total", wb.getJournalSyncs());
+		w.family("store_orders_wb_journal_segments", "gauge", "Journal segment files on disk.");
+		w.sample("store_orders_wb_journal_segments", wb.getJournalSegments());
+		w.family("store_orders_wb_journal_corrupt_total", "counter", "Journal records skipped on recovery (bad CRC).");
+		w.sample("store_orders_wb_journal_corrupt_total", wb.getJournalCorrupt());
+		w.family("store_orders_wb_ack_seconds", "histogram", "Submit to acknowledgement (journal fsync).");
+		w.histogram("store_orders_wb_ack_seconds", wb.getAckTime());
+		w.family("store_orders_wb_flush_seconds", "histogram", "Batch insert time.");
+		w.histogram("store_orders_wb_flush_seconds", wb.getFlushTime());
+	}
+
+	private static void quantiles(PrometheusWriter w, String name, LatencyHistogram.Snapshot snapshot,
+			String labelName, String labelValue) {
+		for (double q : QUANTILES) {
+			w.sample(name, snapshot.percentileMillis(q) / 1000.0, labelName, labelValue, "quantile",
+					Double.toString(q / 100));
+		}
+	}
+}
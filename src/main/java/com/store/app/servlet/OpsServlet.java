@@ -8,69 +8,48 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.sql.SQLException;
-import java.util.ArrayList;
 
-import com.store.app.connection.dbConnection;
-import com.store.app.dao.OrderDao;
-import com.store.app.model.Cart;
+import com.store.app.dao.Daos;
+import com.store.app.dao.Inventory;
 import com.store.app.model.Order;
+import com.store.app.model.SessionCart;
 import com.store.app.model.User;
 
 public class OpsServlet extends HttpServlet {
 	private static final long serialVersionUID = 1L;
 
 	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-		try(PrintWriter out = response.getWriter();){
-			String action = request.getParameter("action");
-			int id = Integer.parseInt(request.getParameter("id"));
-			ArrayList<Cart> cart_list = (ArrayList<Cart>) request.getSession().getAttribute("cart-session");
-			
-			if(action != null && id >= 1) {
-				if(action.equals("post")) {
-					doPost(request,response);
-				}
+		String action = request.getParameter("action");
+		int id = Integer.parseInt(request.getParameter("id"));
+		SessionCart cart = (SessionCart) request.getSession().getAttribute("cart-session");
+		
+		if(action != null && id >= 1) {
+			// "post" may complete asynchronously, so nothing here may open or close the writer
+			if(action.equals("post")) {
+				doPost(request,response);
+				return;
+			}
+			if(cart != null) {
 				//inc
 				if(action.equals("inc")) {
-					for(Cart c:cart_list) {
-						if(c.getId() == id) {
-							int quantity = c.getQuantity();
-							quantity++;
-							c.setQuantity(quantity);
-							response.sendRedirect("cart.jsp");
-						}
-					}
+					cart.increment(id);
 				}
 				//dec
 				if(action.equals("dec")) {
-					for(Cart c:cart_list) {
-						if(c.getId() == id ) {
-							int quantity = c.getQuantity();
-							quantity--;
-							c.setQuantity(quantity);
-							break;
-						}
-					}
-					response.sendRedirect("cart.jsp");
+					cart.decrement(id);
 				}
 				//delete
 				if(action.equals("remove")) {
-					for(Cart c:cart_list) {
-						if(c.getId() == id ) {
-							cart_list.remove(cart_list.indexOf(c));
-							break;
-						}
-					}
-					response.sendRedirect("cart.jsp");
+					cart.remove(id);
 				}
-			
-			}else {response.sendRedirect("cart.jsp");}
-			
-		}  
+			}
+			response.sendRedirect("cart.jsp");
+		}else {response.sendRedirect("cart.jsp");}
 	}
 	
 	protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
 		
-		try(PrintWriter out = response.getWriter();){
+		try {
 			User auth = (User) request.getSession().getAttribute("auth");
 			if(auth != null) {
 				
@@ -83,13 +62,30 @@ public class OpsServlet extends HttpServlet {
 					order.setId(Integer.parseInt(productId));
 					order.setUser_id(auth.getId());
 					order.setQuantity(productQ);
-					OrderDao orderDao = new OrderDao(dbConnection.getConnection());
-					boolean result = orderDao.submitOrder(order);
-						if(result) {
-							response.sendRedirect("orders.jsp");
-						}else {
-							out.print("zeyar karek");
+					CheckoutExecutor.getInstance().run(request, response, res -> {
+						Inventory inventory = Daos.inventory();
+						if(inventory != null && !inventory.reserve(order.getId(), order.getQuantity())) {
+							try(PrintWriter out = res.getWriter()){
+								out.print("Not enough stock");
+							}
+							return;
+						}
+						boolean committed = false;
+						try {
+							committed = Daos.orders().submitOrder(order);
+							if(committed) {
+								res.sendRedirect("orders.jsp");
+							}else {
+								try(PrintWriter out = res.getWriter()){
+									out.print("zeyar karek");
+								}
+							}
+						} finally {
+							if(inventory != null && !committed) {
+								inventory.release(order.getId(), order.getQuantity());
+							}
 						}
+					});
 			}else {
 				response.sendRedirect("login.jsp");
 			}
@@ -7,13 +7,14 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
 
-import com.store.app.connection.dbConnection;
-import com.store.app.dao.OrderDao;
+import com.store.app.dao.Daos;
+import com.store.app.dao.Inventory;
 import com.store.app.model.Cart;
 import com.store.app.model.Order;
+import com.store.app.model.SessionCart;
 import com.store.app.model.User;
 
 public class OrderServlet extends HttpServlet {
@@ -26,32 +27,55 @@ public class OrderServlet extends HttpServlet {
 
 	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
 		response.setContentType("text/html;charset=UTF-8");
-		try(PrintWriter out = response.getWriter()){
-			ArrayList<Cart> cart_list = (ArrayList<Cart>)request.getSession().getAttribute("cart-session");
-			User auth = (User) request.getSession().getAttribute("auth");
-			String action = request.getParameter("action");
+		SessionCart cart = (SessionCart) request.getSession().getAttribute("cart-session");
+		User auth = (User) request.getSession().getAttribute("auth");
 
-			if(cart_list != null && auth != null) {
-				for(Cart c:cart_list) {
-					Order order = new Order();
-					order.setId(c.getId());
-					order.setUser_id(auth.getId());
-					order.setQuantity(c.getQuantity());
-					OrderDao orderDao = new OrderDao(dbConnection.getConnection());
-					boolean result = orderDao.submitOrder(order);
-					if(!result) break;
-				}
-				cart_list.clear();
-				response.sendRedirect("orders.jsp");
-			}else {
-				if(auth == null )response.sendRedirect("login.jsp");
+		if(cart != null && auth != null) {
+			List<Cart> lines = cart.toCartList();
+			List<Order> orders = new ArrayList<>(lines.size());
+			for(Cart c:lines) {
+				Order order = new Order();
+				order.setId(c.getId());
+				order.setUser_id(auth.getId());
+				order.setQuantity(c.getQuantity());
+				orders.add(order);
 			}
-		} catch (ClassNotFoundException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (SQLException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			CheckoutExecutor.getInstance().run(request, response, res -> {
+				Inventory inventory = Daos.inventory();
+				boolean reserved = false;
+				boolean committed = false;
+				try {
+					if(inventory != null) {
+						List<Order> missing = inventory.reserveAll(orders);
+						if(!missing.isEmpty()) {
+							try(PrintWriter out = res.getWriter()){
+								out.println("<h3 style='color:crimson; text-align: center'>Not enough stock for " + missing.size() + " item(s), your cart was kept. <a href='cart.jsp'>GO to Cart Page</a></h3>");
+							}
+							return;
+						}
+						reserved = true;
+					}
+					committed = Daos.orders().submitOrders(orders);
+					if(committed) {
+						// only drop what was ordered; another tab may have added items meanwhile
+						for(Cart c:lines) {
+							cart.remove(c.getId());
+						}
+						res.sendRedirect("orders.jsp");
+					}else {
+						try(PrintWriter out = res.getWriter()){
+							out.println("<h3 style='color:crimson; text-align: center'>Checkout failed, your cart was kept. <a href='cart.jsp'>GO to Cart Page</a></h3>");
+						}
+					}
+				} finally {
+					// also when submitting threw, or the response was already gone
+					if(reserved && !committed) {
+						inventory.releaseAll(orders);
+					}
+				}
+			});
+		}else {
+			if(auth == null )response.sendRedirect("login.jsp");
 		}
 	}
 
@@ -0,0 +1,88 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
+
+import com.store.app.dao.CategoryIndex;
+import com.store.app.dao.Daos;
+import com.store.app.dao.OrderCursor;
+import com.store.app.dao.OrderDao;
+import com.store.app.model.User;
+
+/**
+ * The logged-in user's order history as JSON, newest first:
+ * {@code /api/orders?before=&limit=}, where {@code before} is the
+ * {@code next} token of the previous page.
+ * <p>
+ * Rows are streamed from the result set to the response. The ETag comes
+ * from a count-and-max query on the user's orders plus the
+ * {@link CategoryIndex} version, since names, categories and prices are
+ * joined from the live products table. Revalidating an unchanged history
+ * skips the joined query. The catalog version is read before the body, so
+ * a tag never claims newer product data than its body holds; a catalog
+ * change shows up in the tag at the next index refresh.
+ */
+@WebServlet("/api/orders")
+public class OrdersApiServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	static final int DEFAULT_LIMIT = 50;
+	static final int MAX_LIMIT = 1_000;
+
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		HttpSession session = request.getSession(false);
+		User auth = session == null ? null : (User) session.getAttribute("auth");
+		if (auth == null) {
+			ApiResponse.error(response, HttpServletResponse.SC_UNAUTHORIZED, "login required");
+			return;
+		}
+		String before = request.getParameter("before");
+		int limit = Math.max(1, Math.min(MAX_LIMIT, ApiResponse.intParameter(request, "limit", DEFAULT_LIMIT)));
+
+		OrderDao orders = Daos.orders();
+		String version = orders.userOrdersVersion(auth.getId());
+		CategoryIndex.Snapshot catalog = CategoryIndex.getInstance().snapshot();
+		if (version != null && catalog != null) {
+			String tag = "\"o" + auth.getId() + "-" + version + "-p" + catalog.getVersion() + '"';
+			if (ApiResponse.notModified(request, response, tag, "private, no-cache")) {
+				return;
+			}
+		} else {
+			response.setHeader("Cache-Control", "private, no-store");
+		}
+
+		Writer out = ApiResponse.open(request, response);
+		JsonWriter json = new JsonWriter(out);
+		OrderCursor next;
+		try {
+			json.beginObject().name("orders").beginArray();
+			next = orders.streamUserOrders(auth.getId(), OrderCursor.parse(before), limit, o -> {
+				json.beginObject();
+				json.name("orderId").value(o.getOrder_id());
+				json.name("productId").value(o.getId());
+				json.name("name").value(o.getName());
+				json.name("category").value(o.getCategory());
+				json.name("quantity").value(o.getQuantity());
+				json.name("price").value(o.getPrice());
+				json.name("date").value(o.getDate());
+				json.endObject();
+			});
+			json.endArray();
+		} catch (SQLException e) {
+			ApiResponse.failed(response, "Could not list orders", e);
+			return;
+		}
+		if (next != null) {
+			json.name("next").value(next.toString());
+		}
+		json.endObject();
+		out.close();
+	}
+}
@@ -0,0 +1,252 @@
+package com.store.app.servlet;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.store.app.dao.CatalogCache;
+import com.store.app.dao.CategoryIndex;
+import com.store.app.dao.ProductDao;
+import com.store.app.model.Product;
+import com.store.app.model.ProductPage;
+
+/**
+ * Rendered product-card markup for the home page grid, per category, page
+ * cursor and page size.
+ * <p>
+ * A fragment is tied to the {@link ProductPage} instance it was rendered
+ * from: while {@link CatalogCache} keeps serving the same page, the page is
+ * answered with one copy of a ready string. A new page instance (TTL expiry)
+ * renders it again. Names and categories are HTML-escaped once, at render
+ * time.
+ * <p>
+ * With a {@link CategoryIndex}, pages come from memory instead, price-range
+ * filters are available, and fragments are reused until the index version
+ * changes. The category and price navigation is cached the same way.
+ */
+public class ProductGridCache {
+	private static volatile ProductGridCache instance;
+
+	private final CatalogCache catalog;
+	private final CategoryIndex index;
+	private final int maxEntries;
+	private final ConcurrentHashMap<String, Fragment> fragments = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, Fragment> navigation = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder renders = new LongAdder();
+
+	public ProductGridCache(CatalogCache catalog, int maxEntries) {
+		this(catalog, null, maxEntries);
+	}
+
+	public ProductGridCache(CatalogCache catalog, CategoryIndex index, int maxEntries) {
+		this.catalog = catalog;
+		this.index = index;
+		this.maxEntries = maxEntries;
+	}
+
+	public static ProductGridCache getInstance() {
+		ProductGridCache c = instance;
+		if (c == null) {
+			synchronized (ProductGridCache.class) {
+				c = instance;
+				if (c == null) {
+					CategoryIndex index = Boolean.parseBoolean(System.getProperty("store.catalog.index", "true"))
+							? CategoryIndex.getInstance() : null;
+					c = new ProductGridCache(CatalogCache.getInstance(), index,
+							Integer.getInteger("store.catalog.maxFragments", 1_000));
+					instance = c;
+				}
+			}
+		}
+		return c;
+	}
+
+	/** The shared instance if something already created it, else null; never creates one. */
+	public static ProductGridCache peek() {
+		return instance;
+	}
+
+	/** The grid of one listing page; the page itself is available for the pagination link. */
+	public Fragment get(String category, int afterId, int pageSize) {
+		return get(category, CategoryIndex.ANY_PRICE, afterId, pageSize);
+	}
+
+	/** As {@link #get(String, int, int)}, limited to one price range when the index is in use. */
+	public Fragment get(String category, int priceBucket, int afterId, int pageSize) {
+		pageSize = ProductDao.clampPageSize(pageSize);
+		String key = (category == null ? "" : category) + '|' + priceBucket + '|' + afterId + '|' + pageSize;
+		Fragment f = fragments.get(key);
+		if (index != null && index.ensureLoaded()) {
+			long version = index.version();
+			if (f != null && f.source == index && f.version == version) {
+				hits.increment();
+				return f;
+			}
+			ProductPage page = index.listProducts(category, priceBucket, afterId, pageSize);
+			return store(fragments, key, new Fragment(page, index, version, render(page)));
+		}
+		ProductPage page = catalog.listProducts(category, afterId, pageSize);
+		if (f != null && f.source == page) {
+			hits.increment();
+			return f;
+		}
+		return store(fragments, key, new Fragment(page, page, 0, render(page)));
+	}
+
+	/**
+	 * Category links with product counts and price-range links for the
+	 * selected category; empty when no index is in use.
+	 */
+	public String navigation(String category, int priceBucket) {
+		if (index == null || !index.ensureLoaded()) {
+			return "";
+		}
+		String key = (category == null ? "" : category) + '|' + priceBucket;
+		long version = index.version();
+		Fragment f = navigation.get(key);
+		if (f != null && f.version == version) {
+			hits.increment();
+			return f.html;
+		}
+		CategoryIndex.Facets facets = index.facets();
+		return store(navigation, key, new Fragment(null, index, facets.getVersion(),
+				renderNavigation(facets, category, priceBucket))).html;
+	}
+
+	private Fragment store(ConcurrentHashMap<String, Fragment> map, String key, Fragment f) {
+		renders.increment();
+		if (map.size() >= maxEntries) {
+			map.clear();
+		}
+		map.put(key, f);
+		return f;
+	}
+
+	/** The card image, about 18rem at the default font size. */
+	static final int CARD_WIDTH = 288;
+	static final String DEFAULT_IMAGE = "product-images/image.jpg";
+
+	/** The product's own image when it is a known asset, otherwise the placeholder. */
+	static String imagePath(Product p) {
+		if (p.getImage() != null && !p.getImage().isEmpty()) {
+			String path = "product-images/" + p.getImage();
+			if (AssetManifest.getInstance().lookup(path) != null) {
+				return path;
+			}
+		}
+		return DEFAULT_IMAGE;
+	}
+
+	static String render(ProductPage page) {
+		StringBuilder sb = new StringBuilder(512 * Math.max(page.getProducts().size(), 1));
+		for (Product p : page.getProducts()) {
+			String image = imagePath(p);
+			sb.append("<div class=\"col-md-3 my-3\">\n")
+					.append("<div class=\"card\" style=\"width: 18rem;\">\n")
+					.append("  <img src=\"");
+			Html.escape(sb, ImageServlet.url(image, CARD_WIDTH)).append("\" srcset=\"");
+			Html.escape(sb, ImageServlet.url(image, 2 * CARD_WIDTH)).append(" 2x\" width=\"").append(CARD_WIDTH)
+					.append("\" class=\"card-img-top\" alt=\"");
+			Html.escape(sb, p.getName()).append("\" loading=\"lazy\">\n")
+					.append("  <div class=\"card-body\">\n")
+					.append("    <h5 class=\"card-title\">");
+			Html.escape(sb, p.getName()).append("</h5>\n")
+					.append("    <h6 class=\"price\">").append(p.getPrice()).append("</h6>\n")
+					.append("    <h6 class=\"category\">");
+			Html.escape(sb, p.getCategory()).append("</h6>\n")
+					.append("    <div class=\"mt-3 d-flex justify-content-between\">\n")
+					.append("    <a href=\"CartServlet?id=").append(p.getId())
+					.append("\" class=\"btn btn-dark\">Add to Cart</a>\n")
+					.append("    <a href=\"Operations?action=post&amp;quantity=1&amp;id=").append(p.getId())
+					.append("\" class=\"btn btn-primary\">Buy Now</a>\n")
+					.append("    </div>\n")
+					.append("  </div>\n")
+					.append("</div>\n")
+					.append("</div>\n");
+		}
+		return sb.toString();
+	}
+
+	static String renderNavigation(CategoryIndex.Facets facets, String category, int priceBucket) {
+		boolean all = category == null || category.isEmpty();
+		StringBuilder sb = new StringBuilder(128 + 96 * facets.getCategories().size());
+		sb.append("<ul class=\"nav nav-pills my-2\">\n");
+		navLink(sb, "home.jsp", "All", facets.getTotal(), all);
+		for (Map.Entry<String, Integer> e : facets.getCategories().entrySet()) {
+			navLink(sb, "home.jsp?category=" + encode(e.getKey()), e.getKey(), e.getValue(),
+					e.getKey().equals(category));
+		}
+		sb.append("</ul>\n<ul class=\"nav nav-pills my-2\">\n");
+		String base = all ? "home.jsp?" : "home.jsp?category=" + encode(category) + "&";
+		int[] counts = facets.getPriceCounts(all ? null : category);
+		for (int b = 0; b < counts.length; b++) {
+			if (counts[b] > 0 || b == priceBucket) {
+				navLink(sb, base + "price=" + b, priceLabel(b), counts[b], b == priceBucket);
+			}
+		}
+		return sb.append("</ul>\n").toString();
+	}
+
+	private static void navLink(StringBuilder sb, String href, String label, int count, boolean active) {
+		sb.append("  <li class=\"nav-item\"><a class=\"nav-link").append(active ? " active" : "").append("\" href=\"");
+		Html.escape(sb, href).append("\">");
+		Html.escape(sb, label).append(" <span class=\"badge bg-secondary\">").append(count).append("</span></a></li>\n");
+	}
+
+	static String priceLabel(int bucket) {
+		double[] bounds = CategoryIndex.PRICE_BOUNDS;
+		if (bucket == 0) {
+			return "Under " + amount(bounds[0]);
+		}
+		if (bucket == bounds.length) {
+			return amount(bounds[bounds.length - 1]) + " and up";
+		}
+		return amount(bounds[bucket - 1]) + " to " + amount(bounds[bucket]);
+	}
+
+	private static String amount(double value) {
+		return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+	}
+
+	private static String encode(String s) {
+		return URLEncoder.encode(s, StandardCharsets.UTF_8);
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getRenders() {
+		return renders.sum();
+	}
+
+	public int size() {
+		return fragments.size();
+	}
+
+	public static final class Fragment {
+		private final ProductPage page;
+		/** What the markup was rendered from: the cached page, or the index. */
+		private final Object source;
+		private final long version;
+		private final String html;
+
+		Fragment(ProductPage page, Object source, long version, String html) {
+			this.page = page;
+			this.source = source;
+			this.version = version;
+			this.html = html;
+		}
+
+		public ProductPage getPage() {
+			return page;
+		}
+
+		public String getHtml() {
+			return html;
+		}
+	}
+}
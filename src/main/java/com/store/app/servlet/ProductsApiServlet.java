@@ -0,0 +1,67 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.store.app.dao.CategoryIndex;
+import com.store.app.dao.ProductDao;
+import com.store.app.model.Product;
+import com.store.app.model.ProductPage;
+
+/**
+ * Catalog listing as JSON: {@code /api/products?category=&after=&limit=}.
+ * <p>
+ * Pages are served from one {@link CategoryIndex} snapshot, and the ETag is
+ * that snapshot's version, so the tag always describes the body it came
+ * with. No database connection is used, however slowly the client reads;
+ * {@code limit} is still capped at {@link ProductDao#STREAM_THRESHOLD}
+ * to keep each response small.
+ */
+@WebServlet("/api/products")
+public class ProductsApiServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	static final int DEFAULT_LIMIT = 100;
+	static final int MAX_LIMIT = ProductDao.STREAM_THRESHOLD;
+
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		String category = request.getParameter("category");
+		int after = Math.max(0, ApiResponse.intParameter(request, "after", 0));
+		int limit = Math.max(1, Math.min(MAX_LIMIT, ApiResponse.intParameter(request, "limit", DEFAULT_LIMIT)));
+
+		CategoryIndex.Snapshot snapshot = CategoryIndex.getInstance().snapshot();
+		if (snapshot == null) {
+			ApiResponse.error(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Catalog not loaded");
+			return;
+		}
+		String tag = "\"p" + snapshot.getVersion() + '"';
+		if (ApiResponse.notModified(request, response, tag, "no-cache")) {
+			return;
+		}
+
+		ProductPage page = snapshot.listProducts(category, CategoryIndex.ANY_PRICE, after, limit);
+		Writer out = ApiResponse.open(request, response);
+		JsonWriter json = new JsonWriter(out);
+		json.beginObject().name("products").beginArray();
+		for (Product p : page.getProducts()) {
+			json.beginObject();
+			json.name("id").value(p.getId());
+			json.name("name").value(p.getName());
+			json.name("category").value(p.getCategory());
+			json.name("price").value(p.getPrice());
+			json.name("image").value(p.getImage());
+			json.endObject();
+		}
+		json.endArray();
+		if (page.getNextAfterId() > 0) {
+			json.name("nextAfter").value(page.getNextAfterId());
+		}
+		json.endObject();
+		out.close();
+	}
+}
@@ -0,0 +1,67 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import com.store.app.model.Product;
+import com.store.app.search.ProductIndex;
+import com.store.app.search.ProductSearch;
+
+/**
+ * Product search as JSON: {@code /search?q=lap&limit=10}. The last word may
+ * be incomplete, so the endpoint can back a type-ahead box.
+ */
+@WebServlet("/search")
+public class SearchServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	static final int DEFAULT_LIMIT = 20;
+	static final int MAX_LIMIT = 100;
+	static final int MAX_QUERY_CHARS = 200;
+
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		String query = request.getParameter("q");
+		if (query == null) {
+			query = "";
+		} else if (query.length() > MAX_QUERY_CHARS) {
+			query = query.substring(0, MAX_QUERY_CHARS);
+		}
+		int limit = DEFAULT_LIMIT;
+		String l = request.getParameter("limit");
+		if (l != null) {
+			try {
+				limit = Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(l)));
+			} catch (NumberFormatException e) {
+				response.sendError(HttpServletResponse.SC_BAD_REQUEST, "limit must be a number");
+				return;
+			}
+		}
+
+		ProductIndex.Result result = ProductSearch.getInstance().search(query, limit);
+		response.setContentType("application/json;charset=UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		try (PrintWriter out = response.getWriter()) {
+			JsonWriter json = new JsonWriter(out);
+			json.beginObject();
+			json.name("query").value(query);
+			json.name("total").value(result.getTotal());
+			json.name("products").beginArray();
+			for (Product p : result.getProducts()) {
+				json.beginObject();
+				json.name("id").value(p.getId());
+				json.name("name").value(p.getName());
+				json.name("category").value(p.getCategory());
+				json.name("price").value(p.getPrice());
+				json.name("image").value(p.getImage());
+				json.endObject();
+			}
+			json.endArray();
+			json.endObject();
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serves {@link AssetManifest} assets under {@code /assets/*}.
+ * <p>
+ * Fingerprinted paths are cacheable for a year and marked immutable; plain
+ * paths get {@code no-cache} so browsers revalidate them. Every response
+ * carries an ETag, and a matching {@code If-None-Match} gets a 304. When the
+ * client accepts it, a brotli or gzip variant is sent instead. File bodies go
+ * out through Tomcat's sendfile when the connector offers it, otherwise
+ * through {@link FileChannel#transferTo}.
+ */
+@WebServlet("/assets/*")
+public class StaticResourceServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	static final String IMMUTABLE = "public, max-age=31536000, immutable";
+	static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		serve(request, response, true);
+	}
+
+	protected void doHead(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		serve(request, response, false);
+	}
+
+	private void serve(HttpServletRequest request, HttpServletResponse response, boolean body) throws IOException {
+		String path = request.getPathInfo();
+		AssetManifest.Asset asset = path == null || path.length() < 2 ? null
+				: AssetManifest.getInstance().lookup(path.substring(1));
+		if (asset == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		String accept = request.getHeader("Accept-Encoding");
+		Path file = asset.file;
+		byte[] bytes = null;
+		String encoding = null;
+		if (asset.brFile != null && accepts(accept, "br")) {
+			file = asset.brFile;
+			encoding = "br";
+		} else if ((asset.gzFile != null || asset.gzBytes != null) && accepts(accept, "gzip")) {
+			file = asset.gzFile;
+			bytes = asset.gzBytes;
+			encoding = "gzip";
+		}
+		String etag = '"' + asset.hash + (encoding == null ? "" : "-" + encoding) + '"';
+
+		response.setHeader("ETag", etag);
+		response.setHeader("Cache-Control", path.substring(1).equals(asset.hashedPath) ? IMMUTABLE : "no-cache");
+		if (asset.hasVariants()) {
+			response.setHeader("Vary", "Accept-Encoding");
+		}
+		if (matches(request.getHeader("If-None-Match"), etag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		response.setContentType(asset.contentType);
+		if (encoding != null) {
+			response.setHeader("Content-Encoding", encoding);
+		}
+		long length = bytes != null ? bytes.length : file == asset.file ? asset.length : Files.size(file);
+		response.setContentLengthLong(length);
+		if (!body) {
+			return;
+		}
+		if (bytes != null) {
+			response.getOutputStream().write(bytes);
+		} else {
+			sendFile(request, response, file, length);
+		}
+	}
+
+	/** Writes the file body, through sendfile when the connector supports it. Headers must be set already. */
+	static void sendFile(HttpServletRequest request, HttpServletResponse response, Path file, long length)
+			throws IOException {
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			// Tomcat writes the file from the kernel page cache once we return
+			request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START, 0L);
+			request.setAttribute(SENDFILE_END, length);
+		} else {
+			transfer(file, length, response.getOutputStream());
+		}
+	}
+
+	private static void transfer(Path file, long length, ServletOutputStream out) throws IOException {
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			WritableByteChannel target = Channels.newChannel(out);
+			long pos = 0;
+			while (pos < length) {
+				long n = ch.transferTo(pos, length - pos, target);
+				if (n <= 0) {
+					break;
+				}
+				pos += n;
+			}
+		}
+	}
+
+	/** True if the Accept-Encoding header lists the coding with a non-zero quality. */
+	static boolean accepts(String header, String coding) {
+		if (header == null) {
+			return false;
+		}
+		for (String part : header.split(",")) {
+			String[] params = part.trim().split(";");
+			if (!params[0].trim().equalsIgnoreCase(coding)) {
+				continue;
+			}
+			for (int i = 1; i < params.length; i++) {
+				String p = params[i].trim();
+				if (p.startsWith("q=")) {
+					try {
+						return Double.parseDouble(p.substring(2)) > 0;
+					} catch (NumberFormatException e) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String c = candidate.trim();
+			if (c.startsWith("W/")) {
+				c = c.substring(2);
+			}
+			if (c.equals("*") || c.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,39 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+import com.store.app.connection.dbConnection;
+import com.store.app.dao.CategoryIndex;
+import com.store.app.dao.Daos;
+import com.store.app.search.ProductSearch;
+import com.store.app.search.Suggester;
+import com.store.app.security.PasswordVerifier;
+
+/**
+ * Fingerprints static assets and loads the search and suggestion indexes on
+ * startup, and releases application-wide resources when the webapp is
+ * undeployed.
+ */
+@WebListener
+public class StoreContextListener implements ServletContextListener {
+
+	@Override
+	public void contextInitialized(ServletContextEvent sce) {
+		AssetManifest.init(sce.getServletContext());
+		ProductSearch.warmUp();
+		Suggester.warmUp();
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent sce) {
+		CheckoutExecutor.shutdown();
+		PasswordVerifier.shutdown();
+		ThumbnailCache.shutdown();
+		Suggester.shutdown();
+		CategoryIndex.shutdown();
+		Daos.shutdown();
+		dbConnection.shutdown();
+	}
+}
@@ -0,0 +1,66 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import com.store.app.search.Suggester;
+import com.store.app.search.SuggestionTrie;
+
+/**
+ * Type-ahead suggestions as JSON: {@code /suggest?q=wire&limit=5}. Answers
+ * are the same for every visitor, so browsers and proxies may reuse them
+ * briefly.
+ */
+@WebServlet("/suggest")
+public class SuggestServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	static final int DEFAULT_LIMIT = 8;
+	static final int MAX_QUERY_CHARS = 100;
+
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		String query = request.getParameter("q");
+		if (query == null) {
+			query = "";
+		} else if (query.length() > MAX_QUERY_CHARS) {
+			query = query.substring(0, MAX_QUERY_CHARS);
+		}
+		int limit = DEFAULT_LIMIT;
+		String l = request.getParameter("limit");
+		if (l != null) {
+			try {
+				limit = Math.max(1, Integer.parseInt(l));
+			} catch (NumberFormatException e) {
+				response.sendError(HttpServletResponse.SC_BAD_REQUEST, "limit must be a number");
+				return;
+			}
+		}
+
+		List<SuggestionTrie.Suggestion> suggestions = Suggester.getInstance().suggest(query, limit);
+		response.setContentType("application/json;charset=UTF-8");
+		response.setHeader("Cache-Control", "public, max-age=60");
+		try (PrintWriter out = response.getWriter()) {
+			JsonWriter json = new JsonWriter(out);
+			json.beginObject();
+			json.name("query").value(query);
+			json.name("suggestions").beginArray();
+			for (SuggestionTrie.Suggestion s : suggestions) {
+				json.beginObject();
+				json.name("text").value(s.getText());
+				json.name("type").value(s.getType());
+				if (s.getProductId() > 0) {
+					json.name("id").value(s.getProductId());
+				}
+				json.endObject();
+			}
+			json.endArray();
+			json.endObject();
+		}
+	}
+}
@@ -0,0 +1,319 @@
+package com.store.app.servlet;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Resized JPEG variants of product images, kept on local disk.
+ * <p>
+ * Requested widths are rounded up to one of {@link #WIDTHS}, so a page can
+ * only cause a handful of variants per image. A missing variant is rendered
+ * once on a small bounded pool; concurrent requests for the same variant wait
+ * for the same job. Files are named after the source content hash, so a
+ * changed source never serves a stale thumbnail. The directory is capped at
+ * {@code store.images.cacheBytes}; the least recently served files are
+ * deleted first.
+ */
+public class ThumbnailCache {
+	static final int[] WIDTHS = { 160, 320, 640 };
+	private static volatile ThumbnailCache instance;
+
+	private final Path dir;
+	private final long maxBytes;
+	private final float quality;
+	private final Executor executor;
+	private final long timeoutMillis;
+	private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+	/** File name to size, least recently used first. Guarded by itself. */
+	private final LinkedHashMap<String, Long> lru = new LinkedHashMap<>(64, 0.75f, true);
+	private long totalBytes;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder renders = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public ThumbnailCache(Path dir, long maxBytes, float quality, Executor executor, long timeoutMillis)
+			throws IOException {
+		this.dir = dir;
+		this.maxBytes = maxBytes;
+		this.quality = quality;
+		this.executor = executor;
+		this.timeoutMillis = timeoutMillis;
+		Files.createDirectories(dir);
+		load();
+	}
+
+	/** Shared instance configured by {@code store.images.*} system properties, or null if its directory is unusable. */
+	public static ThumbnailCache getInstance() {
+		ThumbnailCache c = instance;
+		if (c == null) {
+			synchronized (ThumbnailCache.class) {
+				c = instance;
+				if (c == null) {
+					int threads = Integer.getInteger("store.images.threads", 2);
+					AtomicInteger n = new AtomicInteger();
+					ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+							new ArrayBlockingQueue<>(Integer.getInteger("store.images.queueLimit", 50)), r -> {
+								Thread t = new Thread(r, "store-thumbnail-" + n.incrementAndGet());
+								t.setDaemon(true);
+								return t;
+							});
+					pool.allowCoreThreadTimeOut(true);
+					String dir = System.getProperty("store.images.cacheDir",
+							System.getProperty("catalina.base", ".") + "/work/store-thumbnails");
+					try {
+						c = new ThumbnailCache(Paths.get(dir),
+								Long.getLong("store.images.cacheBytes", 256L * 1024 * 1024),
+								Integer.getInteger("store.images.quality", 80) / 100f,
+								pool, Long.getLong("store.images.timeoutMillis", 5_000));
+					} catch (IOException e) {
+						System.err.println("Thumbnail cache unavailable at " + dir + " - " + e.getMessage());
+						pool.shutdown();
+						return null;
+					}
+					instance = c;
+				}
+			}
+		}
+		return c;
+	}
+
+	/** The shared instance if something already created it, else null; never creates one. */
+	public static ThumbnailCache peek() {
+		return instance;
+	}
+
+	public static synchronized void shutdown() {
+		if (instance != null && instance.executor instanceof ThreadPoolExecutor) {
+			((ThreadPoolExecutor) instance.executor).shutdown();
+		}
+		instance = null;
+	}
+
+	/** Smallest bucket at least {@code width} wide, or the largest bucket. */
+	static int bucket(int width) {
+		for (int w : WIDTHS) {
+			if (width <= w) {
+				return w;
+			}
+		}
+		return WIDTHS[WIDTHS.length - 1];
+	}
+
+	/**
+	 * The variant of {@code source} for the width bucket, rendering it if needed.
+	 * Returns null if the source is not a readable image.
+	 *
+	 * @throws RejectedExecutionException if the pool is saturated or rendering took too long
+	 */
+	public Path get(Path source, String sourceHash, int width) throws IOException {
+		int w = bucket(width);
+		String name = sourceHash + "-w" + w + "-q" + Math.round(quality * 100) + ".jpg";
+		synchronized (lru) {
+			if (lru.get(name) != null) {
+				hits.increment();
+				return dir.resolve(name);
+			}
+		}
+		CompletableFuture<Path> job = new CompletableFuture<>();
+		CompletableFuture<Path> running = inFlight.putIfAbsent(name, job);
+		if (running != null) {
+			job = running;
+		} else {
+			CompletableFuture<Path> f = job;
+			try {
+				executor.execute(() -> {
+					try {
+						f.complete(render(source, w, name));
+					} catch (IOException | RuntimeException e) {
+						f.completeExceptionally(e);
+					} finally {
+						inFlight.remove(name, f);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				inFlight.remove(name, f);
+				f.completeExceptionally(e);
+			}
+		}
+		try {
+			return job.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			rejected.increment();
+			throw new RejectedExecutionException("Thumbnail not ready after " + timeoutMillis + " ms");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for a thumbnail");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RejectedExecutionException) {
+				rejected.increment();
+				throw (RejectedExecutionException) cause;
+			}
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IllegalStateException("Thumbnail rendering failed", cause);
+		}
+	}
+
+	private Path render(Path source, int width, String name) throws IOException {
+		BufferedImage src = ImageIO.read(source.toFile());
+		if (src == null) {
+			return null;
+		}
+		renders.increment();
+		BufferedImage scaled = scale(src, Math.min(width, src.getWidth()));
+		Path tmp = Files.createTempFile(dir, name, ".tmp");
+		try {
+			writeJpeg(scaled, tmp);
+			Path target = dir.resolve(name);
+			Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			added(name, Files.size(target));
+			return target;
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/** Halves the image until close to the target, then draws it at the target: cheap and without heavy aliasing. */
+	static BufferedImage scale(BufferedImage src, int width) {
+		int height = Math.max(1, (int) Math.round(src.getHeight() * (width / (double) src.getWidth())));
+		BufferedImage current = src;
+		int w = src.getWidth();
+		int h = src.getHeight();
+		do {
+			w = Math.max(width, w / 2);
+			h = Math.max(height, h / 2);
+			BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = next.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+				// JPEG has no alpha: transparent PNG areas become white
+				g.setColor(Color.WHITE);
+				g.fillRect(0, 0, w, h);
+				g.drawImage(current, 0, 0, w, h, null);
+			} finally {
+				g.dispose();
+			}
+			current = next;
+		} while (w != width || h != height);
+		return current;
+	}
+
+	private void writeJpeg(BufferedImage image, Path file) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(quality);
+		try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+			writer.setOutput(out);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+	}
+
+	private void load() throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+			for (Path p : ds) {
+				if (p.getFileName().toString().endsWith(".tmp")) {
+					Files.deleteIfExists(p); // left by a crash mid-render
+				} else if (Files.isRegularFile(p)) {
+					files.add(p);
+				}
+			}
+		}
+		// oldest first, so the LRU order roughly survives a restart
+		files.sort((a, b) -> {
+			try {
+				return Files.getLastModifiedTime(a).compareTo(Files.getLastModifiedTime(b));
+			} catch (IOException e) {
+				return 0;
+			}
+		});
+		for (Path p : files) {
+			added(p.getFileName().toString(), Files.size(p));
+		}
+	}
+
+	private void added(String name, long size) {
+		List<String> evicted = new ArrayList<>();
+		synchronized (lru) {
+			Long previous = lru.put(name, size);
+			totalBytes += size - (previous == null ? 0 : previous);
+			Iterator<Map.Entry<String, Long>> it = lru.entrySet().iterator();
+			while (totalBytes > maxBytes && it.hasNext()) {
+				Map.Entry<String, Long> e = it.next();
+				if (e.getKey().equals(name)) {
+					continue; // never evict what we are about to serve
+				}
+				totalBytes -= e.getValue();
+				evicted.add(e.getKey());
+				it.remove();
+			}
+		}
+		for (String old : evicted) {
+			evictions.increment();
+			try {
+				Files.deleteIfExists(dir.resolve(old));
+			} catch (IOException e) {
+				System.err.println("Could not delete thumbnail " + old + " - " + e.getMessage());
+			}
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getRenders() {
+		return renders.sum();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	public long getBytes() {
+		synchronized (lru) {
+			return totalBytes;
+		}
+	}
+}
@@ -8,14 +8,14 @@
 	if(auth != null){
 		request.setAttribute("auth", auth);
 	}
-	ArrayList<Cart> cart_list = (ArrayList<Cart>) session.getAttribute("cart-session");
-	ProductDao cpd = new ProductDao(dbConnection.getConnection());
+	SessionCart cart_list = (SessionCart) session.getAttribute("cart-session");
 	List<Cart> cartProduct = null;
 	if(cart_list != null){
-		cartProduct = cpd.getCartProduct(cart_list);
+		PricedCart priced = CatalogCache.getInstance().priceCart(cart_list);
+		cartProduct = priced.getLines();
 		request.setAttribute("cart_list", cart_list);
 		
-		double TotaleP = cpd.totalPrice(cart_list);
+		double TotaleP = priced.getTotal();
 		request.setAttribute("TotaleP", TotaleP);
 	}
 %>
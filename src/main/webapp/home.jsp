@@ -4,15 +4,33 @@
 <%@ page import="com.store.app.model.*" %>
 <%@ page import="com.store.app.dao.*" %>
 <%@ page import="com.store.app.connection.*" %>
+<%@ page import="com.store.app.servlet.ProductGridCache" %>
 <% User auth = (User) request.getSession().getAttribute("auth"); 
 	if(auth != null){
 		request.setAttribute("auth", auth);
 	}
 	
-	ProductDao pd = new ProductDao(dbConnection.getConnection());
-	List<Product> products = pd.showProducts();
+	String category = request.getParameter("category");
+	int after = 0;
+	try {
+		after = Integer.parseInt(request.getParameter("after"));
+	} catch (NumberFormatException e) {
+		// first page
+	}
+	int price = CategoryIndex.ANY_PRICE;
+	try {
+		price = Integer.parseInt(request.getParameter("price"));
+		if (price < 0 || price > CategoryIndex.PRICE_BOUNDS.length) {
+			price = CategoryIndex.ANY_PRICE;
+		}
+	} catch (NumberFormatException e) {
+		// any price
+	}
+	ProductGridCache gridCache = ProductGridCache.getInstance();
+	ProductGridCache.Fragment grid = gridCache.get(category, price, after, ProductDao.DEFAULT_PAGE_SIZE);
+	ProductPage productPage = grid.getPage();
 	
-	ArrayList<Cart> cart_list = (ArrayList<Cart>) session.getAttribute("cart-session");
+	SessionCart cart_list = (SessionCart) session.getAttribute("cart-session");
 	List<Cart> cartProduct = null;
 	if(cart_list != null){
 		request.setAttribute("cart_list", cart_list);
@@ -29,27 +47,15 @@
 <%@ include file="includes/navbar.jsp" %>
 <div class="container">
 <div class="card-header my-3">All Products</div>
+<%= gridCache.navigation(category, price) %>
 <div class="row">
-			<% if(!products.isEmpty()){
-				for(Product p:products){ %>
-					<div class="col-md-3 my-3">
-					<div class="card" style="width: 18rem;">
-					  <img src="product-images/image.jpg" class="card-img-top" alt="...">
-					  <div class="card-body">
-					    <h5 class="card-title"><%= p.getName() %></h5>
-					    <h6 class="price"><%= p.getPrice() %></h6>
-					    <h6 class="category"><%= p.getCategory() %></h6>
-					    <div class="mt-3 d-flex justify-content-between">
-					    <a href="CartServlet?id=<%= p.getId() %>" class="btn btn-dark">Add to Cart</a>
-					    <a href="Operations?action=post&quantity=1&id=<%= p.getId() %>" class="btn btn-primary">Buy Now</a>
-					    </div>
-					  </div>
-			</div>
-			</div>
-			<%	}
-			} %>
-	
+<%= grid.getHtml() %>
+</div>
+<% if(productPage.hasMore()){ %>
+<div class="my-3 text-center">
+	<a class="btn btn-outline-dark" href="home.jsp?after=<%= productPage.getNextAfterId() %><%= category != null ? "&category=" + java.net.URLEncoder.encode(category, "UTF-8") : "" %><%= price != CategoryIndex.ANY_PRICE ? "&price=" + price : "" %>">Next page</a>
 </div>
+<% } %>
 </div>
 <%@ include file="includes/footer.jsp" %>
 </body>
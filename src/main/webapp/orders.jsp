@@ -6,12 +6,15 @@
 	<%@ page import="java.util.*" %>
 <% User auth = (User) request.getSession().getAttribute("auth"); 
 List<Order> orders = null ;
+OrderPage orderPage = null;
 	if(auth != null){
 		request.setAttribute("auth", auth);
-		 orders = new OrderDao(dbConnection.getConnection()).userOrders(auth.getId());
+		 orderPage = Daos.orders()
+				 .userOrders(auth.getId(), OrderCursor.parse(request.getParameter("before")), 50);
+		 orders = orderPage.getOrders();
 	}
 	
-	ArrayList<Cart> cart_list = (ArrayList<Cart>) session.getAttribute("cart-session");
+	SessionCart cart_list = (SessionCart) session.getAttribute("cart-session");
 	if(cart_list != null){
 		request.setAttribute("cart_list", cart_list);
 	}
@@ -51,6 +54,9 @@ List<Order> orders = null ;
 					</tr>
 			</tbody>
 		</table>
+		<% if(orderPage != null && orderPage.hasMore()){ %>
+			<a class="btn btn-sm btn-outline-primary" href="orders.jsp?before=<%= orderPage.getNextCursor() %>">Older orders</a>
+		<% } %>
 	</div>
 	<%@ include file="includes/footer.jsp"%>
 </body>
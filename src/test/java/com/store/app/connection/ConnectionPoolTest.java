@@ -0,0 +1,189 @@
+package com.store.app.connection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionPoolTest {
+
+    private List<Connection> opened;
+    private PoolConfig config;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setup() {
+        opened = new ArrayList<>();
+        config = new PoolConfig();
+        config.setMinSize(0);
+        config.setMaxSize(2);
+        config.setBorrowTimeoutMillis(100);
+        config.setHousekeepingPeriodMillis(60_000);
+        config.setLeakDetectionThresholdMillis(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ConnectionPool newPool() {
+        pool = new ConnectionPool(config, () -> {
+            Connection c = mock(Connection.class);
+            when(c.getAutoCommit()).thenReturn(true);
+            when(c.isValid(anyInt())).thenReturn(true);
+            opened.add(c);
+            return c;
+        });
+        return pool;
+    }
+
+    @Test
+    void close_shouldReturnConnectionForReuse() throws Exception {
+        newPool();
+
+        try (Connection c = pool.getConnection()) {
+            assertEquals(1, pool.getStats().getActive());
+        }
+        try (Connection c = pool.getConnection()) {
+            assertFalse(c.isClosed());
+        }
+
+        assertEquals(1, opened.size(), "second borrow must reuse the idle connection");
+        PoolStats stats = pool.getStats();
+        assertEquals(0, stats.getActive());
+        assertEquals(1, stats.getIdle());
+        assertEquals(2, stats.getWaitTime().getCount());
+        verify(opened.get(0), never()).close();
+    }
+
+    @Test
+    void getConnection_whenExhausted_shouldTimeOut() throws Exception {
+        newPool();
+        Connection c1 = pool.getConnection();
+        Connection c2 = pool.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, () -> pool.getConnection());
+        assertEquals(1, pool.getStats().getTimeouts());
+
+        c1.close();
+        c2.close();
+    }
+
+    @Test
+    void close_shouldCloseLeakedStatementsAndRollBack() throws Exception {
+        config.setStatementCacheSize(0);
+        newPool();
+        Connection raw;
+        PreparedStatement ps = mock(PreparedStatement.class);
+        try (Connection c = pool.getConnection()) {
+            raw = opened.get(0);
+            when(raw.prepareStatement("select 1")).thenReturn(ps);
+            when(raw.getAutoCommit()).thenReturn(false);
+            c.prepareStatement("select 1");
+        }
+
+        verify(ps).close();
+        verify(raw).rollback();
+        verify(raw).setAutoCommit(true);
+    }
+
+    @Test
+    void closedHandle_shouldRejectFurtherUse() throws Exception {
+        newPool();
+        Connection c = pool.getConnection();
+        c.close();
+        c.close();
+
+        assertTrue(c.isClosed());
+        assertThrows(SQLException.class, () -> c.prepareStatement("select 1"));
+        assertEquals(1, pool.getStats().getIdle());
+    }
+
+    @Test
+    void housekeep_shouldFillToMinimumAndEvictIdle() throws Exception {
+        config.setMinSize(1);
+        config.setIdleTimeoutMillis(0);
+        newPool();
+        pool.housekeep();
+        assertEquals(1, pool.getStats().getTotal());
+
+        Connection c1 = pool.getConnection();
+        Connection c2 = pool.getConnection();
+        c1.close();
+        c2.close();
+        Thread.sleep(5);
+        pool.housekeep();
+
+        assertEquals(1, pool.getStats().getTotal(), "idle connections above min size are evicted");
+    }
+
+    @Test
+    void getConnection_shouldDiscardConnectionsFailingValidation() throws Exception {
+        newPool();
+        try (Connection c = pool.getConnection()) {
+            when(opened.get(0).isValid(anyInt())).thenReturn(false);
+        }
+        Thread.sleep(600); // past the validation bypass window
+
+        try (Connection c = pool.getConnection()) {
+            assertEquals(2, opened.size());
+        }
+        verify(opened.get(0)).close();
+    }
+
+    @Test
+    void prepareStatement_shouldReuseCachedStatementAcrossBorrows() throws Exception {
+        newPool();
+        PreparedStatement raw = mock(PreparedStatement.class);
+        try (Connection c = pool.getConnection()) {
+            when(opened.get(0).prepareStatement("select 1")).thenReturn(raw);
+            try (PreparedStatement ps = c.prepareStatement("select 1")) {
+                ps.setInt(1, 5);
+            }
+        }
+        try (Connection c = pool.getConnection();
+             PreparedStatement ps = c.prepareStatement("select 1")) {
+            ps.setInt(1, 6);
+            assertSame(c, ps.getConnection());
+        }
+
+        verify(opened.get(0), times(1)).prepareStatement("select 1");
+        verify(raw).setInt(1, 5);
+        verify(raw).setInt(1, 6);
+        verify(raw, times(2)).clearParameters();
+        verify(raw, never()).close();
+    }
+
+    @Test
+    void prepareStatement_whenCachedStatementInUse_shouldPrepareAnotherOne() throws Exception {
+        newPool();
+        PreparedStatement first = mock(PreparedStatement.class);
+        PreparedStatement second = mock(PreparedStatement.class);
+        try (Connection c = pool.getConnection()) {
+            when(opened.get(0).prepareStatement("select 1")).thenReturn(first, second);
+            PreparedStatement outer = c.prepareStatement("select 1");
+            PreparedStatement inner = c.prepareStatement("select 1");
+            inner.setInt(1, 1);
+            outer.close();
+
+            assertTrue(outer.isClosed());
+            assertThrows(SQLException.class, () -> outer.setInt(1, 2));
+        }
+
+        verify(second).setInt(1, 1);
+        verify(second).close(); // uncached statements are closed when the connection returns
+        verify(first, never()).close();
+    }
+}
@@ -0,0 +1,250 @@
+package com.store.app.dao;
+
+import com.store.app.model.PricedCart;
+import com.store.app.model.Product;
+import com.store.app.model.ProductPage;
+import com.store.app.model.SessionCart;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogCacheTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private ProductDao dao;
+    private CatalogCache cache;
+
+    @BeforeEach
+    void setup() {
+        dao = mock(ProductDao.class);
+        cache = new CatalogCache(dao, 60_000, 2, now::get);
+    }
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    void getSingleProduct_shouldHitDbOnlyOnFirstCall() {
+        // given
+        Product p = new Product(1, "Laptop", "Electronics", 999.99, "laptop.jpg");
+        when(dao.getSingleProduct(1)).thenReturn(p);
+
+        // when
+        Product first = cache.getSingleProduct(1);
+        Product second = cache.getSingleProduct(1);
+
+        // then
+        assertSame(p, first);
+        assertSame(p, second);
+        verify(dao, times(1)).getSingleProduct(1);
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+    }
+
+    @Test
+    void put_whenFull_shouldEvictOldestEntry() {
+        // given
+        for (int id = 1; id <= 3; id++) {
+            when(dao.getSingleProduct(id)).thenReturn(new Product(id, "P" + id, "C", id, null));
+        }
+
+        // when
+        cache.getSingleProduct(1);
+        cache.getSingleProduct(2);
+        cache.getSingleProduct(3);
+
+        // then
+        assertEquals(2, cache.getStats().getSize());
+        assertEquals(1, cache.getStats().getEvictions());
+        cache.getSingleProduct(1);
+        verify(dao, times(2)).getSingleProduct(1);
+    }
+
+    @Test
+    void showProducts_shouldCacheListingUntilExpired() {
+        // given
+        cache = new CatalogCache(dao, 20, 10, now::get);
+        List<Product> rows = Arrays.asList(new Product(1, "A", "C", 1.0, null));
+        when(dao.showProducts()).thenReturn(rows);
+
+        // when
+        cache.showProducts();
+        cache.showProducts();
+        advanceMillis(30);
+        cache.showProducts();
+
+        // then
+        verify(dao, times(2)).showProducts();
+        assertThrows(UnsupportedOperationException.class, () -> cache.showProducts().clear());
+    }
+
+    @Test
+    void showProducts_whenQueryFails_shouldNotCacheTheFailure() {
+        // given: la première requête échoue
+        List<Product> rows = Arrays.asList(new Product(1, "A", "C", 1.0, null));
+        when(dao.showProducts()).thenReturn(null, rows);
+
+        // when
+        List<Product> failed = cache.showProducts();
+        List<Product> retried = cache.showProducts();
+        cache.showProducts();
+
+        // then: la page d'accueil n'est pas vide pendant tout le TTL
+        assertTrue(failed.isEmpty());
+        assertEquals(rows, retried);
+        verify(dao, times(2)).showProducts();
+    }
+
+    @Test
+    void listProducts_whenQueryFails_shouldNotCacheTheFailure() {
+        // given
+        when(dao.listProducts("C", 0, 20)).thenReturn(null,
+                new ProductPage(Arrays.asList(new Product(1, "A", "C", 1.0, null)), 0));
+
+        // when
+        ProductPage failed = cache.listProducts("C", 0, 20);
+        ProductPage retried = cache.listProducts("C", 0, 20);
+
+        // then
+        assertTrue(failed.getProducts().isEmpty());
+        assertEquals(1, retried.getProducts().size());
+        verify(dao, times(2)).listProducts("C", 0, 20);
+    }
+
+    @Test
+    void showProducts_whenRefreshFails_shouldServeExpiredListing() {
+        // given
+        List<Product> rows = Arrays.asList(new Product(1, "A", "C", 1.0, null));
+        when(dao.showProducts()).thenReturn(rows, null, rows);
+        cache.showProducts();
+        advanceMillis(61_000);
+
+        // when
+        List<Product> stale = cache.showProducts();
+        List<Product> retried = cache.showProducts();
+
+        // then: l'ancienne liste plutôt qu'une page vide, et on réessaie aussitôt
+        assertEquals(rows, stale);
+        assertEquals(rows, retried);
+        verify(dao, times(3)).showProducts();
+    }
+
+    @Test
+    void invalidate_shouldDropProductAndListings() {
+        // given
+        when(dao.getSingleProduct(1)).thenReturn(new Product(1, "A", "C", 10.0, null), new Product(1, "A", "C", 8.0, null));
+        when(dao.showProducts()).thenReturn(Arrays.asList(new Product(1, "A", "C", 10.0, null)));
+        cache.getSingleProduct(1);
+        cache.showProducts();
+
+        // when: un changement de prix vient d'être validé
+        cache.invalidate(1);
+
+        // then
+        assertEquals(8.0, cache.getSingleProduct(1).getPrice());
+        cache.showProducts();
+        verify(dao, times(2)).showProducts();
+    }
+
+    @Test
+    void entries_shouldExpireAfterTtl() {
+        // given
+        cache = new CatalogCache(dao, 1, 10, now::get);
+        when(dao.getSingleProduct(5)).thenReturn(new Product(5, "A", "C", 1.0, null));
+
+        // when
+        cache.getSingleProduct(5);
+        advanceMillis(5);
+        cache.getSingleProduct(5);
+
+        // then
+        verify(dao, times(2)).getSingleProduct(5);
+    }
+
+    private static Map<Integer, Product> catalog(Product... products) {
+        Map<Integer, Product> m = new HashMap<>();
+        for (Product p : products) {
+            m.put(p.getId(), p);
+        }
+        return m;
+    }
+
+    @Test
+    void priceCart_shouldQueryOnlyNewLinesAndReuseRunningTotal() {
+        // given
+        SessionCart cart = new SessionCart();
+        cart.add(1, 2);
+        when(dao.getProductsByIds(any())).thenReturn(
+                catalog(new Product(1, "A", "C", 10.0, null)),
+                catalog(new Product(2, "B", "C", 5.0, null)));
+
+        // when
+        PricedCart first = cache.priceCart(cart);
+        cart.increment(1);
+        PricedCart afterIncrement = cache.priceCart(cart);
+        cart.add(2, 1);
+        PricedCart afterAdd = cache.priceCart(cart);
+        cart.remove(1);
+        PricedCart afterRemove = cache.priceCart(cart);
+
+        // then
+        assertEquals(20.0, first.getTotal());
+        assertEquals(30.0, afterIncrement.getTotal());
+        assertEquals(35.0, afterAdd.getTotal());
+        assertEquals(2, afterAdd.getLines().size());
+        assertEquals(5.0, afterRemove.getTotal());
+        verify(dao).getProductsByIds(new int[] { 1 });
+        verify(dao).getProductsByIds(new int[] { 2 });
+        verifyNoMoreInteractions(dao);
+        assertEquals(2, cache.getCartHits());
+    }
+
+    @Test
+    void priceCart_afterTtl_shouldRepriceEveryLine() {
+        // given
+        cache = new CatalogCache(dao, 20, 10, now::get);
+        SessionCart cart = new SessionCart();
+        cart.add(1, 1);
+        cart.add(2, 1);
+        when(dao.getProductsByIds(any())).thenReturn(
+                catalog(new Product(1, "A", "C", 10.0, null), new Product(2, "B", "C", 5.0, null)),
+                catalog(new Product(1, "A", "C", 8.0, null)));
+        cache.priceCart(cart);
+
+        // when: le produit 2 a disparu du catalogue entre-temps
+        advanceMillis(30);
+        PricedCart repriced = cache.priceCart(cart);
+
+        // then
+        assertEquals(8.0, repriced.getTotal());
+        assertEquals(1, repriced.getLines().size());
+        assertEquals(2, cart.size(), "la ligne reste dans le panier");
+        verify(dao, times(2)).getProductsByIds(any());
+    }
+
+    @Test
+    void priceCart_whenQueryFails_shouldKeepCartUnpriced() {
+        // given
+        SessionCart cart = new SessionCart();
+        cart.add(1, 1);
+        when(dao.getProductsByIds(any())).thenReturn(null, catalog(new Product(1, "A", "C", 10.0, null)));
+
+        // when
+        PricedCart failed = cache.priceCart(cart);
+        PricedCart retried = cache.priceCart(cart);
+
+        // then
+        assertTrue(failed.getLines().isEmpty());
+        assertEquals(10.0, retried.getTotal());
+    }
+}
@@ -0,0 +1,189 @@
+package com.store.app.dao;
+
+import com.store.app.model.Product;
+import com.store.app.model.ProductPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CategoryIndexTest {
+
+    private ProductDao dao;
+    private CategoryIndex index;
+
+    @BeforeEach
+    void setup() {
+        dao = mock(ProductDao.class);
+        index = new CategoryIndex(dao, 60_000);
+        when(dao.showProducts()).thenReturn(new ArrayList<>(Arrays.asList(
+                new Product(1, "Laptop", "Electronics", 899.0, null),
+                new Product(2, "Mug", "Kitchen", 9.0, null),
+                new Product(3, "Mouse", "Electronics", 19.0, null),
+                new Product(4, "Cable", "Electronics", 30.0, null),
+                new Product(5, "Kettle", "Kitchen", 45.0, null))));
+    }
+
+    private static List<Integer> ids(ProductPage page) {
+        return page.getProducts().stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void listProducts_shouldPageWithinCategory_fromMemory() {
+        // when
+        ProductPage first = index.listProducts("Electronics", CategoryIndex.ANY_PRICE, 0, 2);
+        ProductPage second = index.listProducts("Electronics", CategoryIndex.ANY_PRICE, first.getNextAfterId(), 2);
+
+        // then: une seule requête pour tout le catalogue
+        assertEquals(Arrays.asList(1, 3), ids(first));
+        assertEquals(3, first.getNextAfterId());
+        assertEquals(Arrays.asList(4), ids(second));
+        assertFalse(second.hasMore());
+        verify(dao, times(1)).showProducts();
+    }
+
+    @Test
+    void listProducts_shouldFilterByPriceRange() {
+        // when: 25 <= prix < 50
+        ProductPage page = index.listProducts(null, 1, 0, 10);
+
+        // then
+        assertEquals(Arrays.asList(4, 5), ids(page));
+        assertTrue(index.listProducts("Toys", CategoryIndex.ANY_PRICE, 0, 10).getProducts().isEmpty());
+    }
+
+    @Test
+    void listProducts_shouldPageWithinCategoryAndPriceRange() {
+        // when: 0 <= prix < 25, une ligne par page
+        ProductPage first = index.listProducts(null, 0, 0, 1);
+        ProductPage second = index.listProducts(null, 0, first.getNextAfterId(), 1);
+
+        // then
+        assertEquals(Arrays.asList(2), ids(first));
+        assertEquals(Arrays.asList(3), ids(second));
+        assertFalse(second.hasMore());
+        assertEquals(Arrays.asList(4), ids(index.listProducts("Electronics", 1, 0, 10)));
+        assertTrue(index.listProducts("Kitchen", 5, 0, 10).getProducts().isEmpty());
+    }
+
+    @Test
+    void facets_shouldNotCountUncategorizedProductsTwice() {
+        // given
+        index.replaceAll(Arrays.asList(new Product(1, "Gift card", null, 10.0, null),
+                new Product(2, "Mug", "Kitchen", 9.0, null)));
+
+        // when
+        CategoryIndex.Facets facets = index.facets();
+
+        // then
+        assertArrayEquals(new int[] { 2, 0, 0, 0, 0, 0 }, facets.getPriceCounts(null));
+        assertEquals(1, facets.getCategories().size());
+    }
+
+    @Test
+    void facets_shouldCountCategoriesAndPriceRanges() {
+        // when
+        CategoryIndex.Facets facets = index.facets();
+
+        // then
+        assertEquals(5, facets.getTotal());
+        assertEquals(Integer.valueOf(3), facets.getCategories().get("Electronics"));
+        assertEquals(Integer.valueOf(2), facets.getCategories().get("Kitchen"));
+        assertArrayEquals(new int[] { 2, 2, 0, 0, 0, 1 }, facets.getPriceCounts(null));
+        assertArrayEquals(new int[] { 1, 1, 0, 0, 0, 1 }, facets.getPriceCounts("Electronics"));
+        assertSame(facets, index.facets(), "calculées une fois par instantané");
+    }
+
+    @Test
+    void reload_shouldMoveVersionOnlyWhenRowsChange() {
+        // given
+        index.facets();
+        long loaded = index.version();
+
+        // when: mêmes lignes, puis le mug change de catégorie
+        index.reload();
+        long unchanged = index.version();
+        CategoryIndex.Facets before = index.facets();
+        when(dao.showProducts()).thenReturn(Arrays.asList(
+                new Product(1, "Laptop", "Electronics", 899.0, null),
+                new Product(2, "Mug", "Office", 12.0, null)));
+        index.reload();
+
+        // then: l'ancien instantané reste intact pour qui le lisait
+        assertEquals(loaded, unchanged);
+        assertTrue(index.version() > unchanged);
+        assertEquals(Integer.valueOf(1), index.facets().getCategories().get("Office"));
+        assertEquals(Integer.valueOf(2), before.getCategories().get("Kitchen"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void reload_whenQueryReturnsNothing_shouldKeepCurrentIndex() {
+        // given
+        index.facets();
+        when(dao.showProducts()).thenReturn(new ArrayList<>());
+
+        // when
+        boolean ok = index.reload();
+
+        // then
+        assertFalse(ok);
+        assertEquals(5, index.size());
+        assertEquals(1, index.getReloadFailures());
+    }
+
+    @Test
+    void refresh_shouldRunOnTheScheduler() {
+        // given: le planificateur est simulé, le test ne dépend d'aucun délai
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        CategoryIndex refreshing = new CategoryIndex(dao, scheduler, 10);
+        ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleWithFixedDelay(refresh.capture(), eq(10L), eq(10L), eq(TimeUnit.MILLISECONDS));
+        refreshing.ensureLoaded();
+        long loaded = refreshing.version();
+        when(dao.showProducts()).thenReturn(Arrays.asList(new Product(9, "Desk", "Office", 150.0, null)));
+
+        // when: aucun lecteur ne déclenche le rechargement
+        refresh.getValue().run();
+
+        // then
+        assertTrue(refreshing.version() > loaded);
+        assertEquals(1, refreshing.size());
+    }
+
+    @Test
+    void mayExist_shouldAnswerFromMemoryOnly() {
+        // before the first load nothing is refused, and nothing is queried
+        assertTrue(index.mayExist(42));
+        verifyNoInteractions(dao);
+
+        // given
+        index.ensureLoaded();
+
+        // then: 3 est connu, 0 et un trou dans la plage non, 6 peut être un produit ajouté depuis
+        assertTrue(index.mayExist(3));
+        assertFalse(index.mayExist(0));
+        when(dao.showProducts()).thenReturn(Arrays.asList(
+                new Product(1, "Laptop", "Electronics", 899.0, null),
+                new Product(5, "Kettle", "Kitchen", 45.0, null)));
+        index.reload();
+        assertFalse(index.mayExist(3));
+        assertTrue(index.mayExist(6));
+    }
+
+    @Test
+    void priceBucket_shouldUseUpperBoundsExclusive() {
+        assertEquals(0, CategoryIndex.priceBucket(24.99));
+        assertEquals(1, CategoryIndex.priceBucket(25));
+        assertEquals(CategoryIndex.PRICE_BOUNDS.length, CategoryIndex.priceBucket(10_000));
+    }
+}
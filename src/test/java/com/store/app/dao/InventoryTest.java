@@ -0,0 +1,160 @@
+package com.store.app.dao;
+
+import com.store.app.connection.ConnectionProvider;
+import com.store.app.model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class InventoryTest {
+
+    private ProductDao dao;
+    private Connection con;
+    private PreparedStatement ps;
+    private Inventory inventory;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        dao = mock(ProductDao.class);
+        con = mock(Connection.class);
+        ps = mock(PreparedStatement.class);
+        when(con.prepareStatement(anyString())).thenReturn(ps);
+        inventory = new Inventory(dao, ConnectionProvider.of(con), 0);
+    }
+
+    private static Map<Integer, Integer> stock(int id, int units) {
+        return Collections.singletonMap(id, units);
+    }
+
+    private static Order order(int productId, int quantity) {
+        Order o = new Order();
+        o.setId(productId);
+        o.setQuantity(quantity);
+        return o;
+    }
+
+    @Test
+    void reserve_concurrently_shouldNeverOversell() throws Exception {
+        // given
+        when(dao.getStockByIds(any())).thenReturn(stock(1, 100));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+
+        // when: 400 acheteurs pour 100 unités
+        for (int i = 0; i < 400; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (inventory.reserve(1, 1)) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        // then
+        assertEquals(100, granted.get());
+        assertEquals(0, inventory.getAvailable(1));
+        assertEquals(300, inventory.getOutOfStock());
+        verify(dao, atLeastOnce()).getStockByIds(any());
+    }
+
+    @Test
+    void reserve_whenProductUnknown_shouldRefuse() {
+        // given
+        when(dao.getStockByIds(any())).thenReturn(Collections.emptyMap());
+
+        // when / then
+        assertFalse(inventory.reserve(5, 1));
+        assertEquals(-1, inventory.getAvailable(5));
+    }
+
+    @Test
+    void reserve_whenStockNotCounted_shouldAlwaysGrant() {
+        // given: colonne stock NULL
+        when(dao.getStockByIds(any())).thenReturn(stock(3, ProductDao.UNLIMITED_STOCK));
+
+        // when / then
+        assertTrue(inventory.reserve(3, 1_000));
+        assertTrue(inventory.reserve(3, 1_000));
+        assertEquals(0, inventory.getOutOfStock());
+    }
+
+    @Test
+    void reserveAll_whenOneLineShort_shouldReserveNothing() {
+        // given
+        when(dao.getStockByIds(new int[] { 1 })).thenReturn(stock(1, 10));
+        when(dao.getStockByIds(new int[] { 2 })).thenReturn(stock(2, 1));
+
+        // when
+        List<Order> missing = inventory.reserveAll(Arrays.asList(order(1, 3), order(2, 2)));
+
+        // then: tout ou rien
+        assertEquals(1, missing.size());
+        assertEquals(2, missing.get(0).getId());
+        assertEquals(10, inventory.getAvailable(1));
+        assertEquals(1, inventory.getAvailable(2));
+        assertEquals(0, inventory.getReserved());
+    }
+
+    @Test
+    void reconcile_shouldWriteSoldUnitsInOneBatch_andRefreshFromTable() throws Exception {
+        // given
+        when(dao.getStockByIds(any())).thenReturn(stock(1, 10), stock(1, 50));
+        assertTrue(inventory.reserve(1, 4));
+
+        // when: réassort hors application (la table passe à 50)
+        boolean ok = inventory.reconcile();
+
+        // then
+        assertTrue(ok);
+        verify(ps).setInt(1, 4);
+        verify(ps).setInt(2, 1);
+        verify(ps, times(1)).executeBatch();
+        verify(con).commit();
+        assertEquals(50, inventory.getAvailable(1));
+    }
+
+    @Test
+    void reconcile_whenWriteFails_shouldKeepSoldUnitsForNextRound() throws Exception {
+        // given
+        when(dao.getStockByIds(any())).thenReturn(stock(1, 10), stock(1, 6));
+        assertTrue(inventory.reserve(1, 4));
+        when(ps.executeBatch()).thenThrow(new SQLException("down")).thenReturn(new int[] { 1 });
+
+        // when
+        boolean first = inventory.reconcile();
+        boolean second = inventory.reconcile();
+
+        // then: les 4 unités sont réécrites au tour suivant
+        assertFalse(first);
+        assertTrue(second);
+        verify(con).rollback();
+        verify(ps, times(2)).setInt(1, 4);
+        assertEquals(1, inventory.getReconcileFailures());
+        assertEquals(6, inventory.getAvailable(1));
+    }
+}
@@ -0,0 +1,155 @@
+package com.store.app.dao;
+
+import com.store.app.model.Order;
+import com.store.app.model.OrderPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderDaoTest {
+
+    private Connection con;
+    private PreparedStatement ps;
+    private ResultSet rs;
+    private OrderDao dao;
+
+    @BeforeEach
+    void setup() throws Exception {
+        con = mock(Connection.class);
+        ps  = mock(PreparedStatement.class);
+        rs  = mock(ResultSet.class);
+        dao = new OrderDao(con);
+        when(con.prepareStatement(anyString())).thenReturn(ps);
+        when(ps.executeQuery()).thenReturn(rs);
+    }
+
+    @Test
+    void userOrders_shouldUseSingleJoinedQuery() throws Exception {
+        // given
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getInt("id")).thenReturn(11, 10);
+        when(rs.getInt("product_id")).thenReturn(3, 4);
+        when(rs.getInt("quantity")).thenReturn(2, 1);
+        when(rs.getString("name")).thenReturn("Mouse", "Pad");
+        when(rs.getDouble("price")).thenReturn(50.0, 5.0);
+
+        // when
+        List<Order> orders = dao.userOrders(7);
+
+        // then
+        assertEquals(2, orders.size());
+        assertEquals(11, orders.get(0).getOrder_id());
+        assertEquals("Mouse", orders.get(0).getName());
+        assertEquals(100.0, orders.get(0).getPrice()); // 50 * 2
+        verify(con, times(1)).prepareStatement(contains("JOIN products"));
+        verify(ps, times(1)).executeQuery();
+    }
+
+    @Test
+    void userOrdersPage_whenMoreRowsThanLimit_shouldReturnCursorOfLastRow() throws Exception {
+        // given: limit 2, la requête renvoie 3 lignes (limit + 1)
+        Timestamp t1 = new Timestamp(3_000);
+        Timestamp t2 = new Timestamp(2_000);
+        when(rs.next()).thenReturn(true, true, true);
+        when(rs.getInt("id")).thenReturn(30, 20);
+        when(rs.getTimestamp("created_at")).thenReturn(t1, t2);
+
+        // when
+        OrderPage page = dao.userOrders(7, null, 2);
+
+        // then
+        assertEquals(2, page.getOrders().size());
+        assertTrue(page.hasMore());
+        assertEquals("2000.20", page.getNextCursor());
+        verify(ps).setInt(1, 7);
+        verify(ps).setInt(2, 3);
+    }
+
+    @Test
+    void userOrdersPage_withCursor_shouldBindKeyset() throws Exception {
+        // given
+        when(rs.next()).thenReturn(false);
+        OrderCursor cursor = OrderCursor.parse("2000.20");
+
+        // when
+        OrderPage page = dao.userOrders(7, cursor, 50);
+
+        // then
+        assertTrue(page.getOrders().isEmpty());
+        assertFalse(page.hasMore());
+        verify(con).prepareStatement(contains("o.created_at < ?"));
+        verify(ps).setTimestamp(2, new Timestamp(2_000));
+        verify(ps).setTimestamp(3, new Timestamp(2_000));
+        verify(ps).setInt(4, 20);
+        verify(ps).setInt(5, 51);
+    }
+
+    @Test
+    void orderCursor_parse_shouldRejectMalformedTokens() {
+        assertNull(OrderCursor.parse(null));
+        assertNull(OrderCursor.parse("abc"));
+        assertNull(OrderCursor.parse("1.x"));
+        assertEquals("1500.9", OrderCursor.parse("1500.9").toString());
+    }
+
+    @Test
+    void submitOrders_shouldBatchInOneTransactionAndSetGeneratedKeys() throws Exception {
+        // given
+        ResultSet keys = mock(ResultSet.class);
+        when(con.getAutoCommit()).thenReturn(true);
+        when(con.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(ps);
+        when(ps.getGeneratedKeys()).thenReturn(keys);
+        when(keys.next()).thenReturn(true, true, false);
+        when(keys.getInt(1)).thenReturn(101, 102);
+
+        Order o1 = new Order(); o1.setId(3); o1.setUser_id(7); o1.setQuantity(2);
+        Order o2 = new Order(); o2.setId(4); o2.setUser_id(7); o2.setQuantity(1);
+
+        // when
+        boolean ok = dao.submitOrders(Arrays.asList(o1, o2));
+
+        // then
+        assertTrue(ok);
+        assertEquals(101, o1.getOrder_id());
+        assertEquals(102, o2.getOrder_id());
+        verify(ps, times(2)).addBatch();
+        verify(ps, times(1)).executeBatch();
+        verify(ps, never()).executeUpdate();
+        verify(con).setAutoCommit(false);
+        verify(con).commit();
+        verify(con, never()).rollback();
+        verify(con).setAutoCommit(true);
+    }
+
+    @Test
+    void submitOrders_whenBatchFails_shouldRollBackEverything() throws Exception {
+        // given
+        when(con.getAutoCommit()).thenReturn(true);
+        when(con.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(ps);
+        when(ps.executeBatch()).thenThrow(new SQLException("constraint violation"));
+
+        Order o1 = new Order(); o1.setId(3); o1.setUser_id(7); o1.setQuantity(2);
+
+        // when
+        boolean ok = dao.submitOrders(Arrays.asList(o1));
+
+        // then
+        assertFalse(ok);
+        verify(con).rollback();
+        verify(con, never()).commit();
+        verify(con).setAutoCommit(true);
+    }
+}
@@ -0,0 +1,157 @@
+package com.store.app.dao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJournalTest {
+
+    private static final int SEGMENT = 4 * OrderJournal.RECORD_SIZE; // 4 enregistrements par segment
+
+    @TempDir
+    Path dir;
+
+    private static List<PendingOrder> orders(int from, int count) {
+        List<PendingOrder> out = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            out.add(new PendingOrder(7, i, 1, 1_000L * i));
+        }
+        return out;
+    }
+
+    private long segments() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".seg")).count();
+        }
+    }
+
+    @Test
+    void reopen_shouldReplayOnlyRecordsAfterCheckpoint() throws Exception {
+        // given: 10 commandes sur 3 segments, les 6 premières insérées
+        try (OrderJournal journal = new OrderJournal(dir, SEGMENT)) {
+            journal.sync(journal.append(orders(1, 10)));
+            List<PendingOrder> first = journal.poll(6, true);
+            assertEquals(6, first.size());
+            journal.checkpoint(first.get(5).seq);
+            assertEquals(4, journal.pending());
+        }
+        assertEquals(2, segments(), "le segment entièrement inséré est supprimé");
+
+        // when
+        try (OrderJournal journal = new OrderJournal(dir, SEGMENT)) {
+            List<PendingOrder> replay = journal.poll(100, true);
+
+            // then
+            assertEquals(4, replay.size());
+            assertEquals(7, replay.get(0).productId);
+            assertEquals(7_000, replay.get(0).createdAtMillis);
+            assertEquals(10, replay.get(3).seq);
+
+            // la numérotation reprend après le dernier enregistrement
+            assertEquals(11, journal.append(orders(11, 1)));
+        }
+    }
+
+    @Test
+    void reopen_shouldSkipRecordWithBadCrc() throws Exception {
+        // given
+        try (OrderJournal journal = new OrderJournal(dir, SEGMENT)) {
+            journal.sync(journal.append(orders(1, 3)));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.toString().endsWith(".seg")).findFirst().get();
+        }
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // corrompt la quantité du 2e enregistrement
+            ch.write(ByteBuffer.allocate(4).putInt(0, 99), OrderJournal.RECORD_SIZE + 28);
+        }
+
+        // when
+        try (OrderJournal journal = new OrderJournal(dir, SEGMENT)) {
+            List<PendingOrder> replay = journal.poll(100, true);
+
+            // then
+            assertEquals(1, journal.getCorrupt());
+            assertEquals(2, replay.size());
+            assertEquals(1, replay.get(0).productId);
+            assertEquals(3, replay.get(1).productId);
+        }
+    }
+
+    @Test
+    void poll_whenSyncedOnly_shouldNotReturnUnsyncedRecords() throws Exception {
+        try (OrderJournal journal = new OrderJournal(dir, SEGMENT)) {
+            long seq = journal.append(orders(1, 2));
+            assertTrue(journal.poll(10, true).isEmpty());
+            journal.sync(seq);
+            assertEquals(2, journal.poll(10, true).size());
+        }
+    }
+
+    @Test
+    void discard_shouldHideRecordsFromReaderAndRecovery() throws Exception {
+        // given: un premier lot durable, un second dont la synchronisation a échoué
+        try (OrderJournal journal = new OrderJournal(dir, SEGMENT)) {
+            journal.sync(journal.append(orders(1, 2)));
+            long last = journal.append(orders(3, 3));
+
+            // when
+            assertTrue(journal.discard(last - 2, last));
+            journal.sync();
+
+            // then: le lecteur ne voit que le premier lot
+            assertEquals(2, journal.poll(100, true).size());
+        }
+        try (OrderJournal journal = new OrderJournal(dir, SEGMENT)) {
+            List<PendingOrder> replay = journal.poll(100, true);
+            assertEquals(2, replay.size());
+            assertEquals(0, journal.getCorrupt(), "un enregistrement annulé n'est pas corrompu");
+            assertEquals(6, journal.append(orders(6, 1)), "les numéros annulés ne sont pas réutilisés");
+        }
+    }
+
+    @Test
+    void discard_whenAlreadySynced_shouldKeepRecords() throws Exception {
+        try (OrderJournal journal = new OrderJournal(dir, SEGMENT)) {
+            long last = journal.append(orders(1, 2));
+            // un autre appelant a synchronisé entre-temps
+            journal.sync();
+
+            assertFalse(journal.discard(last - 1, last));
+            assertEquals(2, journal.poll(100, true).size());
+        }
+    }
+
+    @Test
+    void reopen_shouldKeepJournalId() throws Exception {
+        long id;
+        try (OrderJournal journal = new OrderJournal(dir, SEGMENT)) {
+            id = journal.getId();
+        }
+
+        // when / then: même répertoire, même identifiant
+        try (OrderJournal journal = new OrderJournal(dir, SEGMENT)) {
+            assertEquals(id, journal.getId());
+        }
+    }
+
+    @Test
+    void open_whenIdUnreadable_shouldFail() throws Exception {
+        // given
+        Files.write(dir.resolve("id"), new byte[] { 1, 2, 3 });
+
+        // when / then: un nouvel identifiant réinsérerait les commandes conservées
+        assertThrows(java.io.IOException.class, () -> new OrderJournal(dir, SEGMENT));
+    }
+}
@@ -0,0 +1,203 @@
+package com.store.app.dao;
+
+import com.store.app.connection.ConnectionProvider;
+import com.store.app.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderWriteBehindTest {
+
+    @TempDir
+    Path dir;
+
+    private ConnectionProvider provider;
+    private Connection con;
+    private PreparedStatement ps;
+    private WriteBehindConfig config;
+    private OrderWriteBehind wb;
+
+    @BeforeEach
+    void setup() throws Exception {
+        provider = mock(ConnectionProvider.class);
+        con = mock(Connection.class);
+        ps = mock(PreparedStatement.class);
+        when(provider.getConnection()).thenReturn(con);
+        when(con.getAutoCommit()).thenReturn(true);
+        when(con.prepareStatement(anyString())).thenReturn(ps);
+
+        config = new WriteBehindConfig();
+        config.setJournalDir(dir.toString());
+        config.setSegmentBytes(64 * OrderJournal.RECORD_SIZE);
+        config.setFlushIntervalMillis(5);
+        config.setEnqueueTimeoutMillis(10);
+        config.setMaxRetryBackoffMillis(50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (wb != null) {
+            wb.close(0);
+        }
+    }
+
+    private static Order order(int userId, int productId, int quantity) {
+        Order o = new Order();
+        o.setUser_id(userId);
+        o.setId(productId);
+        o.setQuantity(quantity);
+        return o;
+    }
+
+    private static void await(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not reached in time");
+    }
+
+    @Test
+    void submit_shouldJournalThenFlushAsOneBatch() throws Exception {
+        // given
+        wb = new OrderWriteBehind(provider, config);
+
+        // when
+        boolean ok = wb.submit(Arrays.asList(order(7, 3, 2), order(7, 4, 1), order(7, 5, 1)));
+
+        // then: acquitté, puis inséré en un seul lot
+        assertTrue(ok);
+        await(() -> wb.getFlushed() == 3);
+        verify(ps, times(3)).addBatch();
+        verify(ps, times(1)).executeBatch();
+        verify(con).commit();
+        verify(con).prepareStatement(SqlStatement.ORDER_INSERT_AT.sql());
+        await(() -> wb.getQueued() == 0); // checkpoint avancé après le commit
+    }
+
+    @Test
+    void constructor_shouldReplayJournaledOrders() throws Exception {
+        // given: un journal laissé par une instance précédente
+        try (OrderJournal journal = new OrderJournal(dir, 64 * OrderJournal.RECORD_SIZE)) {
+            journal.append(Arrays.asList(new PendingOrder(7, 3, 2, 1_000), new PendingOrder(8, 4, 1, 2_000)));
+        }
+
+        // when
+        wb = new OrderWriteBehind(provider, config);
+
+        // then
+        await(() -> wb.getFlushed() == 2);
+        verify(ps).setTimestamp(4, new Timestamp(1_000));
+        verify(ps).setTimestamp(4, new Timestamp(2_000));
+        verify(ps).setInt(1, 8);
+        // identifiant du journal + numéro de séquence: la clé unique qui rend le rejeu sans effet
+        verify(ps, times(2)).setLong(eq(5), anyLong());
+        verify(ps).setLong(6, 1L);
+        verify(ps).setLong(6, 2L);
+    }
+
+    @Test
+    void submit_whenDatabaseDownAndJournalFull_shouldRejectAndReplayAfterRestart() throws Exception {
+        // given
+        when(provider.getConnection()).thenThrow(new SQLTransientConnectionException("down"));
+        config.setQueueDepth(2);
+        wb = new OrderWriteBehind(provider, config);
+
+        // when
+        boolean first = wb.submit(Arrays.asList(order(7, 3, 1), order(7, 4, 1)));
+        boolean second = wb.submit(order(7, 5, 1));
+
+        // then
+        assertTrue(first);
+        assertFalse(second, "file pleine: refus au lieu d'attendre indéfiniment");
+        assertEquals(1, wb.getRejected());
+        assertEquals(2, wb.getQueued());
+
+        // redémarrage avec la base revenue: les 2 commandes sont rejouées
+        wb.close(0);
+        reset(provider);
+        when(provider.getConnection()).thenReturn(con);
+        wb = new OrderWriteBehind(provider, config);
+        await(() -> wb.getFlushed() == 2);
+        verify(ps, times(2)).addBatch();
+    }
+
+    @Test
+    void submit_shouldKeepAcceptingDuringStallAndCatchUp() throws Exception {
+        // given: la base décroche pour les premières tentatives
+        when(provider.getConnection())
+                .thenThrow(new SQLTransientConnectionException("stall"))
+                .thenThrow(new SQLTransientConnectionException("stall"))
+                .thenReturn(con);
+        wb = new OrderWriteBehind(provider, config);
+
+        // when
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(wb.submit(order(7, i, 1)));
+        }
+
+        // then
+        await(() -> wb.getFlushed() == 5);
+        assertTrue(wb.getFlushFailures() >= 1);
+        await(() -> wb.getQueued() == 0);
+    }
+
+    @Test
+    void submit_whenQuantityOrProductInvalid_shouldRefuseBeforeJournaling() throws Exception {
+        // given: le produit 9 n'existe pas
+        wb = new OrderWriteBehind(provider, config, id -> id != 9);
+
+        // when
+        boolean unknown = wb.submit(Arrays.asList(order(7, 3, 1), order(7, 9, 1)));
+        boolean zero = wb.submit(order(7, 3, 0));
+
+        // then: rien n'est acquitté ni journalisé
+        assertFalse(unknown);
+        assertFalse(zero);
+        assertEquals(3, wb.getInvalid());
+        assertEquals(0, wb.getQueued());
+        assertEquals(0, wb.getAccepted());
+    }
+
+    @Test
+    void flush_whenRowRefusedForGood_shouldDeadLetterItAndKeepDraining() throws Exception {
+        // given: la base refuse le lot, puis, ligne à ligne, seulement le produit 4
+        when(ps.executeBatch())
+                .thenThrow(new SQLIntegrityConstraintViolationException("fk"))
+                .thenReturn(new int[] { 1 })
+                .thenThrow(new SQLIntegrityConstraintViolationException("fk"))
+                .thenReturn(new int[] { 1 });
+        wb = new OrderWriteBehind(provider, config);
+
+        // when
+        assertTrue(wb.submit(Arrays.asList(order(7, 3, 1), order(7, 4, 1))));
+
+        // then: la ligne refusée est mise de côté, la file continue de se vider
+        await(() -> wb.getDeadLettered() == 1);
+        await(() -> wb.getQueued() == 0);
+        assertEquals(1, wb.getFlushed());
+        List<String> dead = Files.readAllLines(dir.resolve(OrderWriteBehind.DEAD_LETTER_FILE));
+        assertEquals(1, dead.size());
+        assertTrue(dead.get(0).contains(",7,4,1,"), dead.get(0));
+
+        assertTrue(wb.submit(order(7, 5, 1)));
+        await(() -> wb.getFlushed() == 2);
+    }
+}
@@ -1,7 +1,9 @@
 package com.store.app.dao;
 
 import com.store.app.model.Cart;
+import com.store.app.model.PricedCart;
 import com.store.app.model.Product;
+import com.store.app.model.ProductPage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -76,7 +78,7 @@ class ProductDaoTest {
     @Test
     void getSingleProduct_whenFound_shouldReturnProduct() throws Exception {
         // given
-        String sql = "SELECT id, name, category, price FROM products WHERE id = ?";
+        String sql = "SELECT id, name, category, price, image FROM products WHERE id = ?";
         when(con.prepareStatement(sql)).thenReturn(ps);
         when(ps.executeQuery()).thenReturn(rs);
         when(rs.next()).thenReturn(true);
@@ -85,6 +87,7 @@ class ProductDaoTest {
         when(rs.getString("name")).thenReturn("Laptop");
         when(rs.getString("category")).thenReturn("Electronics");
         when(rs.getDouble("price")).thenReturn(999.99);
+        when(rs.getString("image")).thenReturn("laptop.jpg");
 
         // when
         Product p = dao.getSingleProduct(5);
@@ -95,6 +98,7 @@ class ProductDaoTest {
         assertEquals("Laptop", p.getName());
         assertEquals("Electronics", p.getCategory());
         assertEquals(999.99, p.getPrice());
+        assertEquals("laptop.jpg", p.getImage());
 
         verify(ps).setInt(1, 5);
         verify(ps).executeQuery();
@@ -103,7 +107,7 @@ class ProductDaoTest {
     @Test
     void getSingleProduct_whenNotFound_shouldReturnNull() throws Exception {
         // given
-        String sql = "SELECT id, name, category, price FROM products WHERE id = ?";
+        String sql = "SELECT id, name, category, price, image FROM products WHERE id = ?";
         when(con.prepareStatement(sql)).thenReturn(ps);
         when(ps.executeQuery()).thenReturn(rs);
         when(rs.next()).thenReturn(false);
@@ -140,7 +144,7 @@ class ProductDaoTest {
         item.setQuantity(2);
         cart.add(item);
 
-        when(con.prepareStatement("select * from products where id=?")).thenReturn(ps);
+        when(con.prepareStatement("SELECT id, name, category, price, image FROM products WHERE id IN (?)")).thenReturn(ps);
         when(ps.executeQuery()).thenReturn(rs);
 
         when(rs.next()).thenReturn(true, false);
@@ -174,12 +178,12 @@ class ProductDaoTest {
         cart.add(i1);
         cart.add(i2);
 
-        when(con.prepareStatement("select price from products where id=?")).thenReturn(ps);
+        when(con.prepareStatement("SELECT id, name, category, price, image FROM products WHERE id IN (?,?)")).thenReturn(ps);
         when(ps.executeQuery()).thenReturn(rs);
 
-        // 1er item: 1 row (price=10)
-        // 2e item: 1 row (price=20)
-        when(rs.next()).thenReturn(true, false, true, false);
+        // une seule requête, 2 rows (price=10, price=20)
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getInt("id")).thenReturn(1, 2);
         when(rs.getDouble("price")).thenReturn(10.0, 20.0);
 
         // when
@@ -189,9 +193,114 @@ class ProductDaoTest {
         // 10*2 + 20*3 = 20 + 60 = 80
         assertEquals(80.0, total, 0.0001);
 
-        // setInt appelé pour chaque item
+        // un seul aller-retour pour tout le panier
         verify(ps).setInt(1, 1);
-        verify(ps).setInt(1, 2);
-        verify(ps, times(2)).executeQuery();
+        verify(ps).setInt(2, 2);
+        verify(ps, times(1)).executeQuery();
+    }
+
+    @Test
+    void priceCart_shouldReturnLinesAndTotalInOneQuery() throws Exception {
+        // given
+        ArrayList<Cart> cart = new ArrayList<>();
+        Cart i1 = new Cart(); i1.setId(4); i1.setQuantity(1);
+        Cart i2 = new Cart(); i2.setId(8); i2.setQuantity(2);
+        Cart i3 = new Cart(); i3.setId(9); i3.setQuantity(1);
+        cart.add(i1);
+        cart.add(i2);
+        cart.add(i3);
+
+        // 3 ids -> IN-list arrondie à 4, le dernier id est répété
+        when(con.prepareStatement("SELECT id, name, category, price, image FROM products WHERE id IN (?,?,?,?)")).thenReturn(ps);
+        when(ps.executeQuery()).thenReturn(rs);
+
+        // le produit 9 n'existe plus
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getInt("id")).thenReturn(8, 4);
+        when(rs.getString("name")).thenReturn("Cable", "Hub");
+        when(rs.getDouble("price")).thenReturn(5.0, 30.0);
+
+        // when
+        PricedCart priced = dao.priceCart(cart);
+
+        // then
+        assertEquals(2, priced.getLines().size());
+        assertEquals(4, priced.getLines().get(0).getId());
+        assertEquals("Hub", priced.getLines().get(0).getName());
+        assertEquals(8, priced.getLines().get(1).getId());
+        assertEquals(10.0, priced.getLines().get(1).getPrice());
+        assertEquals(40.0, priced.getTotal(), 0.0001);
+
+        verify(ps).setInt(3, 9);
+        verify(ps).setInt(4, 9);
+        verify(ps, times(1)).executeQuery();
+    }
+
+    @Test
+    void inListSize_shouldRoundUpToPowerOfTwoAndCapAtChunkSize() {
+        assertEquals(1, ProductDao.inListSize(1));
+        assertEquals(4, ProductDao.inListSize(3));
+        assertEquals(64, ProductDao.inListSize(33));
+        assertEquals(ProductDao.IN_CHUNK_SIZE, ProductDao.inListSize(ProductDao.IN_CHUNK_SIZE));
+    }
+
+    @Test
+    void listProducts_shouldFetchOnePageByKeysetAndReportNextId() throws Exception {
+        // given: page de 2, la requête renvoie 3 lignes (pageSize + 1)
+        when(con.prepareStatement("SELECT id, name, category, price, image FROM products WHERE id > ? ORDER BY id LIMIT ?")).thenReturn(ps);
+        when(ps.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true, true, true);
+        when(rs.getInt("id")).thenReturn(11, 12);
+
+        // when
+        ProductPage page = dao.listProducts(null, 10, 2);
+
+        // then
+        assertEquals(2, page.getProducts().size());
+        assertEquals(12, page.getNextAfterId());
+        assertTrue(page.hasMore());
+        verify(ps).setInt(1, 10);
+        verify(ps).setInt(2, 3);
+    }
+
+    @Test
+    void listProducts_withCategory_shouldFilterAndClampPageSize() throws Exception {
+        // given
+        when(con.prepareStatement("SELECT id, name, category, price, image FROM products WHERE id > ? AND category = ? ORDER BY id LIMIT ?")).thenReturn(ps);
+        when(ps.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(false);
+
+        // when
+        ProductPage page = dao.listProducts("Books", 0, 10_000);
+
+        // then
+        assertTrue(page.getProducts().isEmpty());
+        assertFalse(page.hasMore());
+        verify(ps).setString(2, "Books");
+        verify(ps).setInt(3, ProductDao.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    void queries_shouldBeRecordedInStatementStats() throws Exception {
+        // given
+        when(con.prepareStatement(SqlStatement.PRODUCT_BY_ID.sql())).thenReturn(ps);
+        when(ps.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        long calls = SqlStatement.PRODUCT_BY_ID.stats().getCalls();
+        long rows = SqlStatement.PRODUCT_BY_ID.stats().getRows();
+
+        // when
+        dao.getSingleProduct(5);
+
+        // then
+        assertEquals(calls + 1, SqlStatement.PRODUCT_BY_ID.stats().getCalls());
+        assertEquals(rows + 1, SqlStatement.PRODUCT_BY_ID.stats().getRows());
+    }
+
+    @Test
+    void inList_shouldBuildPlaceholdersForEachChunkSize() {
+        assertEquals("SELECT id, name, category, price, image FROM products WHERE id IN (?,?,?,?)", SqlStatement.PRODUCTS_BY_IDS.inList(4));
+        assertSame(SqlStatement.PRODUCTS_BY_IDS.inList(8), SqlStatement.PRODUCTS_BY_IDS.inList(8));
+        assertEquals("SELECT id, stock FROM products WHERE id IN (?,?)", SqlStatement.STOCK_BY_IDS.inList(2));
     }
 }
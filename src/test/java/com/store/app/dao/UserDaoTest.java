@@ -0,0 +1,153 @@
+package com.store.app.dao;
+
+import com.store.app.connection.ConnectionProvider;
+import com.store.app.model.User;
+import com.store.app.security.PasswordHasher;
+import com.store.app.security.PasswordVerifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserDaoTest {
+
+    private static final String SELECT = "SELECT id, name, email, password FROM users WHERE email = ?";
+    private static final String UPGRADE = "UPDATE users SET password = ? WHERE id = ? AND password = ?";
+
+    private Connection con;
+    private PreparedStatement ps;
+    private ResultSet rs;
+    private PasswordHasher hasher;
+    private PasswordVerifier verifier;
+    private UserDao dao;
+
+    @BeforeEach
+    void setup() throws Exception {
+        con = mock(Connection.class);
+        ps = mock(PreparedStatement.class);
+        rs = mock(ResultSet.class);
+        hasher = new PasswordHasher(1_000);
+        // exécuteur synchrone pour le test
+        verifier = new PasswordVerifier(hasher, Runnable::run, 1_000);
+        dao = new UserDao(ConnectionProvider.of(con), verifier,
+                new CredentialCache(60_000, 100));
+        when(con.prepareStatement(SELECT)).thenReturn(ps);
+        when(ps.executeQuery()).thenReturn(rs);
+    }
+
+    private void userRow(String storedPassword) throws Exception {
+        when(rs.next()).thenReturn(true);
+        when(rs.getInt("id")).thenReturn(7);
+        when(rs.getString("name")).thenReturn("Ana");
+        when(rs.getString("email")).thenReturn("ana@x.com");
+        when(rs.getString("password")).thenReturn(storedPassword);
+    }
+
+    @Test
+    void userLogin_withHashedPassword_shouldVerifyInAppAndCacheLookup() throws Exception {
+        // given
+        userRow(hasher.hash("secret"));
+
+        // when
+        User ok = dao.userLogin("ana@x.com", "secret");
+        User ko = dao.userLogin("ana@x.com", "wrong");
+
+        // then
+        assertNotNull(ok);
+        assertEquals(7, ok.getId());
+        assertEquals("Ana", ok.getName());
+        assertNull(ok.getPassword(), "le hash ne part pas dans la session");
+        assertNull(ko);
+        verify(ps, times(1)).executeQuery();
+        verify(ps, never()).setString(eq(2), anyString());
+        verify(con, never()).prepareStatement(UPGRADE);
+    }
+
+    @Test
+    void userLogin_withUnknownEmail_shouldCacheNegativeLookup() throws Exception {
+        // given
+        when(rs.next()).thenReturn(false);
+
+        // when
+        assertNull(dao.userLogin("nobody@x.com", "a"));
+        assertNull(dao.userLogin("nobody@x.com", "b"));
+
+        // then: pas de requête en plus, mais un hachage à chaque fois comme pour un compte existant
+        verify(ps, times(1)).executeQuery();
+        assertEquals(1, dao.getCredentialCache().getHits());
+        assertEquals(2, verifier.getMismatches());
+    }
+
+    @Test
+    void userLogin_withUnknownEmail_shouldNotHashOnRequestThread() throws Exception {
+        // given: le hash factice est calculé à la construction
+        PasswordHasher spied = spy(new PasswordHasher(1_000));
+        UserDao fresh = new UserDao(ConnectionProvider.of(con), new PasswordVerifier(spied, Runnable::run, 1_000),
+                new CredentialCache(60_000, 100));
+        clearInvocations(spied);
+        when(rs.next()).thenReturn(false);
+
+        // when
+        assertNull(fresh.userLogin("nobody@x.com", "a"));
+
+        // then
+        verify(spied, never()).hash(anyString());
+        verify(spied).verify(eq("a"), anyString());
+    }
+
+    @Test
+    void userLogin_withEmailCaseVariants_shouldShareCacheEntry() throws Exception {
+        // given
+        userRow(hasher.hash("secret"));
+
+        // when
+        User first = dao.userLogin("ana@x.com", "secret");
+        User second = dao.userLogin(" Ana@X.com", "secret");
+
+        // then: MySQL compare sans casse, le cache aussi
+        assertNotNull(first);
+        assertNotNull(second);
+        verify(ps, times(1)).executeQuery();
+        assertEquals(1, dao.getCredentialCache().getHits());
+    }
+
+    @Test
+    void userLogin_withLegacyPlaintext_shouldUpgradeToHash() throws Exception {
+        // given
+        userRow("secret");
+        PreparedStatement update = mock(PreparedStatement.class);
+        when(con.prepareStatement(UPGRADE)).thenReturn(update);
+        when(update.executeUpdate()).thenReturn(1);
+
+        // when
+        User user = dao.userLogin("ana@x.com", "secret");
+        User again = dao.userLogin("ana@x.com", "secret");
+
+        // then
+        assertNotNull(user);
+        assertNotNull(again);
+        verify(update).setString(eq(1), startsWith("pbkdf2$1000$"));
+        verify(update).setInt(2, 7);
+        verify(update).setString(3, "secret");
+        verify(update, times(1)).executeUpdate();
+        verify(ps, times(1)).executeQuery();
+    }
+
+    @Test
+    void userLogin_whenHashPoolSaturated_shouldThrowRejected() throws Exception {
+        // given
+        userRow(hasher.hash("secret"));
+        UserDao busy = new UserDao(ConnectionProvider.of(con), new PasswordVerifier(hasher, r -> {
+            throw new RejectedExecutionException("full");
+        }, 1_000), new CredentialCache(60_000, 100));
+
+        // then
+        assertThrows(RejectedExecutionException.class, () -> busy.userLogin("ana@x.com", "secret"));
+    }
+}
@@ -0,0 +1,34 @@
+package com.store.app.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrometheusWriterTest {
+
+    @Test
+    public void testSampleEscapesLabelValues() {
+        PrometheusWriter w = new PrometheusWriter();
+        w.family("store_x_total", "counter", "Test.");
+        w.sample("store_x_total", 3, "endpoint", "/a\"b\\c");
+
+        String out = w.toString();
+        assertTrue(out.contains("# TYPE store_x_total counter\n"));
+        assertTrue(out.contains("store_x_total{endpoint=\"/a\\\"b\\\\c\"} 3\n"));
+    }
+
+    @Test
+    public void testHistogramIsCumulativeWithInfBucket() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(40_000);        // 40 µs
+        h.record(2_000_000);     // 2 ms
+        h.record(60_000_000_000L); // 60 s, au-delà du dernier seuil
+
+        String out = new PrometheusWriter().histogram("store_lat_seconds", h.snapshot(), "endpoint", "/x").toString();
+
+        assertTrue(out.contains("store_lat_seconds_bucket{endpoint=\"/x\",le=\"5.0E-5\"} 1\n"));
+        assertTrue(out.contains("store_lat_seconds_bucket{endpoint=\"/x\",le=\"0.0025\"} 2\n"));
+        assertTrue(out.contains("store_lat_seconds_bucket{endpoint=\"/x\",le=\"+Inf\"} 3\n"));
+        assertTrue(out.contains("store_lat_seconds_count{endpoint=\"/x\"} 3\n"));
+    }
+}
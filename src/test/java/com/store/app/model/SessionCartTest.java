@@ -0,0 +1,112 @@
+package com.store.app.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionCartTest {
+
+    @Test
+    public void testAddIncrementDecrementRemove() {
+        SessionCart cart = new SessionCart();
+
+        assertTrue(cart.add(3, 1));
+        assertFalse(cart.add(3, 1), "un produit déjà présent n'est pas ajouté deux fois");
+        assertEquals(2, cart.increment(3));
+        assertEquals(1, cart.decrement(3));
+        assertEquals(1, cart.decrement(3), "la quantité ne descend jamais sous 1");
+        assertEquals(0, cart.increment(42));
+
+        assertTrue(cart.remove(3));
+        assertFalse(cart.remove(3));
+        assertTrue(cart.isEmpty());
+    }
+
+    @Test
+    public void testToCartListKeepsInsertionOrderAcrossGrowthAndRemoval() {
+        SessionCart cart = new SessionCart();
+        for (int id = 1; id <= 100; id++) {
+            cart.add(id, id);
+        }
+        for (int id = 2; id <= 100; id += 2) {
+            cart.remove(id);
+        }
+
+        List<Cart> lines = cart.toCartList();
+
+        assertEquals(50, cart.size());
+        assertEquals(50, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            int expected = 2 * i + 1;
+            assertEquals(expected, lines.get(i).getId());
+            assertEquals(expected, lines.get(i).getQuantity());
+            assertTrue(cart.contains(expected));
+        }
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreNotLost() throws Exception {
+        SessionCart cart = new SessionCart();
+        cart.add(7, 1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 4; t++) {
+            final int other = 100 + t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    cart.increment(7);
+                    cart.add(other, 1);
+                    cart.remove(other);
+                }
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(4001, cart.getQuantity(7));
+        assertEquals(1, cart.size());
+    }
+
+    @Test
+    void testDeserializedCartKeepsLinesButMustBePricedAgain() throws Exception {
+        // given
+        SessionCart cart = new SessionCart();
+        cart.add(4, 3);
+        cart.applyPrices(new int[] { 4 }, Collections.singletonMap(4, new Product(4, "A", "C", 2.0, null)), true, 0);
+        assertEquals(6.0, cart.getTotal());
+
+        // when
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(cart);
+        }
+        SessionCart restored;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = (SessionCart) in.readObject();
+        }
+
+        // then
+        assertEquals(3, restored.getQuantity(4));
+        assertEquals(0, restored.getTotal());
+        assertNull(restored.pricedSnapshot(0));
+        assertArrayEquals(new int[] { 4 }, restored.idsToPrice(false));
+    }
+}
@@ -0,0 +1,80 @@
+package com.store.app.search;
+
+import com.store.app.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductIndexTest {
+
+    private ProductIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ProductIndex();
+        index.replaceAll(Arrays.asList(
+                new Product(1, "Gaming Laptop 15\"", "Electronics", 1299.0, null),
+                new Product(2, "Laptop", "Electronics", 899.0, null),
+                new Product(3, "Laptop Sleeve", "Accessories", 29.0, null),
+                new Product(4, "Café Mug", "Kitchen", 9.5, null),
+                new Product(5, "USB Cable", "Electronics", 5.0, null)));
+    }
+
+    private static List<Integer> ids(ProductIndex.Result r) {
+        return r.getProducts().stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void tokenize_shouldLowerCaseStripAccentsAndSplit() {
+        assertEquals(Arrays.asList("cafe", "mug", "15"), ProductIndex.tokenize("Café  MUG-15\""));
+        assertTrue(ProductIndex.tokenize(" !? ").isEmpty());
+    }
+
+    @Test
+    void search_shouldMatchPrefixes_andRankShorterExactNamesFirst() {
+        // when
+        ProductIndex.Result r = index.search("lap", 10);
+
+        // then: les trois portables, le nom le plus court d'abord
+        assertEquals(3, r.getTotal());
+        assertEquals(Arrays.asList(2, 3, 1), ids(r));
+    }
+
+    @Test
+    void search_shouldRequireEveryToken_andRankNameOverCategory() {
+        // when
+        ProductIndex.Result electronics = index.search("electronics lap", 10);
+        ProductIndex.Result cafe = index.search("CAFE", 10);
+
+        // then
+        assertEquals(Arrays.asList(2, 1), ids(electronics));
+        assertEquals(Arrays.asList(4), ids(cafe));
+        assertEquals(0, index.search("laptop kitchen", 10).getTotal());
+    }
+
+    @Test
+    void search_shouldHonourLimit_butReportTotal() {
+        ProductIndex.Result r = index.search("e", 1);
+
+        assertEquals(1, r.getProducts().size());
+        assertTrue(r.getTotal() > 1);
+    }
+
+    @Test
+    void put_shouldReplaceOldTerms_andRemoveShouldDropProduct() {
+        // when
+        index.put(new Product(5, "Lightning Cable", "Electronics", 6.0, null));
+        index.remove(2);
+
+        // then
+        assertEquals(0, index.search("usb", 10).getTotal());
+        assertEquals(Arrays.asList(5), ids(index.search("light", 10)));
+        assertEquals(Arrays.asList(3, 1), ids(index.search("laptop", 10)));
+        assertEquals(4, index.size());
+    }
+}
@@ -0,0 +1,71 @@
+package com.store.app.search;
+
+import com.store.app.dao.ProductDao;
+import com.store.app.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductSearchTest {
+
+    private ProductDao dao;
+    private ProductSearch search;
+
+    @BeforeEach
+    void setup() {
+        dao = mock(ProductDao.class);
+        search = new ProductSearch(dao, 60_000);
+        when(dao.showProducts()).thenReturn(Arrays.asList(
+                new Product(1, "Laptop", "Electronics", 899.0, null),
+                new Product(2, "Mouse", "Electronics", 19.0, null)));
+    }
+
+    @Test
+    void search_shouldLoadOnce_thenAnswerFromIndex() {
+        // when
+        search.search("lap", 10);
+        search.search("mouse", 10);
+
+        // then
+        verify(dao, times(1)).showProducts();
+        assertEquals(1, search.getReloads());
+        assertEquals(2, search.getQueries());
+    }
+
+    @Test
+    void search_afterRefreshInterval_shouldReloadEverything() {
+        // given
+        ProductSearch stale = new ProductSearch(dao, 0);
+        stale.search("lap", 10);
+        when(dao.showProducts()).thenReturn(Collections.singletonList(new Product(3, "Desk", "Office", 150.0, null)));
+
+        // when
+        ProductIndex.Result result = stale.search("desk", 10);
+
+        // then
+        assertEquals(1, result.getTotal());
+        assertEquals(1, stale.getIndexed());
+        assertEquals(2, stale.getReloads());
+    }
+
+    @Test
+    void reload_whenQueryReturnsNothing_shouldKeepCurrentIndex() {
+        // given
+        ProductSearch stale = new ProductSearch(dao, 0);
+        stale.search("lap", 10);
+        when(dao.showProducts()).thenReturn(Collections.emptyList());
+
+        // when: la requête échoue (liste vide) au rechargement suivant
+        ProductIndex.Result result = stale.search("lap", 10);
+
+        // then
+        assertEquals(1, result.getTotal());
+        assertEquals(2, stale.getIndexed());
+        assertEquals(1, stale.getReloads());
+    }
+}
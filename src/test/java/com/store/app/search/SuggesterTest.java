@@ -0,0 +1,65 @@
+package com.store.app.search;
+
+import com.store.app.dao.OrderDao;
+import com.store.app.dao.ProductDao;
+import com.store.app.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SuggesterTest {
+
+    @Test
+    void rebuild_shouldWeightProductsAndCategoriesByUnitsOrdered() {
+        // given
+        ProductDao products = mock(ProductDao.class);
+        OrderDao orders = mock(OrderDao.class);
+        when(products.showProducts()).thenReturn(Arrays.asList(
+                new Product(1, "Desk Lamp", "Lighting", 20.0, null),
+                new Product(2, "Desk", "Office", 150.0, null),
+                new Product(3, "Floor Lamp", "Lighting", 60.0, null)));
+        Map<Integer, Long> units = new HashMap<>();
+        units.put(1, 3L);
+        units.put(2, 7L);
+        units.put(3, 5L);
+        when(orders.productPopularity()).thenReturn(units);
+        Suggester suggester = new Suggester(products, orders, 5, 0);
+
+        // when
+        assertTrue(suggester.rebuild());
+        List<SuggestionTrie.Suggestion> desk = suggester.suggest("desk", 10);
+        List<SuggestionTrie.Suggestion> l = suggester.suggest("l", 10);
+
+        // then: la catégorie cumule les ventes de ses produits (3 + 5)
+        assertEquals("Desk", desk.get(0).getText());
+        assertEquals(2, desk.get(0).getProductId());
+        assertEquals("Lighting", l.get(0).getText());
+        assertEquals(SuggestionTrie.Suggestion.CATEGORY, l.get(0).getType());
+        assertEquals(8, l.get(0).getWeight());
+    }
+
+    @Test
+    void rebuild_whenPopularityQueryFails_shouldKeepCurrentTrie() {
+        // given
+        ProductDao products = mock(ProductDao.class);
+        OrderDao orders = mock(OrderDao.class);
+        when(products.showProducts()).thenReturn(Arrays.asList(new Product(1, "Desk", "Office", 150.0, null)));
+        when(orders.productPopularity()).thenReturn(new HashMap<>(), null);
+        Suggester suggester = new Suggester(products, orders, 5, 0);
+        suggester.rebuild();
+
+        // when
+        boolean ok = suggester.rebuild();
+
+        // then
+        assertFalse(ok);
+        assertEquals(1, suggester.suggest("de", 5).size());
+        assertEquals(1, suggester.getRebuildFailures());
+    }
+}
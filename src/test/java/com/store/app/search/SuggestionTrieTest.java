@@ -0,0 +1,51 @@
+package com.store.app.search;
+
+import com.store.app.search.SuggestionTrie.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionTrieTest {
+
+    private static List<String> texts(List<Suggestion> s) {
+        return s.stream().map(Suggestion::getText).collect(Collectors.toList());
+    }
+
+    private final SuggestionTrie trie = SuggestionTrie.build(Arrays.asList(
+            new Suggestion("Laptop", Suggestion.PRODUCT, 1, 5),
+            new Suggestion("Laptop Sleeve", Suggestion.PRODUCT, 2, 40),
+            new Suggestion("Lamp", Suggestion.PRODUCT, 3, 12),
+            new Suggestion("Wireless Mouse", Suggestion.PRODUCT, 4, 30),
+            new Suggestion("Mouse Pad", Suggestion.PRODUCT, 5, 1),
+            new Suggestion("Lighting", Suggestion.CATEGORY, 0, 12)), 3);
+
+    @Test
+    void complete_shouldRankByPopularity_andKeepOnlyTopK() {
+        // when
+        List<Suggestion> la = trie.complete("La", 10);
+
+        // then: k = 3, les plus vendus d'abord
+        assertEquals(Arrays.asList("Laptop Sleeve", "Lamp", "Laptop"), texts(la));
+        assertEquals(Arrays.asList("Laptop Sleeve", "Lamp"), texts(trie.complete("la", 2)));
+    }
+
+    @Test
+    void complete_shouldMatchFromAnyWord_andBreakTiesByLength() {
+        // when / then
+        assertEquals(Arrays.asList("Wireless Mouse", "Mouse Pad"), texts(trie.complete("mou", 10)));
+        // Lamp et Lighting ont le même poids : le plus court d'abord
+        assertEquals(Arrays.asList("Laptop Sleeve", "Lamp", "Lighting"), texts(trie.complete("l", 10)));
+    }
+
+    @Test
+    void complete_shouldMatchMultiWordPrefixes_andMissCleanly() {
+        assertEquals(Arrays.asList("Laptop Sleeve"), texts(trie.complete("LAPTOP  sl", 10)));
+        assertTrue(trie.complete("laptops", 10).isEmpty());
+        assertTrue(trie.complete("  ", 10).isEmpty());
+        assertTrue(SuggestionTrie.build(Arrays.asList(), 3).complete("a", 10).isEmpty());
+    }
+}
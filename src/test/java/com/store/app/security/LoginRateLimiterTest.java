@@ -0,0 +1,108 @@
+package com.store.app.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void tryAcquire_shouldAllowBurstThenRefillAtRate() {
+        // given: 3 jetons, 6 par minute (un toutes les 10 s)
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 6, 1_000, now::get);
+
+        // when / then
+        assertEquals(0, limiter.tryAcquire("k"));
+        assertEquals(0, limiter.tryAcquire("k"));
+        assertEquals(0, limiter.tryAcquire("k"));
+        long wait = limiter.tryAcquire("k");
+        assertEquals(TimeUnit.SECONDS.toNanos(10), wait);
+        assertEquals(0, limiter.tryAcquire("other"), "les clés sont indépendantes");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, limiter.tryAcquire("k"));
+        assertTrue(limiter.tryAcquire("k") > 0);
+    }
+
+    @Test
+    void tryAcquire_whenStripeFull_shouldDropRefilledBuckets() {
+        // given: une clé par bande
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 60, 64, now::get);
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire("ip-" + i);
+        }
+        assertTrue(limiter.size() <= 64);
+
+        // when: tous les seaux sont de nouveau pleins
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        limiter.tryAcquire("fresh");
+
+        // then
+        assertTrue(limiter.size() <= 64);
+    }
+
+    @Test
+    void tryAcquire_whenStripeFullOfLimitedKeys_shouldNotResetThem() {
+        // given: une seule clé par bande, déjà épuisée
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 64, now::get);
+        assertEquals(0, limiter.tryAcquire("attacker"));
+        assertTrue(limiter.tryAcquire("attacker") > 0);
+
+        // when: un flot de nouvelles clés remplit toutes les bandes
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire("spray-" + i);
+        }
+
+        // then: la clé limitée n'a pas retrouvé de jeton
+        assertTrue(limiter.tryAcquire("attacker") > 0);
+        assertTrue(limiter.size() <= 64);
+    }
+
+    @Test
+    void tryAcquire_whenStripeFull_shouldEvictBucketThatStillHasTokens() {
+        // given: 2 jetons, une clé par bande; deux clés de la même bande
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 1, 64, now::get);
+        String other = "k0";
+        for (int i = 1; stripe(other) != stripe("a"); i++) {
+            other = "k" + i;
+        }
+        assertEquals(0, limiter.tryAcquire("a"));
+
+        // when: "a" a encore un jeton, elle cède sa place
+        assertEquals(0, limiter.tryAcquire(other));
+
+        // then: revenue, elle repart d'un seau neuf qui évince "other" à son tour
+        assertEquals(1, limiter.size());
+        assertEquals(0, limiter.tryAcquire("a"));
+    }
+
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & 63;
+    }
+
+    @Test
+    void loginLimiter_shouldCountRejectionsPerAddressAndEmail() {
+        // given
+        LoginRateLimiter limiter = new LoginRateLimiter(new TokenBucketLimiter(2, 1, 1_000, now::get),
+                new TokenBucketLimiter(1, 1, 1_000, now::get));
+
+        // when
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", "Ana@x.com"));
+        long emailWait = limiter.tryAcquire("10.0.0.2", " ana@x.com");
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", "bob@x.com"));
+        long addressWait = limiter.tryAcquire("10.0.0.1", "carl@x.com");
+
+        // then
+        assertEquals(60, emailWait, "l'email est normalisé avant la clé");
+        assertEquals(60, addressWait);
+        assertEquals(2, limiter.getAllowed());
+        assertEquals(1, limiter.getRejectedEmail());
+        assertEquals(1, limiter.getRejectedAddress());
+    }
+}
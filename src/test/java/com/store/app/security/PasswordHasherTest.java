@@ -0,0 +1,49 @@
+package com.store.app.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(1_000);
+
+    @Test
+    void hash_shouldBeSaltedAndVerifiable() {
+        // when
+        String h1 = hasher.hash("secret");
+        String h2 = hasher.hash("secret");
+
+        // then
+        assertTrue(h1.startsWith("pbkdf2$1000$"));
+        assertNotEquals(h1, h2, "chaque hash a son propre sel");
+        assertTrue(hasher.verify("secret", h1));
+        assertTrue(hasher.verify("secret", h2));
+        assertFalse(hasher.verify("Secret", h1));
+        assertFalse(hasher.needsRehash(h1));
+    }
+
+    @Test
+    void verify_withLegacyPlaintext_shouldCompareAndAskForRehash() {
+        assertTrue(hasher.verify("secret", "secret"));
+        assertFalse(hasher.verify("secret", "other"));
+        assertTrue(hasher.needsRehash("secret"));
+    }
+
+    @Test
+    void needsRehash_whenIterationsBelowCurrent_shouldBeTrue() {
+        // given
+        String weak = new PasswordHasher(500).hash("secret");
+
+        // then
+        assertTrue(hasher.verify("secret", weak), "l'ancien coût reste vérifiable");
+        assertTrue(hasher.needsRehash(weak));
+    }
+
+    @Test
+    void verify_withMalformedHash_shouldNotMatch() {
+        assertFalse(hasher.verify("secret", "pbkdf2$abc$xx$yy"));
+        assertFalse(hasher.verify("secret", "pbkdf2$1000$%%%"));
+        assertFalse(hasher.verify(null, "secret"));
+    }
+}
@@ -1,6 +1,6 @@
 package com.store.app.servlet;
 
-import com.store.app.model.Cart;
+import com.store.app.model.SessionCart;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
@@ -13,7 +13,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.ArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -50,17 +49,15 @@ class CartServletTest {
         // redirection
         verify(response).sendRedirect("home.jsp");
 
-        // session setAttribute avec une liste contenant l'item
-        @SuppressWarnings("unchecked")
-        ArgumentCaptor<ArrayList<Cart>> captor = ArgumentCaptor.forClass(ArrayList.class);
+        // session setAttribute avec un panier contenant l'item
+        ArgumentCaptor<SessionCart> captor = ArgumentCaptor.forClass(SessionCart.class);
 
         verify(session).setAttribute(eq("cart-session"), captor.capture());
-        ArrayList<Cart> saved = captor.getValue();
+        SessionCart saved = captor.getValue();
 
         assertNotNull(saved);
         assertEquals(1, saved.size());
-        assertEquals(5, saved.get(0).getId());
-        assertEquals(1, saved.get(0).getQuantity());
+        assertEquals(1, saved.getQuantity(5));
     }
 
     @Test
@@ -69,11 +66,8 @@ class CartServletTest {
         when(request.getParameter("id")).thenReturn("7");
         when(request.getSession()).thenReturn(session);
 
-        ArrayList<Cart> existing = new ArrayList<>();
-        Cart c = new Cart();
-        c.setId(7);
-        c.setQuantity(1);
-        existing.add(c);
+        SessionCart existing = new SessionCart();
+        existing.add(7, 1);
 
         when(session.getAttribute("cart-session")).thenReturn(existing);
 
@@ -87,6 +81,7 @@ class CartServletTest {
         String output = sw.toString();
         assertTrue(output.contains("Item Already in Cart"), "Doit afficher le message d'existence");
         assertTrue(output.contains("cart.jsp"), "Doit contenir le lien vers cart.jsp");
+        assertEquals(1, existing.size());
 
         verify(response, never()).sendRedirect(anyString());
         verify(session, never()).setAttribute(eq("cart-session"), any());
@@ -98,11 +93,8 @@ class CartServletTest {
         when(request.getParameter("id")).thenReturn("9");
         when(request.getSession()).thenReturn(session);
 
-        ArrayList<Cart> existing = new ArrayList<>();
-        Cart c = new Cart();
-        c.setId(1);
-        c.setQuantity(1);
-        existing.add(c);
+        SessionCart existing = new SessionCart();
+        existing.add(1, 1);
 
         when(session.getAttribute("cart-session")).thenReturn(existing);
 
@@ -116,10 +108,10 @@ class CartServletTest {
         // il doit rediriger
         verify(response).sendRedirect("home.jsp");
 
-        // et l'élément doit être ajouté dans la liste existante
+        // et l'élément doit être ajouté dans le panier existant
         assertEquals(2, existing.size());
-        assertEquals(9, existing.get(1).getId());
-        assertEquals(1, existing.get(1).getQuantity());
+        assertEquals(9, existing.toCartList().get(1).getId());
+        assertEquals(1, existing.getQuantity(9));
 
         // pas de setAttribute dans ce chemin (ton code n’en fait pas)
         verify(session, never()).setAttribute(eq("cart-session"), any());
@@ -0,0 +1,135 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckoutExecutorTest {
+
+    @Mock private HttpServletRequest request;
+    @Mock private HttpServletResponse response;
+    @Mock private AsyncContext async;
+
+    @Test
+    void run_whenAsyncSupported_shouldRunTaskOnExecutorAndComplete() throws Exception {
+        // given: exécuteur synchrone pour le test
+        CheckoutExecutor checkout = new CheckoutExecutor(Runnable::run, true, 1_000);
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.startAsync()).thenReturn(async);
+        when(async.getResponse()).thenReturn(response);
+        when(async.getRequest()).thenReturn(request);
+
+        // when
+        checkout.run(request, response, res -> res.sendRedirect("orders.jsp"));
+
+        // then
+        verify(async).setTimeout(1_000);
+        verify(response).sendRedirect("orders.jsp");
+        verify(async).complete();
+        assertEquals(1, checkout.getSubmitted());
+    }
+
+    @Test
+    void run_whenQueueFull_shouldAnswer503() throws Exception {
+        // given
+        CheckoutExecutor checkout = new CheckoutExecutor(r -> {
+            throw new RejectedExecutionException("full");
+        }, true, 1_000);
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.startAsync()).thenReturn(async);
+        StringWriter sw = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        checkout.run(request, response, res -> fail("la tâche ne doit pas s'exécuter"));
+
+        // then
+        verify(response).setStatus(503);
+        verify(response).setHeader("Retry-After", "1");
+        verify(async).complete();
+        assertTrue(sw.toString().contains("busy"));
+        assertEquals(1, checkout.getRejected());
+    }
+
+    @Test
+    void run_whenAsyncDisabled_shouldRunInline() throws Exception {
+        // given
+        CheckoutExecutor checkout = new CheckoutExecutor(r -> fail("pas d'exécuteur"), false, 1_000);
+
+        // when
+        checkout.run(request, response, res -> res.sendRedirect("orders.jsp"));
+
+        // then
+        verify(request, never()).startAsync();
+        verify(response).sendRedirect("orders.jsp");
+    }
+
+    @Test
+    void run_whenTimeoutFiresWhileQueued_shouldAnswer503AndSkipTask() throws Exception {
+        // given: la tâche reste dans la file
+        List<Runnable> queue = new ArrayList<>();
+        CheckoutExecutor checkout = new CheckoutExecutor(queue::add, true, 1_000);
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.startAsync()).thenReturn(async);
+        when(async.getResponse()).thenReturn(response);
+        StringWriter sw = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(sw));
+        checkout.run(request, response, res -> fail("la commande ne doit pas partir après le délai"));
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(async).addListener(listener.capture());
+
+        // when
+        listener.getValue().onTimeout(new AsyncEvent(async));
+        queue.get(0).run();
+
+        // then: une seule fin de requête
+        verify(response).setStatus(503);
+        assertTrue(sw.toString().contains("nothing was ordered"));
+        verify(async, times(1)).complete();
+        assertEquals(1, checkout.getTimedOut());
+    }
+
+    @Test
+    void run_whenTimeoutFiresWhileRunning_shouldCompleteOnlyOnce() throws Exception {
+        // given
+        List<Runnable> queue = new ArrayList<>();
+        CheckoutExecutor checkout = new CheckoutExecutor(queue::add, true, 1_000);
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.startAsync()).thenReturn(async);
+        when(async.getResponse()).thenReturn(response);
+        StringWriter sw = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(sw));
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        checkout.run(request, response, res -> {
+            // le délai expire pendant l'écriture en base
+            verify(async).addListener(listener.capture());
+            listener.getValue().onTimeout(new AsyncEvent(async));
+            throw new IllegalStateException("response already completed");
+        });
+
+        // when
+        queue.get(0).run();
+
+        // then: le client est renvoyé vers ses commandes, la requête n'est terminée qu'une fois
+        assertTrue(sw.toString().contains("check"));
+        verify(async, times(1)).complete();
+        verify(async, never()).getRequest();
+    }
+}
@@ -0,0 +1,40 @@
+package com.store.app.servlet;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonWriterTest {
+
+    @Test
+    void shouldSeparateMembersAndElements() throws Exception {
+        // given
+        StringWriter sw = new StringWriter();
+        JsonWriter json = new JsonWriter(sw);
+
+        // when
+        json.beginObject();
+        json.name("total").value(2);
+        json.name("items").beginArray().value(1.5).value(3.0).nullValue().endArray();
+        json.name("empty").beginObject().endObject();
+        json.name("ok").value(true);
+        json.endObject();
+
+        // then
+        assertEquals("{\"total\":2,\"items\":[1.5,3,null],\"empty\":{},\"ok\":true}", sw.toString());
+    }
+
+    @Test
+    void shouldEscapeStrings() throws Exception {
+        // given
+        StringWriter sw = new StringWriter();
+
+        // when
+        new JsonWriter(sw).value("a\"b\\c\n\u0001</script>");
+
+        // then
+        assertEquals("\"a\\\"b\\\\c\\n\\u0001<\\u002fscript>\"", sw.toString());
+    }
+}
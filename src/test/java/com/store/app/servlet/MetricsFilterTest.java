@@ -0,0 +1,93 @@
+package com.store.app.servlet;
+
+import com.store.app.metrics.DbTime;
+import com.store.app.metrics.EndpointStats;
+import com.store.app.metrics.RequestMetrics;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsFilterTest {
+
+    private MetricsFilter filter;
+
+    @Mock private HttpServletRequest request;
+    @Mock private HttpServletResponse response;
+    @Mock private FilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        filter = new MetricsFilter();
+    }
+
+    @Test
+    void doFilter_shouldCountRequestAndDbTime() throws Exception {
+        // given
+        when(request.getServletPath()).thenReturn("/test-sync");
+        when(response.getStatus()).thenReturn(200);
+        doAnswer(inv -> {
+            DbTime.add(3_000_000); // 3 ms de SQL pendant la requête
+            return null;
+        }).when(chain).doFilter(request, response);
+
+        // when
+        filter.doFilter(request, response, chain);
+
+        // then
+        EndpointStats stats = RequestMetrics.endpoint("/test-sync");
+        assertEquals(1, stats.getRequests());
+        assertEquals(0, stats.getErrors());
+        assertEquals(0, stats.getInFlight());
+        assertEquals(3_000_000, stats.getDbTime().getSumNanos());
+    }
+
+    @Test
+    void doFilter_whenChainThrows_shouldCountErrorAndRethrow() throws Exception {
+        // given
+        when(request.getServletPath()).thenReturn("/test-error");
+        doThrow(new ServletException("boom")).when(chain).doFilter(request, response);
+
+        // when / then
+        assertThrows(ServletException.class, () -> filter.doFilter(request, response, chain));
+        EndpointStats stats = RequestMetrics.endpoint("/test-error");
+        assertEquals(1, stats.getErrors());
+        assertEquals(0, stats.getInFlight());
+    }
+
+    @Test
+    void doFilter_whenAsyncStarted_shouldRecordOnCompletion() throws Exception {
+        // given
+        AsyncContext async = mock(AsyncContext.class);
+        when(request.getServletPath()).thenReturn("/test-async");
+        when(request.isAsyncStarted()).thenReturn(true);
+        when(request.getAsyncContext()).thenReturn(async);
+        when(response.getStatus()).thenReturn(200);
+
+        // when
+        filter.doFilter(request, response, chain);
+
+        // then: encore en cours tant que la requête async n'est pas terminée
+        EndpointStats stats = RequestMetrics.endpoint("/test-async");
+        assertEquals(1, stats.getInFlight());
+        assertEquals(0, stats.getRequests());
+
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(async).addListener(listener.capture());
+        listener.getValue().onComplete(null);
+        assertEquals(0, stats.getInFlight());
+        assertEquals(1, stats.getRequests());
+    }
+}
@@ -0,0 +1,67 @@
+package com.store.app.servlet;
+
+import com.store.app.connection.dbConnection;
+import com.store.app.dao.CategoryIndex;
+import com.store.app.dao.Daos;
+import com.store.app.search.ProductSearch;
+import com.store.app.search.Suggester;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MetricsServletTest {
+
+    @Test
+    void allowed_shouldAcceptLoopbackAndListedAddressesOnly() {
+        assertTrue(MetricsServlet.allowed("127.0.0.1", ""));
+        assertTrue(MetricsServlet.allowed("0:0:0:0:0:0:0:1", ""));
+        assertTrue(MetricsServlet.allowed("10.0.0.5", "10.0.0.4, 10.0.0.5"));
+        assertFalse(MetricsServlet.allowed("10.0.0.6", "10.0.0.4, 10.0.0.5"));
+        assertFalse(MetricsServlet.allowed("203.0.113.9", ""));
+        assertFalse(MetricsServlet.allowed(null, ""));
+    }
+
+    @Test
+    void doGet_whenRemoteAddressNotAllowed_shouldAnswer404() throws Exception {
+        // given
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(request.getRemoteAddr()).thenReturn("203.0.113.9");
+
+        // when
+        new MetricsServlet().doGet(request, response);
+
+        // then
+        verify(response).sendError(HttpServletResponse.SC_NOT_FOUND);
+        verify(response, never()).getWriter();
+    }
+
+    @Test
+    void doGet_shouldNotStartAnySubsystem() throws Exception {
+        // given: rien n'a encore servi de requête
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
+        StringWriter sw = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        new MetricsServlet().doGet(request, response);
+
+        // then: ni pool, ni index, ni DAO créés par la collecte
+        assertTrue(sw.toString().contains("store_sql_calls_total"));
+        assertNull(dbConnection.peekPoolStats());
+        assertNull(CategoryIndex.peek());
+        assertNull(ProductSearch.peek());
+        assertNull(Suggester.peek());
+        assertNull(ThumbnailCache.peek());
+        assertNull(Daos.peekOrders());
+        assertNull(Daos.peekUsers());
+    }
+}
@@ -1,8 +1,10 @@
 package com.store.app.servlet;
 
-import com.store.app.connection.dbConnection;
+import com.store.app.dao.Daos;
+import com.store.app.dao.Inventory;
 import com.store.app.dao.OrderDao;
-import com.store.app.model.Cart;
+import com.store.app.model.Order;
+import com.store.app.model.SessionCart;
 import com.store.app.model.User;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -10,15 +12,14 @@ import jakarta.servlet.http.HttpSession;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
-import org.mockito.MockedConstruction;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.sql.Connection;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,17 +41,14 @@ class OrderServletTest {
     }
 
     @Test
-    void doGet_whenCartAndAuthPresent_shouldSubmitAllOrders_clearCart_andRedirectOrders() throws Exception {
+    void doGet_whenCartAndAuthPresent_shouldSubmitAllOrdersInOneBatch_clearCart_andRedirectOrders() throws Exception {
         // given
         when(request.getSession()).thenReturn(session);
-        when(request.getParameter("action")).thenReturn("checkout"); // pas utilisé mais OK
 
         // cart-session
-        ArrayList<Cart> cartList = new ArrayList<>();
-        Cart c1 = new Cart(); c1.setId(10); c1.setQuantity(2);
-        Cart c2 = new Cart(); c2.setId(11); c2.setQuantity(1);
-        cartList.add(c1);
-        cartList.add(c2);
+        SessionCart cartList = new SessionCart();
+        cartList.add(10, 2);
+        cartList.add(11, 1);
 
         // auth user
         User auth = mock(User.class);
@@ -59,28 +57,27 @@ class OrderServletTest {
         when(session.getAttribute("cart-session")).thenReturn(cartList);
         when(session.getAttribute("auth")).thenReturn(auth);
 
-        // writer
-        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
-
-        // mock static dbConnection.getConnection()
-        Connection fakeConn = mock(Connection.class);
+        // mock static Daos.orders()
+        OrderDao orderDao = mock(OrderDao.class);
+        when(orderDao.submitOrders(any())).thenReturn(true);
 
-        try (MockedStatic<dbConnection> mockedDb = mockStatic(dbConnection.class);
-             MockedConstruction<OrderDao> mockedCtor = mockConstruction(OrderDao.class,
-                     (mockDao, ctx) -> when(mockDao.submitOrder(any())).thenReturn(true))) {
+        try (MockedStatic<Daos> mockedDaos = mockStatic(Daos.class)) {
 
-            mockedDb.when(dbConnection::getConnection).thenReturn(fakeConn);
+            mockedDaos.when(Daos::orders).thenReturn(orderDao);
 
             // when
             servlet.doGet(request, response);
 
-            // then: 2 orders -> submitOrder appelé 2 fois
-            List<OrderDao> constructed = mockedCtor.constructed();
-            // Ton code construit un OrderDao à chaque item => 2 instances attendues
-            assertEquals(2, constructed.size());
-
-            verify(constructed.get(0), times(1)).submitOrder(any());
-            verify(constructed.get(1), times(1)).submitOrder(any());
+            // then: un seul appel batch avec les 2 commandes
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Order>> captor = ArgumentCaptor.forClass(List.class);
+            verify(orderDao, times(1)).submitOrders(captor.capture());
+            List<Order> submitted = captor.getValue();
+            assertEquals(2, submitted.size());
+            assertEquals(10, submitted.get(0).getId());
+            assertEquals(2, submitted.get(0).getQuantity());
+            assertEquals(99, submitted.get(1).getUser_id());
+            verify(orderDao, never()).submitOrder(any());
 
             // panier vidé
             assertTrue(cartList.isEmpty(), "Le panier doit être vidé après la soumission");
@@ -91,15 +88,13 @@ class OrderServletTest {
     }
 
     @Test
-    void doGet_whenSubmitOrderFails_shouldStopLoop_clearCart_andRedirectOrders() throws Exception {
+    void doGet_whenBatchFails_shouldKeepCart_andNotRedirectOrders() throws Exception {
         // given
         when(request.getSession()).thenReturn(session);
 
-        ArrayList<Cart> cartList = new ArrayList<>();
-        Cart c1 = new Cart(); c1.setId(1); c1.setQuantity(1);
-        Cart c2 = new Cart(); c2.setId(2); c2.setQuantity(1);
-        cartList.add(c1);
-        cartList.add(c2);
+        SessionCart cartList = new SessionCart();
+        cartList.add(1, 1);
+        cartList.add(2, 1);
 
         User auth = mock(User.class);
         when(auth.getId()).thenReturn(7);
@@ -107,35 +102,118 @@ class OrderServletTest {
         when(session.getAttribute("cart-session")).thenReturn(cartList);
         when(session.getAttribute("auth")).thenReturn(auth);
 
+        StringWriter sw = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(sw));
+
+        OrderDao orderDao = mock(OrderDao.class);
+        when(orderDao.submitOrders(any())).thenReturn(false);
+
+        try (MockedStatic<Daos> mockedDaos = mockStatic(Daos.class)) {
+
+            mockedDaos.when(Daos::orders).thenReturn(orderDao);
+
+            // when
+            servlet.doGet(request, response);
+
+            // then: tout ou rien, le panier est conservé
+            verify(orderDao, times(1)).submitOrders(any());
+            assertEquals(2, cartList.size());
+            assertTrue(sw.toString().contains("Checkout failed"));
+            verify(response, never()).sendRedirect("orders.jsp");
+        }
+    }
+
+    @Test
+    void doGet_whenStockShort_shouldNotSubmit_andKeepCart() throws Exception {
+        // given
+        when(request.getSession()).thenReturn(session);
+
+        SessionCart cartList = new SessionCart();
+        cartList.add(3, 5);
+
+        User auth = mock(User.class);
+        when(session.getAttribute("cart-session")).thenReturn(cartList);
+        when(session.getAttribute("auth")).thenReturn(auth);
+
+        StringWriter sw = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(sw));
+
+        OrderDao orderDao = mock(OrderDao.class);
+        Inventory inventory = mock(Inventory.class);
+        when(inventory.reserveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        try (MockedStatic<Daos> mockedDaos = mockStatic(Daos.class)) {
+
+            mockedDaos.when(Daos::orders).thenReturn(orderDao);
+            mockedDaos.when(Daos::inventory).thenReturn(inventory);
+
+            // when
+            servlet.doGet(request, response);
+
+            // then: rien n'est écrit, le panier reste intact
+            verify(orderDao, never()).submitOrders(any());
+            assertEquals(1, cartList.size());
+            assertTrue(sw.toString().contains("Not enough stock"));
+            verify(response, never()).sendRedirect("orders.jsp");
+        }
+    }
+
+    @Test
+    void doGet_whenBatchFailsAfterReserving_shouldReleaseStock() throws Exception {
+        // given
+        when(request.getSession()).thenReturn(session);
+
+        SessionCart cartList = new SessionCart();
+        cartList.add(3, 1);
+
+        User auth = mock(User.class);
+        when(session.getAttribute("cart-session")).thenReturn(cartList);
+        when(session.getAttribute("auth")).thenReturn(auth);
         when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
 
-        Connection fakeConn = mock(Connection.class);
+        OrderDao orderDao = mock(OrderDao.class);
+        when(orderDao.submitOrders(any())).thenReturn(false);
+        Inventory inventory = mock(Inventory.class);
+        when(inventory.reserveAll(any())).thenReturn(Collections.emptyList());
 
-        try (MockedStatic<dbConnection> mockedDb = mockStatic(dbConnection.class);
-             MockedConstruction<OrderDao> mockedCtor = mockConstruction(OrderDao.class,
-                     (mockDao, ctx) -> {
-                         // 1er OK, 2e échoue
-                         when(mockDao.submitOrder(any()))
-                                 .thenReturn(true)
-                                 .thenReturn(false);
-                     })) {
+        try (MockedStatic<Daos> mockedDaos = mockStatic(Daos.class)) {
 
-            mockedDb.when(dbConnection::getConnection).thenReturn(fakeConn);
+            mockedDaos.when(Daos::orders).thenReturn(orderDao);
+            mockedDaos.when(Daos::inventory).thenReturn(inventory);
 
             // when
             servlet.doGet(request, response);
 
             // then
-            List<OrderDao> constructed = mockedCtor.constructed();
-            // Ton code crée un OrderDao par item jusqu'au break => 2 items => 2 constructions
-            assertEquals(2, constructed.size());
+            verify(inventory).releaseAll(any());
+        }
+    }
 
-            verify(constructed.get(0), times(1)).submitOrder(any());
-            verify(constructed.get(1), times(1)).submitOrder(any());
+    @Test
+    void doGet_whenSubmitThrows_shouldStillReleaseReservedStock() throws Exception {
+        // given
+        when(request.getSession()).thenReturn(session);
+        SessionCart cartList = new SessionCart();
+        cartList.add(3, 1);
+        User auth = mock(User.class);
+        when(session.getAttribute("cart-session")).thenReturn(cartList);
+        when(session.getAttribute("auth")).thenReturn(auth);
 
-            // même si échec, ton code fait cart_list.clear() et redirect orders.jsp
-            assertTrue(cartList.isEmpty());
-            verify(response).sendRedirect("orders.jsp");
+        OrderDao orderDao = mock(OrderDao.class);
+        when(orderDao.submitOrders(any())).thenThrow(new IllegalStateException("pool closed"));
+        Inventory inventory = mock(Inventory.class);
+        when(inventory.reserveAll(any())).thenReturn(Collections.emptyList());
+
+        try (MockedStatic<Daos> mockedDaos = mockStatic(Daos.class)) {
+            mockedDaos.when(Daos::orders).thenReturn(orderDao);
+            mockedDaos.when(Daos::inventory).thenReturn(inventory);
+
+            // when
+            assertThrows(IllegalStateException.class, () -> servlet.doGet(request, response));
+
+            // then: la réservation ne fuit pas
+            verify(inventory).releaseAll(any());
+            assertEquals(1, cartList.size());
         }
     }
 
@@ -143,10 +221,9 @@ class OrderServletTest {
     void doGet_whenAuthMissing_shouldRedirectLogin() throws Exception {
         // given
         when(request.getSession()).thenReturn(session);
-        when(session.getAttribute("cart-session")).thenReturn(new ArrayList<Cart>()); // peu importe
+        when(session.getAttribute("cart-session")).thenReturn(new SessionCart()); // peu importe
         when(session.getAttribute("auth")).thenReturn(null);
 
-        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
 
         // when
         servlet.doGet(request, response);
@@ -162,7 +239,6 @@ class OrderServletTest {
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("cart-session")).thenReturn(null);
         when(session.getAttribute("auth")).thenReturn(null);
-        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
 
         // when
         servlet.doPost(request, response);
@@ -0,0 +1,144 @@
+package com.store.app.servlet;
+
+import com.store.app.dao.CategoryIndex;
+import com.store.app.dao.Daos;
+import com.store.app.dao.OrderCursor;
+import com.store.app.dao.OrderDao;
+import com.store.app.dao.ProductDao;
+import com.store.app.dao.RowSink;
+import com.store.app.model.Order;
+import com.store.app.model.Product;
+import com.store.app.model.User;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrdersApiServletTest {
+
+    @Test
+    void doGet_whenNotLoggedIn_shouldAnswer401() throws Exception {
+        // given
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        StringWriter sw = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        new OrdersApiServlet().doGet(request, response);
+
+        // then
+        verify(response).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        assertEquals("{\"error\":\"login required\"}", sw.toString());
+    }
+
+    @Test
+    void doGet_shouldStreamGzippedHistory_withNextToken() throws Exception {
+        // given
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+        User auth = mock(User.class);
+        when(auth.getId()).thenReturn(7);
+        when(request.getSession(false)).thenReturn(session);
+        when(session.getAttribute("auth")).thenReturn(auth);
+        when(request.getHeader("Accept-Encoding")).thenReturn("gzip, deflate");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                bytes.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+        });
+
+        OrderDao orderDao = mock(OrderDao.class);
+        when(orderDao.userOrdersVersion(7)).thenReturn("12-340");
+        when(orderDao.streamUserOrders(eq(7), isNull(), eq(1), any())).thenAnswer(inv -> {
+            RowSink<Order> sink = inv.getArgument(3);
+            Order o = new Order(340, 7, 2, "2024-05-01 10:00:00");
+            o.setId(3);
+            o.setName("Mug");
+            o.setPrice(18.0);
+            sink.accept(o);
+            return new OrderCursor(new Timestamp(1_000L), 340);
+        });
+        when(request.getParameter("limit")).thenReturn("1");
+
+        CategoryIndex index = new CategoryIndex(mock(ProductDao.class), 0);
+        index.replaceAll(Collections.singletonList(new Product(3, "Mug", "Kitchen", 9.0, null)));
+
+        try (MockedStatic<Daos> daos = mockStatic(Daos.class);
+                MockedStatic<CategoryIndex> indexes = mockStatic(CategoryIndex.class)) {
+            daos.when(Daos::orders).thenReturn(orderDao);
+            indexes.when(CategoryIndex::getInstance).thenReturn(index);
+
+            // when
+            new OrdersApiServlet().doGet(request, response);
+        }
+
+        // then: l'ETag suit aussi la version du catalogue joint
+        verify(response).setHeader("ETag", "W/\"o7-12-340-p" + index.version() + "\"");
+        verify(response).setHeader("Content-Encoding", "gzip");
+        String json = new String(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"orders\":[{\"orderId\":340,\"productId\":3,\"name\":\"Mug\""), json);
+        assertTrue(json.endsWith("}],\"next\":\"1000.340\"}"), json);
+    }
+
+    @Test
+    void doGet_whenCatalogCannotLoad_shouldNotSendEtag() throws Exception {
+        // given
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+        User auth = mock(User.class);
+        when(auth.getId()).thenReturn(7);
+        when(request.getSession(false)).thenReturn(session);
+        when(session.getAttribute("auth")).thenReturn(auth);
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        OrderDao orderDao = mock(OrderDao.class);
+        when(orderDao.userOrdersVersion(7)).thenReturn("12-340");
+        ProductDao productDao = mock(ProductDao.class);
+        when(productDao.showProducts()).thenReturn(new ArrayList<>());
+        CategoryIndex index = new CategoryIndex(productDao, 0);
+
+        try (MockedStatic<Daos> daos = mockStatic(Daos.class);
+                MockedStatic<CategoryIndex> indexes = mockStatic(CategoryIndex.class)) {
+            daos.when(Daos::orders).thenReturn(orderDao);
+            indexes.when(CategoryIndex::getInstance).thenReturn(index);
+
+            // when
+            new OrdersApiServlet().doGet(request, response);
+        }
+
+        // then
+        verify(response, never()).setHeader(eq("ETag"), anyString());
+        verify(response).setHeader("Cache-Control", "private, no-store");
+    }
+}
@@ -0,0 +1,89 @@
+package com.store.app.servlet;
+
+import com.store.app.dao.CatalogCache;
+import com.store.app.dao.CategoryIndex;
+import com.store.app.model.Product;
+import com.store.app.model.ProductPage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductGridCacheTest {
+
+    @Test
+    void get_shouldReuseMarkupUntilPageChanges() {
+        // given
+        CatalogCache catalog = mock(CatalogCache.class);
+        ProductPage page = new ProductPage(Arrays.asList(new Product(1, "Laptop", "Electronics", 999.5, null)), 0);
+        ProductPage reloaded = new ProductPage(Arrays.asList(new Product(1, "Laptop", "Electronics", 899.5, null)), 0);
+        when(catalog.listProducts(null, 0, 12)).thenReturn(page, page, reloaded);
+        ProductGridCache grid = new ProductGridCache(catalog, 10);
+
+        // when
+        ProductGridCache.Fragment first = grid.get(null, 0, 12);
+        ProductGridCache.Fragment second = grid.get(null, 0, 12);
+        ProductGridCache.Fragment third = grid.get(null, 0, 12);
+
+        // then
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertTrue(third.getHtml().contains("899.5"));
+        assertEquals(1, grid.getHits());
+        assertEquals(2, grid.getRenders());
+    }
+
+    @Test
+    void get_withIndex_shouldReuseMarkupUntilIndexChanges() {
+        // given
+        CatalogCache catalog = mock(CatalogCache.class);
+        CategoryIndex index = mock(CategoryIndex.class);
+        when(index.ensureLoaded()).thenReturn(true);
+        when(index.version()).thenReturn(1L, 1L, 2L);
+        when(index.listProducts("Kitchen", 0, 0, 12)).thenReturn(
+                new ProductPage(Arrays.asList(new Product(2, "Mug", "Kitchen", 9.0, null)), 0));
+        ProductGridCache grid = new ProductGridCache(catalog, index, 10);
+
+        // when
+        ProductGridCache.Fragment first = grid.get("Kitchen", 0, 0, 12);
+        ProductGridCache.Fragment second = grid.get("Kitchen", 0, 0, 12);
+        ProductGridCache.Fragment third = grid.get("Kitchen", 0, 0, 12);
+
+        // then: la base n'est jamais interrogée
+        assertSame(first, second);
+        assertNotSame(second, third);
+        verify(catalog, never()).listProducts(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void renderNavigation_shouldLinkCategoriesAndPriceRangesWithCounts() {
+        // given
+        CategoryIndex index = new CategoryIndex(mock(com.store.app.dao.ProductDao.class), 60_000);
+        index.replaceAll(Arrays.asList(new Product(1, "Mug", "Kitchen & Home", 9.0, null),
+                new Product(2, "Laptop", "Electronics", 899.0, null)));
+
+        // when
+        String html = ProductGridCache.renderNavigation(index.facets(), "Kitchen & Home", 0);
+
+        // then
+        assertTrue(html.contains("href=\"home.jsp?category=Kitchen+%26+Home\">Kitchen &amp; Home <span class=\"badge bg-secondary\">1</span>"));
+        assertTrue(html.contains("nav-link active\" href=\"home.jsp?category=Kitchen+%26+Home&amp;price=0\">Under 25"));
+        assertFalse(html.contains("500 and up"), "seules les tranches de la catégorie sont proposées");
+    }
+
+    @Test
+    void render_shouldEscapeCatalogText() {
+        // given
+        ProductPage page = new ProductPage(Arrays.asList(new Product(3, "<b>Mug</b>", "Kitchen & \"Home\"", 5.0, null)), 0);
+
+        // when
+        String html = ProductGridCache.render(page);
+
+        // then
+        assertTrue(html.contains("&lt;b&gt;Mug&lt;/b&gt;"));
+        assertTrue(html.contains("Kitchen &amp; &quot;Home&quot;"));
+        assertTrue(html.contains("CartServlet?id=3"));
+    }
+}
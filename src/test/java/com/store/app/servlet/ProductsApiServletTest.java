@@ -0,0 +1,115 @@
+package com.store.app.servlet;
+
+import com.store.app.dao.CategoryIndex;
+import com.store.app.dao.ProductDao;
+import com.store.app.model.Product;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductsApiServletTest {
+
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private ProductDao dao;
+    private CategoryIndex index;
+    private MockedStatic<CategoryIndex> indexes;
+
+    @BeforeEach
+    void setup() {
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        dao = mock(ProductDao.class);
+        index = new CategoryIndex(dao, 0);
+        index.replaceAll(Arrays.asList(
+                new Product(4, "Dune", "Books", 9.5, "dune.jpg"),
+                new Product(5, "Mug", "Kitchen", 12.0, null),
+                new Product(9, "Emma", "Books", 7.0, null),
+                new Product(12, "Ulysses", "Books", 11.0, null)));
+        indexes = mockStatic(CategoryIndex.class);
+        indexes.when(CategoryIndex::getInstance).thenReturn(index);
+    }
+
+    @AfterEach
+    void tearDown() {
+        indexes.close();
+    }
+
+    @Test
+    void doGet_shouldWriteIndexPageAsJson_withNextCursorAndEtag() throws Exception {
+        // given
+        when(request.getParameter("category")).thenReturn("Books");
+        when(request.getParameter("limit")).thenReturn("2");
+        StringWriter sw = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        new ProductsApiServlet().doGet(request, response);
+
+        // then: ni requête ni connexion, le corps et l'ETag viennent du même instantané
+        assertEquals("{\"products\":[{\"id\":4,\"name\":\"Dune\",\"category\":\"Books\",\"price\":9.5,\"image\":\"dune.jpg\"},"
+                + "{\"id\":9,\"name\":\"Emma\",\"category\":\"Books\",\"price\":7,\"image\":null}],\"nextAfter\":9}", sw.toString());
+        verify(response).setHeader("ETag", "W/\"p" + index.version() + "\"");
+        verify(response).setContentType(ApiResponse.JSON);
+        verifyNoInteractions(dao);
+    }
+
+    @Test
+    void doGet_whenEtagMatches_shouldAnswer304() throws Exception {
+        // given
+        when(request.getHeader("If-None-Match")).thenReturn("W/\"p" + index.version() + "\"");
+
+        // when
+        new ProductsApiServlet().doGet(request, response);
+
+        // then
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response, never()).getWriter();
+    }
+
+    @Test
+    void doGet_whenLimitIsHuge_shouldCapIt() throws Exception {
+        // given
+        List<Product> many = new ArrayList<>();
+        for (int i = 1; i <= ProductsApiServlet.MAX_LIMIT + 10; i++) {
+            many.add(new Product(i, "P" + i, "Bulk", 1.0, null));
+        }
+        index.replaceAll(many);
+        when(request.getParameter("limit")).thenReturn("10000");
+        StringWriter sw = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        new ProductsApiServlet().doGet(request, response);
+
+        // then
+        assertTrue(sw.toString().endsWith("\"nextAfter\":" + ProductsApiServlet.MAX_LIMIT + "}"));
+    }
+
+    @Test
+    void doGet_whenCatalogCannotLoad_shouldAnswer503() throws Exception {
+        // given
+        index = new CategoryIndex(dao, 0);
+        when(dao.showProducts()).thenReturn(new ArrayList<>());
+        indexes.when(CategoryIndex::getInstance).thenReturn(index);
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+
+        // when
+        new ProductsApiServlet().doGet(request, response);
+
+        // then
+        verify(response).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+}
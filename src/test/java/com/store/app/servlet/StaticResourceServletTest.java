@@ -0,0 +1,155 @@
+package com.store.app.servlet;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StaticResourceServletTest {
+
+    @TempDir Path webRoot;
+
+    private AssetManifest manifest;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private ByteArrayOutputStream body;
+    private final StaticResourceServlet servlet = new StaticResourceServlet();
+
+    @BeforeEach
+    void setup() throws Exception {
+        Path images = Files.createDirectories(webRoot.resolve("product-images"));
+        Files.write(images.resolve("logo.jpg"), new byte[] { 1, 2, 3, 4 });
+        StringBuilder css = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            css.append(".card-").append(i).append(" { margin: 0; }\n");
+        }
+        Files.write(images.resolve("site.css"), css.toString().getBytes(StandardCharsets.UTF_8));
+        manifest = AssetManifest.build(webRoot, AssetManifest.ROOTS,
+                p -> p.endsWith(".css") ? "text/css" : "image/jpeg");
+
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        body = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override public void write(int b) { body.write(b); }
+            @Override public boolean isReady() { return true; }
+            @Override public void setWriteListener(WriteListener l) { }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        // remet le manifeste vide pour les autres tests
+        AssetManifest.install(null);
+    }
+
+    @Test
+    void url_shouldFingerprintKnownAssetsOnly() {
+        // when
+        String url = manifest.url("product-images/logo.jpg");
+
+        // then
+        assertTrue(url.matches("assets/product-images/logo\\.[0-9a-f]{10}\\.jpg"), url);
+        assertEquals("product-images/missing.jpg", manifest.url("product-images/missing.jpg"));
+        assertEquals(2, manifest.size());
+    }
+
+    @Test
+    void doGet_fingerprintedPath_shouldBeImmutableAndUseSendfile() throws Exception {
+        // given
+        AssetManifest.install(manifest);
+        String hashed = manifest.url("product-images/logo.jpg").substring("assets".length());
+        when(request.getPathInfo()).thenReturn(hashed);
+        when(request.getAttribute(StaticResourceServlet.SENDFILE_SUPPORT)).thenReturn(Boolean.TRUE);
+
+        // when
+        servlet.doGet(request, response);
+
+        // then
+        verify(response).setHeader("Cache-Control", StaticResourceServlet.IMMUTABLE);
+        verify(response).setContentType("image/jpeg");
+        verify(response).setContentLengthLong(4);
+        verify(request).setAttribute(StaticResourceServlet.SENDFILE_FILENAME,
+                webRoot.resolve("product-images/logo.jpg").toAbsolutePath().toString());
+        verify(request).setAttribute(StaticResourceServlet.SENDFILE_END, 4L);
+        verify(response, never()).setHeader(eq("Vary"), anyString());
+        assertEquals(0, body.size());
+    }
+
+    @Test
+    void doGet_withoutSendfile_shouldCopyFileAndRevalidatePlainPath() throws Exception {
+        // given
+        AssetManifest.install(manifest);
+        when(request.getPathInfo()).thenReturn("/product-images/logo.jpg");
+
+        // when
+        servlet.doGet(request, response);
+
+        // then
+        verify(response).setHeader("Cache-Control", "no-cache");
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, body.toByteArray());
+    }
+
+    @Test
+    void doGet_textAsset_shouldServeGzipVariantWithItsOwnEtag() throws Exception {
+        // given
+        AssetManifest.install(manifest);
+        when(request.getPathInfo()).thenReturn("/product-images/site.css");
+        when(request.getHeader("Accept-Encoding")).thenReturn("br;q=0, gzip, deflate");
+
+        // when
+        servlet.doGet(request, response);
+
+        // then
+        verify(response).setHeader("Content-Encoding", "gzip");
+        verify(response).setHeader("Vary", "Accept-Encoding");
+        verify(response).setHeader(eq("ETag"), endsWith("-gzip\""));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            assertTrue(new String(in.readAllBytes(), StandardCharsets.UTF_8).startsWith(".card-0 {"));
+        }
+    }
+
+    @Test
+    void doGet_withMatchingEtag_shouldAnswer304WithoutBody() throws Exception {
+        // given
+        AssetManifest.install(manifest);
+        String hashed = manifest.url("product-images/logo.jpg").substring("assets".length());
+        String hash = hashed.split("\\.")[1];
+        when(request.getPathInfo()).thenReturn(hashed);
+        when(request.getHeader("If-None-Match")).thenReturn("W/\"other\", \"" + hash + "\"");
+
+        // when
+        servlet.doGet(request, response);
+
+        // then
+        verify(response).setStatus(304);
+        verify(response, never()).getOutputStream();
+    }
+
+    @Test
+    void doGet_unknownAsset_shouldAnswer404() throws Exception {
+        // given
+        AssetManifest.install(manifest);
+        when(request.getPathInfo()).thenReturn("/product-images/nope.jpg");
+
+        // when
+        servlet.doGet(request, response);
+
+        // then
+        verify(response).sendError(404);
+    }
+}
@@ -0,0 +1,92 @@
+package com.store.app.servlet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailCacheTest {
+
+    @TempDir Path tmp;
+
+    private Path image(String name, int width, int height) throws Exception {
+        Path file = tmp.resolve(name);
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpeg", file.toFile());
+        return file;
+    }
+
+    @Test
+    void bucket_shouldRoundUpToKnownWidths() {
+        assertEquals(160, ThumbnailCache.bucket(1));
+        assertEquals(320, ThumbnailCache.bucket(288));
+        assertEquals(640, ThumbnailCache.bucket(576));
+        assertEquals(640, ThumbnailCache.bucket(5_000));
+    }
+
+    @Test
+    void get_shouldRenderOnceThenServeFromDisk() throws Exception {
+        // given: exécuteur synchrone pour le test
+        Path source = image("big.jpg", 1000, 500);
+        ThumbnailCache cache = new ThumbnailCache(tmp.resolve("thumbs"), 10_000_000, 0.8f, Runnable::run, 1_000);
+
+        // when
+        Path first = cache.get(source, "abc", 288);
+        Path second = cache.get(source, "abc", 300);
+
+        // then
+        assertEquals(first, second);
+        BufferedImage thumb = ImageIO.read(first.toFile());
+        assertEquals(320, thumb.getWidth());
+        assertEquals(160, thumb.getHeight());
+        assertEquals(1, cache.getRenders());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void get_whenOverSizeCap_shouldEvictLeastRecentlyUsed() throws Exception {
+        // given: la limite ne tient qu'une vignette
+        Path source = image("big.jpg", 1000, 500);
+        ThumbnailCache sizer = new ThumbnailCache(tmp.resolve("probe"), Long.MAX_VALUE, 0.8f, Runnable::run, 1_000);
+        long one = Files.size(sizer.get(source, "a", 640));
+        ThumbnailCache cache = new ThumbnailCache(tmp.resolve("thumbs"), one + one / 2, 0.8f, Runnable::run, 1_000);
+
+        // when
+        Path a = cache.get(source, "a", 640);
+        Path b = cache.get(source, "b", 640);
+
+        // then
+        assertFalse(Files.exists(a));
+        assertTrue(Files.exists(b));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(Files.size(b), cache.getBytes());
+    }
+
+    @Test
+    void get_whenPoolFull_shouldThrowRejected() throws Exception {
+        // given
+        Path source = image("big.jpg", 100, 100);
+        ThumbnailCache cache = new ThumbnailCache(tmp.resolve("thumbs"), 1_000_000, 0.8f, r -> {
+            throw new RejectedExecutionException("full");
+        }, 1_000);
+
+        // then
+        assertThrows(RejectedExecutionException.class, () -> cache.get(source, "abc", 160));
+        assertEquals(1, cache.getRejected());
+    }
+
+    @Test
+    void get_whenSourceIsNotAnImage_shouldReturnNull() throws Exception {
+        // given
+        Path source = Files.write(tmp.resolve("notes.jpg"), new byte[] { 1, 2, 3 });
+        ThumbnailCache cache = new ThumbnailCache(tmp.resolve("thumbs"), 1_000_000, 0.8f, Runnable::run, 1_000);
+
+        // then
+        assertNull(cache.get(source, "abc", 160));
+    }
+}